@@ -0,0 +1,30 @@
+package cc.fasttext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Helpers for the JMH benchmarks of the hot paths.
+ * All benchmarks use {@link SyntheticData synthetic data} generated into a temporary directory.
+ * Build and run:
+ * <pre>{@code
+ * mvn -Pjmh package
+ * java -jar target/benchmarks.jar [jmh options, e.g. ModelBenchmark -p loss=NS -prof gc]
+ * }</pre>
+ * To compare two revisions, run both with the same options and {@code -rf json -rff <file>}.
+ * The {@link Events events} stay enabled, as in production; add {@code -jvmArgsAppend -Devents=false} to exclude them.
+ */
+public class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+        }
+    }
+}
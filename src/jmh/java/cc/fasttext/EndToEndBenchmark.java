@@ -0,0 +1,217 @@
+package cc.fasttext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * The end-to-end throughput suite: generates a {@link SyntheticData synthetic corpus} and then,
+ * for each number of threads, measures the training throughput and the peak heap,
+ * the model load time, the prediction throughput and latency percentiles (supervised models only)
+ * and the quantization time (supervised models only).
+ * The results are written as a JSON array, one object per number of threads, so they can be compared between runs and machines.
+ * It is a plain program rather than a JMH benchmark, since each measurement is a long single-shot operation.
+ * Run (after {@code mvn -Pjmh package}):
+ * <pre>{@code
+ * java -cp target/benchmarks.jar cc.fasttext.EndToEndBenchmark -model supervised -lines 200000 -vocab 100000 -labels 50 -threads 1,2,4 -output results.json
+ * }</pre>
+ * Options (all optional): {@code -model} (supervised, cbow or skipgram), {@code -lines}, {@code -vocab}, {@code -labels}, {@code -threads} (comma-separated),
+ * {@code -dim}, {@code -epoch}, {@code -bucket}, {@code -queries}, {@code -quantize} (true or false), {@code -seed}, {@code -dir} (for the corpus and models, a temporary one by default)
+ * and {@code -output} (stdout by default).
+ */
+public class EndToEndBenchmark {
+    private final Map<String, String> options;
+
+    private EndToEndBenchmark(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String... args) throws Exception {
+        if (args.length % 2 != 0) {
+            throw new IllegalArgumentException("Options must be pairs: -name value");
+        }
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("-")) {
+                throw new IllegalArgumentException("Wrong option " + args[i]);
+            }
+            options.put(args[i].substring(1), args[i + 1]);
+        }
+        String output = options.get("output");
+        List<Map<String, Object>> res = new EndToEndBenchmark(options).run();
+        if (output == null) {
+            System.out.println(toJson(res));
+        } else {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(Paths.get(output)), true, StandardCharsets.UTF_8.name())) {
+                out.println(toJson(res));
+            }
+        }
+    }
+
+    private int intOption(String name, int def) {
+        return Integer.parseInt(options.getOrDefault(name, String.valueOf(def)));
+    }
+
+    private List<Map<String, Object>> run() throws IOException, ExecutionException, InterruptedException {
+        Args.ModelName model = Args.ModelName.fromName(options.getOrDefault("model", "supervised"));
+        int lines = intOption("lines", 100_000);
+        int vocab = intOption("vocab", 100_000);
+        int labels = model == Args.ModelName.SUP ? intOption("labels", 20) : 0;
+        int[] threads = Arrays.stream(options.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors())).split(","))
+                .mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+        boolean temp = !options.containsKey("dir");
+        Path dir = temp ? Files.createTempDirectory("fasttext-e2e") : Files.createDirectories(Paths.get(options.get("dir")));
+        try {
+            SyntheticData data = new SyntheticData(vocab, labels, intOption("seed", 42));
+            long start = System.nanoTime();
+            Path corpus = data.write(dir.resolve("corpus.txt"), lines);
+            double generation = seconds(start);
+            String[] queries = new String[intOption("queries", 10_000)];
+            for (int i = 0; i < queries.length; i++) {
+                queries[i] = data.line();
+            }
+            List<Map<String, Object>> res = new ArrayList<>();
+            for (int t : threads) {
+                Map<String, Object> run = new LinkedHashMap<>();
+                run.put("model", model.getName());
+                run.put("lines", lines);
+                run.put("bytes", Files.size(corpus));
+                run.put("vocab", vocab);
+                run.put("labels", labels);
+                run.put("generation_seconds", generation);
+                run.put("threads", t);
+                Args.Builder args = new Args.Builder().setModel(model).setThread(t).setDim(intOption("dim", 100)).setEpoch(intOption("epoch", 5));
+                if (options.containsKey("bucket")) {
+                    args.setBucket(intOption("bucket", 0));
+                }
+                measure(run, args.build(), corpus, queries, dir);
+                res.add(run);
+                System.err.println(run);
+            }
+            return res;
+        } finally {
+            if (temp) {
+                Benchmarks.delete(dir);
+            }
+        }
+    }
+
+    private void measure(Map<String, Object> run, Args args, Path corpus, String[] queries, Path dir)
+            throws IOException, ExecutionException, InterruptedException {
+        List<MemoryPoolMXBean> heap = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(p -> p.getType() == MemoryType.HEAP).collect(Collectors.toList());
+        System.gc();
+        heap.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long start = System.nanoTime();
+        FastText ft = FastText.DEFAULT_FACTORY.train(args, corpus.toString(), null);
+        double train = seconds(start);
+        // the actual number of words, the rarest ones of the requested vocabulary may not occur in the corpus:
+        run.put("vocab", ft.getDictionary().nwords());
+        long tokens = args.epoch() * ft.getDictionary().ntokens();
+        run.put("train_seconds", train);
+        run.put("train_tokens", tokens);
+        run.put("train_words_per_second", tokens / train);
+        run.put("train_words_per_second_per_thread", tokens / train / args.thread());
+        // the sum of peaks of heap pools, an upper bound of the real peak:
+        run.put("train_peak_heap_bytes", heap.stream().mapToLong(p -> p.getPeakUsage().getUsed()).sum());
+
+        Path bin = dir.resolve("model-" + args.thread() + ".bin");
+        start = System.nanoTime();
+        ft.saveModel(bin.toString());
+        run.put("save_seconds", seconds(start));
+        run.put("model_bytes", Files.size(bin));
+        // to not hold two models at once:
+        ft = null;
+        start = System.nanoTime();
+        FastText loaded = FastText.DEFAULT_FACTORY.load(bin.toString());
+        run.put("load_seconds", seconds(start));
+
+        if (args.model() != Args.ModelName.SUP) {
+            return;
+        }
+        predict(run, loaded, queries, args.thread());
+        if (!Boolean.parseBoolean(options.getOrDefault("quantize", "true"))) {
+            return;
+        }
+        start = System.nanoTime();
+        loaded.quantize(new Args.Builder().copy(args).setQNorm(true).setCutOff(Math.min(100_000, loaded.getDictionary().nwords())).build(), null);
+        run.put("quantize_seconds", seconds(start));
+    }
+
+    private static void predict(Map<String, Object> run, FastText model, String[] queries, int threads)
+            throws InterruptedException, ExecutionException {
+        // warm up:
+        for (int i = 0; i < Math.min(1_000, queries.length); i++) {
+            model.predictLine(queries[i], 1);
+        }
+        Histogram latency = new Histogram();
+        ExecutorService service = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                tasks.add(service.submit(() -> {
+                    for (int i = offset; i < queries.length; i += threads) {
+                        long s = System.nanoTime();
+                        model.predictLine(queries[i], 1);
+                        latency.record(System.nanoTime() - s);
+                    }
+                }));
+            }
+            for (Future<?> f : tasks) {
+                f.get();
+            }
+            double seconds = seconds(start);
+            Histogram.Snapshot s = latency.snapshot();
+            run.put("predict_queries", s.count());
+            run.put("predict_qps", s.count() / seconds);
+            run.put("predict_latency_p50_us", s.quantile(0.5) / 1e3);
+            run.put("predict_latency_p90_us", s.quantile(0.9) / 1e3);
+            run.put("predict_latency_p99_us", s.quantile(0.99) / 1e3);
+            run.put("predict_latency_max_us", s.max() / 1e3);
+        } finally {
+            service.shutdownNow();
+        }
+    }
+
+    private static double seconds(long start) {
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    static String toJson(List<Map<String, Object>> runs) {
+        return runs.stream().map(r -> r.entrySet().stream()
+                .map(e -> "\"" + e.getKey() + "\": " + toJson(e.getValue()))
+                .collect(Collectors.joining(", ", "  {", "}")))
+                .collect(Collectors.joining(",\n", "[\n", "\n]"));
+    }
+
+    private static String toJson(Object value) {
+        if (value instanceof Double) {
+            double d = (Double) value;
+            return Double.isFinite(d) ? String.format(Locale.ROOT, "%.6g", d) : "null";
+        }
+        if (value instanceof Number) {
+            return value.toString();
+        }
+        return "\"" + value.toString().replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
@@ -0,0 +1,108 @@
+package cc.fasttext;
+
+import com.google.common.collect.Multimap;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of a trained supervised model:
+ * {@link FastText#predictLine(String, int)}, {@link FastText#predictLines(List, int)}, {@link FastText#getWordVector(String)}, {@link FastText#nn(int, String)},
+ * and saving and loading of the model file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FastTextBenchmark {
+    private static final int QUERIES = 1_000;
+
+    private Path dir;
+    private Path bin;
+    private FastText model;
+    private String[] lines;
+    private String[] words;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int index;
+
+        int next() {
+            return index = (index + 1) % QUERIES;
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException, ExecutionException {
+        dir = Files.createTempDirectory("fasttext-jmh");
+        SyntheticData data = new SyntheticData(50_000, 20, 42);
+        Path file = data.write(dir.resolve("data.txt"), 20_000);
+        Args args = new Args.Builder().setModel(Args.ModelName.SUP).setDim(100).setWordNgrams(2).setMinN(3).setMaxN(6)
+                .setBucket(200_000).setEpoch(1).setThread(Runtime.getRuntime().availableProcessors()).build();
+        model = FastText.DEFAULT_FACTORY.train(args, file.toString(), null);
+        bin = dir.resolve("model.bin");
+        model.saveModel(bin.toString());
+        lines = new String[QUERIES];
+        words = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            lines[i] = data.line();
+            words[i] = data.word();
+        }
+        // the word vectors are precomputed once and then cached:
+        model.nn(1, words[0]);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Benchmarks.delete(dir);
+    }
+
+    @Benchmark
+    public Map<String, Float> predictLine(Cursor cursor) {
+        return model.predictLine(lines[cursor.next()], 1);
+    }
+
+    /**
+     * All the queries at once, to compare with {@link #predictLine(Cursor)} multiplied by their number.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Map<String, Float>> predictLines() {
+        return model.predictLines(Arrays.asList(lines), 1);
+    }
+
+    @Benchmark
+    public Vector getWordVector(Cursor cursor) {
+        return model.getWordVector(words[cursor.next()]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Multimap<String, Float> nn(Cursor cursor) {
+        return model.nn(10, words[cursor.next()]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(1)
+    public Path save() throws IOException {
+        Path res = dir.resolve("copy.bin");
+        model.saveModel(res.toString());
+        return res;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public FastText load() throws IOException {
+        return FastText.DEFAULT_FACTORY.load(bin.toString());
+    }
+}
@@ -0,0 +1,69 @@
+package cc.fasttext;
+
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the row operations: {@link Matrix#dotRow(Vector, int)}, {@link Matrix#addRow(Vector, int, float)}
+ * and {@link QMatrix#dotRow(Vector, int)} of the product-quantized matrix,
+ * and of the whole matrix-vector product {@link Matrix#dotRows(Vector, Vector)} (in microseconds).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatrixBenchmark {
+    private static final int ROWS = 10_000;
+
+    @Param({"100", "300"})
+    public int dim;
+
+    private Matrix matrix;
+    private QMatrix qmatrix;
+    private Vector vector;
+    private Vector product;
+    private int row;
+
+    @Setup
+    public void setup() {
+        RandomGenerator random = FastText.DEFAULT_FACTORY.getRandom().apply(42);
+        matrix = new Matrix(ROWS, dim);
+        matrix.uniform(random, 1.0f / dim);
+        qmatrix = new QMatrix(matrix, FastText.DEFAULT_FACTORY.getRandom(), 2, false);
+        product = new Vector(ROWS);
+        vector = new Vector(dim);
+        for (int i = 0; i < dim; i++) {
+            vector.set(i, (float) random.nextGaussian());
+        }
+    }
+
+    private int next() {
+        return row = (row + 7919) % ROWS;
+    }
+
+    @Benchmark
+    public float dotRow() {
+        return matrix.dotRow(vector, next());
+    }
+
+    @Benchmark
+    public void addRow() {
+        matrix.addRow(vector, next(), 1e-6f);
+    }
+
+    @Benchmark
+    public float quantizedDotRow() {
+        return qmatrix.dotRow(vector, next());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Vector dotRows() {
+        matrix.dotRows(vector, product);
+        return product;
+    }
+}
@@ -0,0 +1,75 @@
+package cc.fasttext;
+
+import cc.fasttext.io.PrintLogs;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of a single SGD step {@link Model#update(List, int, float)} for each loss of a supervised model.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelBenchmark {
+    private static final int LINES = 1_000;
+
+    @Param({"NS", "HS", "SOFTMAX"})
+    public Args.LossName loss;
+
+    @Param({"100"})
+    public int dim;
+
+    private Model model;
+    private final List<IntArrayList> words = new ArrayList<>();
+    private final List<Integer> targets = new ArrayList<>();
+    private int index;
+
+    @Setup
+    public void setup() throws IOException {
+        Path dir = Files.createTempDirectory("fasttext-jmh");
+        try {
+            Path file = new SyntheticData(50_000, 100, 42).write(dir.resolve("data.txt"), LINES);
+            Args args = new Args.Builder().setModel(Args.ModelName.SUP).setLossName(loss).setDim(dim)
+                    .setWordNgrams(2).setBucket(200_000).build();
+            Dictionary dictionary;
+            try (InputStream in = Files.newInputStream(file)) {
+                dictionary = Dictionary.read(in, args, StandardCharsets.UTF_8, PrintLogs.Level.NONE.createLogger(System.err));
+            }
+            FastText.Factory factory = FastText.DEFAULT_FACTORY;
+            Matrix input = new Matrix(dictionary.nwords() + args.bucket(), dim);
+            input.uniform(factory.getRandom().apply(1), 1.0f / dim);
+            Matrix output = new Matrix(dictionary.nlabels(), dim);
+            model = factory.createModel(args, dictionary, input, output, 1);
+            try (Dictionary.SeekableReader in = dictionary.createReader(factory.getFileSystem().openScrollable(file.toString()))) {
+                for (int i = 0; i < LINES; i++) {
+                    IntArrayList line = new IntArrayList();
+                    IntArrayList labels = new IntArrayList();
+                    dictionary.getLine(in, line, labels);
+                    if (line.isEmpty() || labels.isEmpty()) continue;
+                    words.add(line);
+                    targets.add(labels.get(0));
+                }
+            }
+        } finally {
+            Benchmarks.delete(dir);
+        }
+    }
+
+    @Benchmark
+    public float update() {
+        int i = index++ % words.size();
+        model.update(words.get(i), targets.get(i), 0.05f);
+        return model.getLoss();
+    }
+}
@@ -0,0 +1,71 @@
+package cc.fasttext;
+
+import cc.fasttext.io.IOStreams;
+import cc.fasttext.io.PrintLogs;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of reading: {@link Dictionary#getLine(Dictionary.SeekableReader, IntArrayList, IntArrayList)}
+ * (tokenization, hashing and subwords) and the bare {@link cc.fasttext.io.WordReader#nextWord()}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReaderBenchmark {
+
+    @Param({"1", "2"})
+    public int wordNgrams;
+
+    private Path dir;
+    private Dictionary dictionary;
+    private Dictionary.SeekableReader lines;
+    private Dictionary.SeekableReader words;
+    private final IntArrayList line = new IntArrayList();
+    private final IntArrayList labels = new IntArrayList();
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("fasttext-jmh");
+        Path file = new SyntheticData(50_000, 20, 42).write(dir.resolve("data.txt"), 20_000);
+        Args args = new Args.Builder().setModel(Args.ModelName.SUP).setWordNgrams(wordNgrams).setMinN(3).setMaxN(6).build();
+        try (InputStream in = Files.newInputStream(file)) {
+            dictionary = Dictionary.read(in, args, StandardCharsets.UTF_8, PrintLogs.Level.NONE.createLogger(System.err));
+        }
+        IOStreams fs = FastText.DEFAULT_FACTORY.getFileSystem();
+        lines = dictionary.createReader(fs.openScrollable(file.toString()));
+        words = Dictionary.createSeekableWordReader(fs.openScrollable(file.toString()), StandardCharsets.UTF_8, FastText.Factory.BUFF_SIZE);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        lines.close();
+        words.close();
+        Benchmarks.delete(dir);
+    }
+
+    @Benchmark
+    public int getLine() throws IOException {
+        // rewinds by itself at the end of file:
+        return dictionary.getLine(lines, line, labels) + line.size();
+    }
+
+    @Benchmark
+    public String nextWord() throws IOException {
+        String res = words.nextWord();
+        if (res == null) {
+            words.rewind();
+            res = words.nextWord();
+        }
+        return res;
+    }
+}
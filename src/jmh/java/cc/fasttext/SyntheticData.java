@@ -0,0 +1,110 @@
+package cc.fasttext;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates a reproducible synthetic corpus for benchmarks, so they do not depend on downloaded data.
+ * The words follow the Zipf law (as natural text does).
+ * In a labelled corpus each line starts with a label,
+ * and about a half of the words of a line are drawn from the label's own part of the vocabulary
+ * (the words whose index modulo the number of labels is the label), so a supervised model has something to learn.
+ */
+public class SyntheticData {
+    private final Random random;
+    private final String[] words;
+    private final double[] cumulative;
+    private final int labels;
+
+    /**
+     * @param vocabulary int, the number of distinct words
+     * @param labels     int, the number of distinct labels, {@code 0} for an unlabelled corpus
+     * @param seed       long
+     */
+    public SyntheticData(int vocabulary, int labels, long seed) {
+        this.random = new Random(seed);
+        this.labels = labels;
+        this.words = new String[vocabulary];
+        this.cumulative = new double[vocabulary];
+        double sum = 0;
+        for (int i = 0; i < vocabulary; i++) {
+            words[i] = word(i);
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < vocabulary; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+
+    private static String word(int i) {
+        StringBuilder res = new StringBuilder();
+        do {
+            res.append((char) ('a' + i % 26));
+            i /= 26;
+        } while (i > 0);
+        return res.toString();
+    }
+
+    /**
+     * @return String, a random word from the Zipf distribution
+     */
+    public String word() {
+        return words[index()];
+    }
+
+    private int index() {
+        int i = Arrays.binarySearch(cumulative, random.nextDouble());
+        return i < 0 ? -i - 1 : i;
+    }
+
+    /**
+     * Generates a line of {@code 5-30} words with a label if the corpus is labelled.
+     *
+     * @return String
+     */
+    public String line() {
+        int length = 5 + random.nextInt(26);
+        if (labels == 0) {
+            StringBuilder res = new StringBuilder(word());
+            for (int i = 1; i < length; i++) {
+                res.append(' ').append(word());
+            }
+            return res.toString();
+        }
+        int label = random.nextInt(labels);
+        StringBuilder res = new StringBuilder("__label__").append(label);
+        for (int i = 0; i < length; i++) {
+            int w = index();
+            if (random.nextBoolean()) {
+                // the label-specific part of the vocabulary, of about the same frequency:
+                w = (w - w % labels + label) % words.length;
+            }
+            res.append(' ').append(words[w]);
+        }
+        return res.toString();
+    }
+
+    /**
+     * Writes a corpus to the file.
+     *
+     * @param file  {@link Path}
+     * @param lines int, the number of lines
+     * @return the same file
+     * @throws IOException if an I/O error occurs
+     */
+    public Path write(Path file, int lines) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < lines; i++) {
+                out.write(line());
+                out.write('\n');
+            }
+        }
+        return file;
+    }
+}
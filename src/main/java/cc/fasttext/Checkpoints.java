@@ -0,0 +1,249 @@
+package cc.fasttext;
+
+import cc.fasttext.io.FTInputStream;
+import cc.fasttext.io.FTOutputStream;
+import cc.fasttext.io.IOStreams;
+import cc.fasttext.io.ScrollableInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * The settings of periodic training checkpoints, which allow to resume an interrupted training.
+ * A checkpoint consists of two files:
+ * {@code <uri>.bin}, an ordinary model (it can be loaded and used as is),
+ * and {@code <uri>.state}, the training progress (the data file and its {@link #fingerprint(IOStreams, String, long) fingerprint},
+ * the token counters and the file positions of threads)
+ * together with the settings which are not stored in the model file (the number of threads and the learning rate).
+ * Both files are written under temporary names and then {@link IOStreams#rename(String, String) renamed},
+ * the model goes first and the state is captured before the model is written,
+ * so the state is never ahead of the model: if the process dies in between, the resumed training just repeats some tokens.
+ * The checkpoints are written on a separate thread, the training threads are not stopped,
+ * so (as with the Hogwild SGD itself) the saved matrices may include partial updates.
+ * <p>
+ * The default interval (in seconds) can be set by the system property {@code checkpoint.interval}.
+ *
+ * @see FastText.Factory#setCheckpoints(Checkpoints)
+ * @see FastText.Factory#resume(String)
+ */
+public class Checkpoints {
+    public static final long DEFAULT_INTERVAL = Long.parseLong(System.getProperty("checkpoint.interval", "600"));
+
+    private static final int STATE_MAGIC_INT32 = 0x4B_43_54_46;
+    private static final int STATE_VERSION = 2;
+    private static final int FINGERPRINT_BLOCK_SIZE = 64 * 1024;
+    private static final Charset CHARSET = StandardCharsets.UTF_8;
+
+    private final String uri;
+    private final long interval;
+
+    public Checkpoints(String uri) {
+        this(uri, DEFAULT_INTERVAL);
+    }
+
+    /**
+     * @param uri      String, the prefix of checkpoint files, not empty
+     * @param interval long, the number of seconds between checkpoints, positive
+     */
+    public Checkpoints(String uri, long interval) {
+        if (Objects.requireNonNull(uri, "Null uri").isEmpty()) {
+            throw new IllegalArgumentException("Empty checkpoint uri");
+        }
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Wrong checkpoint interval: " + interval);
+        }
+        this.uri = uri;
+        this.interval = interval;
+    }
+
+    /**
+     * @return String, the uri of the model file
+     */
+    public String getModelURI() {
+        return uri + ".bin";
+    }
+
+    /**
+     * @return String, the uri of the state file
+     */
+    public String getStateURI() {
+        return uri + ".state";
+    }
+
+    /**
+     * @return long, the interval in seconds
+     */
+    public long getInterval() {
+        return interval;
+    }
+
+    /**
+     * Answers {@code true} if there is a checkpoint to resume from.
+     *
+     * @param fs {@link IOStreams}
+     * @return boolean
+     */
+    public boolean exists(IOStreams fs) {
+        return fs.canRead(getStateURI()) && fs.canRead(getModelURI());
+    }
+
+    State read(IOStreams fs) throws IOException {
+        try (FTInputStream in = new FTInputStream(new BufferedInputStream(fs.openInput(getStateURI())))) {
+            return State.load(in);
+        }
+    }
+
+    /**
+     * Writes the checkpoint.
+     *
+     * @param fs    {@link IOStreams}
+     * @param model {@link FastText} the model to save
+     * @param state {@link State} the progress, captured before the model
+     * @throws IOException if an I/O error occurs
+     */
+    void write(IOStreams fs, FastText model, State state) throws IOException {
+        String bin = getModelURI() + ".tmp";
+        model.saveModel(bin);
+        fs.rename(bin, getModelURI());
+        String file = getStateURI() + ".tmp";
+        try (FTOutputStream out = new FTOutputStream(new BufferedOutputStream(fs.createOutput(file)))) {
+            state.save(out);
+        }
+        fs.rename(file, getStateURI());
+    }
+
+    /**
+     * Calculates a cheap fingerprint of the data to check that a checkpoint is resumed on the same data:
+     * the CRC32 checksums of the first and the last blocks (64KB) of the file.
+     *
+     * @param fs   {@link IOStreams}
+     * @param file String, the data uri
+     * @param size long, the data size
+     * @return long, the checksum of the first block in the high half and the checksum of the last one in the low half
+     * @throws IOException if an I/O error occurs
+     */
+    static long fingerprint(IOStreams fs, String file, long size) throws IOException {
+        byte[] buff = new byte[(int) Math.min(FINGERPRINT_BLOCK_SIZE, size)];
+        CRC32 head = new CRC32();
+        CRC32 tail = new CRC32();
+        try (ScrollableInputStream in = fs.openScrollable(file)) {
+            readFully(in, buff);
+            head.update(buff);
+            in.seek(size - buff.length);
+            readFully(in, buff);
+            tail.update(buff);
+        }
+        return head.getValue() << 32 | tail.getValue();
+    }
+
+    private static void readFully(ScrollableInputStream in, byte[] buff) throws IOException {
+        int pos = 0;
+        while (pos < buff.length) {
+            int n = in.read(buff, pos, buff.length - pos);
+            if (n < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+            pos += n;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[every %ds]", uri, interval);
+    }
+
+    /**
+     * The training progress.
+     * Immutable.
+     */
+    static class State {
+        final String file;
+        final long size;
+        final long fingerprint;
+        final long tokens;
+        final double lr;
+        final int seed;
+        final long[] counts;
+        final long[] positions;
+
+        /**
+         * @param file        String, the data uri
+         * @param size        long, the data size
+         * @param fingerprint long, the data {@link Checkpoints#fingerprint(IOStreams, String, long) fingerprint}
+         * @param tokens      long, the number of tokens in one epoch
+         * @param lr          double, the initial learning rate
+         * @param seed        int, the base seed for the random generators of threads
+         * @param counts      array of longs, the numbers of tokens processed by each thread
+         * @param positions   array of longs, the current file positions of threads
+         */
+        State(String file, long size, long fingerprint, long tokens, double lr, int seed, long[] counts, long[] positions) {
+            if (counts.length != positions.length) {
+                throw new IllegalArgumentException("Counts and positions do not match");
+            }
+            this.file = Objects.requireNonNull(file, "Null file");
+            this.size = size;
+            this.fingerprint = fingerprint;
+            this.tokens = tokens;
+            this.lr = lr;
+            this.seed = seed;
+            this.counts = counts;
+            this.positions = positions;
+        }
+
+        /**
+         * @return long, the total number of processed tokens
+         */
+        long total() {
+            long res = 0;
+            for (long c : counts) {
+                res += c;
+            }
+            return res;
+        }
+
+        void save(FTOutputStream out) throws IOException {
+            out.writeInt(STATE_MAGIC_INT32);
+            out.writeInt(STATE_VERSION);
+            FTOutputStream.writeString(out, file, CHARSET);
+            out.writeLong(size);
+            out.writeLong(fingerprint);
+            out.writeLong(tokens);
+            out.writeDouble(lr);
+            out.writeInt(seed);
+            out.writeInt(counts.length);
+            for (int i = 0; i < counts.length; i++) {
+                out.writeLong(counts[i]);
+                out.writeLong(positions[i]);
+            }
+        }
+
+        static State load(FTInputStream in) throws IOException {
+            if (STATE_MAGIC_INT32 != in.readInt()) {
+                throw new IllegalArgumentException("Not a checkpoint state");
+            }
+            int version = in.readInt();
+            if (STATE_VERSION != version) {
+                throw new IllegalArgumentException("Unsupported checkpoint version: " + version);
+            }
+            String file = FTInputStream.readString(in, CHARSET);
+            long size = in.readLong();
+            long fingerprint = in.readLong();
+            long tokens = in.readLong();
+            double lr = in.readDouble();
+            int seed = in.readInt();
+            int threads = in.readInt();
+            long[] counts = new long[threads];
+            long[] positions = new long[threads];
+            for (int i = 0; i < threads; i++) {
+                counts[i] = in.readLong();
+                positions[i] = in.readLong();
+            }
+            return new State(file, size, fingerprint, tokens, lr, seed, counts, positions);
+        }
+    }
+}
@@ -3,10 +3,11 @@ package cc.fasttext;
 import cc.fasttext.io.*;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.io.ByteStreams;
 import com.google.common.primitives.Floats;
+import com.google.common.primitives.Ints;
 import com.google.common.primitives.UnsignedLong;
 import org.apache.commons.lang.Validate;
-import org.apache.commons.math3.distribution.UniformRealDistribution;
 import org.apache.commons.math3.random.RandomGenerator;
 import org.apache.commons.math3.util.FastMath;
 
@@ -15,7 +16,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.ToLongFunction;
@@ -40,9 +43,15 @@ public class Dictionary {
     private static final Integer WORD_ID_DEFAULT = -1;
     private static final Integer PRUNE_IDX_SIZE_DEFAULT = -1;
 
-    private static final UnsignedLong ADD_WORDS_NGRAMS_FACTOR_UNSIGNED_LONG = UnsignedLong.valueOf(116_049_371L);
+    private static final long ADD_WORDS_NGRAMS_FACTOR = 116_049_371L;
+
+    // FNV-1a constants, 2166136261 and 16777619 (uint32_t):
+    private static final int FNV_OFFSET_BASIS = 0x811C_9DC5;
+    private static final int FNV_PRIME = 0x0100_0193;
 
     private static final long READ_LOG_STEP = 1_000_000;
+    // a signature of the optional section with precomputed tables:
+    private static final int TABLES_MAGIC_INT32 = 0x53_57_52_44;
 
     private static final int PARALLEL_SIZE_THRESHOLD = Integer.parseInt(System.getProperty("parallel.dictionary.threshold",
             String.valueOf(FastText.PARALLEL_THRESHOLD_FACTOR * 100)));
@@ -59,6 +68,9 @@ public class Dictionary {
     private long ntokens;
     private long pruneIdxSize = PRUNE_IDX_SIZE_DEFAULT;
     private Map<Integer, Integer> pruneIdx = new HashMap<>();
+    // subwords of all entries in CSR form: the subwords of the i-th entry are ids[offsets[i]..offsets[i+1]):
+    private int[] subwordOffsets = new int[1];
+    private int[] subwordIds = new int[0];
     private final Charset charset;
 
     // args:
@@ -136,14 +148,24 @@ public class Dictionary {
      * @param w String
      */
     void add(String w) {
+        add(w, 1);
+    }
+
+    /**
+     * Adds the word with the specified number of occurrences, used to merge counts collected in parallel.
+     *
+     * @param w     String
+     * @param count long, positive
+     */
+    private void add(String w, long count) {
         long h = find(w);
-        ntokens++;
+        ntokens += count;
         if (Objects.equals(word2int.getOrDefault(h, WORD_ID_DEFAULT), WORD_ID_DEFAULT)) {
-            Entry e = new Entry(w, 1, getType(w));
+            Entry e = new Entry(w, count, getType(w));
             words.add(e);
             word2int.put(h, size++);
         } else {
-            words.get(word2int.get(h)).count++;
+            words.get(word2int.get(h)).count += count;
         }
     }
 
@@ -167,6 +189,23 @@ public class Dictionary {
         return size;
     }
 
+    /**
+     * Roughly estimates the heap size of the dictionary in bytes (entries, the hash table and the subword tables),
+     * assuming compressed references.
+     *
+     * @return long
+     */
+    long memory() {
+        long res = 4L * (subwordOffsets.length + subwordIds.length);
+        for (Entry e : words) {
+            // entry + string + chars:
+            res += 32 + 24 + 16 + 2L * e.word.length();
+        }
+        // hash map nodes with boxed keys and values:
+        res += 64L * (word2int.size() + pruneIdx.size());
+        return res;
+    }
+
     List<Float> pdiscard() {
         return pdiscard;
     }
@@ -269,11 +308,11 @@ public class Dictionary {
      * @return hash as long (uint32_t)
      */
     public static long hash(String str, Charset charset) {
-        long h = 2_166_136_261L;// 0xffffffc5;
-        for (long b : str.getBytes(charset)) {
-            h = (h ^ b) * 16_777_619; // FNV-1a
+        int h = FNV_OFFSET_BASIS;
+        for (byte b : str.getBytes(charset)) {
+            h = (h ^ b) * FNV_PRIME; // FNV-1a
         }
-        return h & 0xffff_ffffL;
+        return Integer.toUnsignedLong(h);
     }
 
     /**
@@ -298,25 +337,36 @@ public class Dictionary {
      *      }
      *  }
      * }}</pre>
+     * Unlike the original, the subwords are not stored inside entries,
+     * but are packed into two flat arrays (compressed sparse row layout) for the whole vocabulary.
      */
     private void initNgrams() {
+        int[][] subwords = new int[size][];
+        IntStream indexes = IntStream.range(0, size);
         if (FastText.USE_PARALLEL_COMPUTATION && size > PARALLEL_SIZE_THRESHOLD) {
-            IntStream.range(0, size).parallel().forEach(this::initNgrams);
-            return;
+            indexes = indexes.parallel();
         }
+        indexes.forEach(i -> subwords[i] = initNgrams(i));
+        int[] offsets = new int[size + 1];
         for (int i = 0; i < size; i++) {
-            initNgrams(i);
+            offsets[i + 1] = offsets[i] + subwords[i].length;
         }
+        int[] ids = new int[offsets[size]];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(subwords[i], 0, ids, offsets[i], subwords[i].length);
+        }
+        this.subwordOffsets = offsets;
+        this.subwordIds = ids;
     }
 
-    private void initNgrams(int i) {
+    private int[] initNgrams(int i) {
         Entry e = words.get(i);
-        String word = BOW + e.word + EOW;
-        e.subwords.clear();
-        e.subwords.add(i);
+        IntArrayList res = new IntArrayList();
+        res.addInt(i);
         if (!EOS.equals(e.word)) {
-            computeSubwords(word, e.subwords);
+            computeSubwords(BOW + e.word + EOW, res);
         }
+        return res.toIntArray();
     }
 
     /**
@@ -342,10 +392,43 @@ public class Dictionary {
      * @param word String
      * @param ngrams List of ints
      */
-    private void computeSubwords(String word, List<Integer> ngrams) {
+    private void computeSubwords(String word, IntArrayList ngrams) {
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            computeSubwords(word.getBytes(StandardCharsets.UTF_8), ngrams);
+            return;
+        }
         computeSubwords(word, ngrams, null, this::pushHash);
     }
 
+    /**
+     * Computes subwords of the word in the same way as the original (c++) code does:
+     * by walking the UTF-8 bytes of the word and skipping continuation bytes to find code point boundaries.
+     * The FNV-1a hash of each n-gram is extended incrementally from the hash of the previous (shorter) n-gram
+     * with the same start, so neither n-gram strings nor their byte arrays are created.
+     * Produces exactly the same ids as {@link #computeSubwords(String, IntArrayList, List, BiConsumer)} for the UTF-8 charset.
+     *
+     * @param word   array of bytes, the UTF-8 encoded word with BOW and EOW
+     * @param ngrams List of ints to fill
+     * @see #hash(String, Charset)
+     */
+    private void computeSubwords(byte[] word, IntArrayList ngrams) {
+        int len = word.length;
+        int bucket = this.bucket.intValue();
+        for (int i = 0; i < len; i++) {
+            if ((word[i] & 0xC0) == 0x80) continue;
+            int h = FNV_OFFSET_BASIS;
+            for (int j = i, n = 1; j < len && n <= maxn; n++) {
+                h = (h ^ word[j++]) * FNV_PRIME;
+                while (j < len && (word[j] & 0xC0) == 0x80) {
+                    h = (h ^ word[j++]) * FNV_PRIME;
+                }
+                if (n >= minn && !(n == 1 && (i == 0 || j == len))) {
+                    pushHash(ngrams, Integer.remainderUnsigned(h, bucket));
+                }
+            }
+        }
+    }
+
     /**
      * Original (c++) code:
      * <pre>{@code
@@ -371,11 +454,11 @@ public class Dictionary {
      * @param ngrams List of ints
      * @param substrings List of strings
      */
-    private void computeSubwords(String word, List<Integer> ngrams, List<String> substrings) {
-        computeSubwords(word, ngrams, substrings, (nrgams, h) -> ngrams.add(nwords + h));
+    private void computeSubwords(String word, IntArrayList ngrams, List<String> substrings) {
+        computeSubwords(word, ngrams, substrings, (nrgams, h) -> ngrams.addInt(nwords + h));
     }
 
-    private void computeSubwords(String word, List<Integer> ngrams, List<String> substrings, BiConsumer<List<Integer>, Integer> pushMethod) {
+    private void computeSubwords(String word, IntArrayList ngrams, List<String> substrings, BiConsumer<IntArrayList, Integer> pushMethod) {
         int len = word.length();
         for (int i = 0, cpI; i < len; i += Character.charCount(cpI)) {
             cpI = word.codePointAt(i);
@@ -411,10 +494,10 @@ public class Dictionary {
      * }
      * }</pre>
      *
-     * @param hashes List of ints
+     * @param hashes {@link IntArrayList}
      * @param id int
      */
-    private void pushHash(List<Integer> hashes, int id) {
+    private void pushHash(IntArrayList hashes, int id) {
         if (pruneIdxSize == 0 || id < 0) return;
         if (pruneIdxSize > 0) {
             if (pruneIdx.containsKey(id)) {
@@ -423,7 +506,7 @@ public class Dictionary {
                 return;
             }
         }
-        hashes.add(nwords + id);
+        hashes.addInt(nwords + id);
     }
 
     /**
@@ -509,13 +592,30 @@ public class Dictionary {
      * @param labels List of labels
      * @return int32_t
      * @throws IOException if an I/O error occurs
+     * @see #getLine(SeekableReader, IntArrayList, IntArrayList, IntArrayList)
      */
-    int getLine(SeekableReader in, List<Integer> words, List<Integer> labels) throws IOException {
+    int getLine(SeekableReader in, IntArrayList words, IntArrayList labels) throws IOException {
+        return getLine(in, words, labels, new IntArrayList());
+    }
+
+    /**
+     * Reads a line as {@link #getLine(SeekableReader, IntArrayList, IntArrayList)} does,
+     * but takes the buffer for word hashes (the {@code word_hashes} vector of the original) from the caller,
+     * so that a thread which reads many lines does not allocate it every time.
+     *
+     * @param in         {@link SeekableReader}
+     * @param words      List of words
+     * @param labels     List of labels
+     * @param wordHashes {@link IntArrayList}, the buffer for word hashes, cleared before use
+     * @return int32_t
+     * @throws IOException if an I/O error occurs
+     */
+    int getLine(SeekableReader in, IntArrayList words, IntArrayList labels, IntArrayList wordHashes) throws IOException {
         in.rewind();
-        List<Integer> wordHashes = new ArrayList<>();
         int ntokens = 0;
         words.clear();
         labels.clear();
+        wordHashes.clear();
         String token;
         while ((token = in.nextWord()) != null) {
             ntokens++;
@@ -524,9 +624,9 @@ public class Dictionary {
             EntryType type = wid < 0 ? getType(token) : getType(wid);
             if (EntryType.WORD == type) {
                 addSubwords(words, token, wid);
-                wordHashes.add((int) h);
+                wordHashes.addInt((int) h);
             } else if (EntryType.LABEL == type && wid >= 0) {
-                labels.add(wid - nwords);
+                labels.addInt(wid - nwords);
             }
             if (Objects.equals(token, EOS)) {
                 break;
@@ -537,14 +637,30 @@ public class Dictionary {
     }
 
     public List<Integer> getLine(String line) {
-        List<Integer> res = new ArrayList<>();
-        InputStream in = new ByteArrayInputStream(line.getBytes(charset));
+        IntArrayList res = new IntArrayList();
+        getLine(line, res, new IntArrayList(), new IntArrayList());
+        return res;
+    }
+
+    /**
+     * Reads the word and label ids of the given line into the buffers.
+     *
+     * @param line       String
+     * @param words      {@link IntArrayList}, the buffer for words, cleared before use
+     * @param labels     {@link IntArrayList}, the buffer for labels, cleared before use
+     * @param wordHashes {@link IntArrayList}, the buffer for word hashes, cleared before use
+     * @return int, the number of tokens
+     */
+    int getLine(String line, IntArrayList words, IntArrayList labels, IntArrayList wordHashes) {
+        byte[] bytes = line.getBytes(charset);
+        // the whole line is in memory, there is no need in a default (large) reader buffer:
+        InputStream in = new ByteArrayInputStream(bytes);
         try {
-            getLine(createReader(in), res, new ArrayList<>());
+            return getLine(createSeekableWordReader(in, charset, Math.min(bytes.length + 1, FastText.Factory.BUFF_SIZE)),
+                    words, labels, wordHashes);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
-        return res;
     }
 
     /**
@@ -576,9 +692,8 @@ public class Dictionary {
      * @return int32_t
      * @throws IOException if an I/O error occurs
      */
-    int getLine(SeekableReader in, List<Integer> words, RandomGenerator rng) throws IOException {
+    int getLine(SeekableReader in, IntArrayList words, RandomGenerator rng) throws IOException {
         in.rewind();
-        UniformRealDistribution uniform = new UniformRealDistribution(rng, 0, 1);
         int ntokens = 0;
         words.clear();
         String token;
@@ -587,8 +702,8 @@ public class Dictionary {
             int wid = getId(token, h);
             if (wid < 0) continue;
             ntokens++;
-            if (EntryType.WORD == getType(wid) && !discard(wid, uniform.sample())) {
-                words.add(wid);
+            if (EntryType.WORD == getType(wid) && !discard(wid, rng.nextDouble())) {
+                words.addInt(wid);
             }
             if (ntokens > MAX_LINE_SIZE || Objects.equals(token, EOS)) break;
         }
@@ -630,30 +745,26 @@ public class Dictionary {
      * }
      * }</pre>
      *
-     * @param line   List of ints
-     * @param hashes List of ints
+     * Note: the uint64_t arithmetic is emulated with long: the multiplication and addition are the same modulo 2^64,
+     * and the int32_t hashes are sign-extended exactly as in the original, only the remainder has to be unsigned.
+     *
+     * @param line   {@link IntArrayList} to add ids
+     * @param hashes {@link IntArrayList} of word hashes
      * @param n      int
      */
-    private void addWordNgrams(List<Integer> line, List<Integer> hashes, int n) {
-        if (FastText.USE_PARALLEL_COMPUTATION && hashes.size() > PARALLEL_SIZE_THRESHOLD) {
-            List<Integer> sync = Collections.synchronizedList(line);
-            IntStream.range(0, hashes.size()).parallel().forEach(i -> addWordNgrams(sync, hashes, i, n));
-            return;
-        }
-        for (int i = 0; i < hashes.size(); i++) { // int32_t
-            addWordNgrams(line, hashes, i, n);
-        }
-    }
-
-    private void addWordNgrams(List<Integer> line, List<Integer> hashes, int i, int n) {
-        UnsignedLong h = UnsignedLong.fromLongBits(hashes.get(i)); // uint64_t
-        for (int j = i + 1; j < hashes.size() && j < i + n; j++) { // h = h * 116049371 + hashes[j] :
-            h = h.times(ADD_WORDS_NGRAMS_FACTOR_UNSIGNED_LONG).plus(UnsignedLong.fromLongBits(hashes.get(j)));
-            pushHash(line, h.mod(bucket).intValue()); // h % args_->bucket
+    private void addWordNgrams(IntArrayList line, IntArrayList hashes, int n) {
+        long bucket = this.bucket.longValue();
+        int size = hashes.size();
+        for (int i = 0; i < size; i++) { // int32_t
+            long h = hashes.getInt(i); // uint64_t
+            for (int j = i + 1; j < size && j < i + n; j++) {
+                h = h * ADD_WORDS_NGRAMS_FACTOR + hashes.getInt(j);
+                pushHash(line, (int) Long.remainderUnsigned(h, bucket)); // h % args_->bucket
+            }
         }
     }
 
-    private void addWordNgrams(List<Integer> line, List<Integer> hashes) {
+    private void addWordNgrams(IntArrayList line, IntArrayList hashes) {
         addWordNgrams(line, hashes, wordNgrams);
     }
 
@@ -673,18 +784,18 @@ public class Dictionary {
      * }
      * }}</pre>
      *
-     * @param line List of ints
+     * @param line {@link IntArrayList}
      * @param token String token
      * @param wid int, word id
      */
-    private void addSubwords(List<Integer> line, String token, int wid) {
+    private void addSubwords(IntArrayList line, String token, int wid) {
         if (wid < 0) { // out of vocab
             computeSubwords(BOW + token + EOW, line);
         } else {
             if (maxn <= 0) { // in vocab w/o subwords
-                line.add(wid);
+                line.addInt(wid);
             } else { // in vocab w/ subwords
-                line.addAll(getSubwords(wid));
+                line.addAll(subwordIds, subwordOffsets[wid], subwordOffsets[wid + 1]);
             }
         }
     }
@@ -699,13 +810,64 @@ public class Dictionary {
      * }
      * }</pre>
      *
+     * Note: the elements of the view are boxed on each access,
+     * the hot paths should use {@link #subwordOffset(int)}, {@link #subwordCount(int)} and {@link #subwordId(int)} instead.
+     *
      * @param i int
-     * @return List of ints
+     * @return List of ints, unmodifiable view of the underlying array
      */
     public List<Integer> getSubwords(int i) {
         Validate.isTrue(i >= 0);
         Validate.isTrue(i < nwords);
-        return words.get(i).subwords;
+        return Collections.unmodifiableList(Ints.asList(subwordIds).subList(subwordOffsets[i], subwordOffsets[i + 1]));
+    }
+
+    /**
+     * Returns the position of the first subword of the word in the flat table of subwords.
+     *
+     * @param i int, word id
+     * @return int, the index to pass to {@link #subwordId(int)}
+     */
+    public int subwordOffset(int i) {
+        Validate.isTrue(i >= 0);
+        Validate.isTrue(i < nwords);
+        return subwordOffsets[i];
+    }
+
+    /**
+     * Returns the number of subwords of the word (including the word itself).
+     *
+     * @param i int, word id
+     * @return int
+     */
+    public int subwordCount(int i) {
+        Validate.isTrue(i >= 0);
+        Validate.isTrue(i < nwords);
+        return subwordOffsets[i + 1] - subwordOffsets[i];
+    }
+
+    /**
+     * Returns the subword id from the flat table of subwords:
+     * the subwords of the word {@code i} are {@code subwordId(subwordOffset(i) + k)}, where {@code 0 <= k < subwordCount(i)}.
+     *
+     * @param k int, the index in the table
+     * @return int, the subword id (a row of the input matrix)
+     */
+    public int subwordId(int k) {
+        return subwordIds[k];
+    }
+
+    /**
+     * Appends the subwords of the word to the list, the same as {@code ngrams.insert(ngrams.end(), getSubwords(i))},
+     * but without a view object.
+     *
+     * @param ngrams {@link IntArrayList} to add ids
+     * @param i      int, word id
+     */
+    void addSubwords(IntArrayList ngrams, int i) {
+        Validate.isTrue(i >= 0);
+        Validate.isTrue(i < nwords);
+        ngrams.addAll(subwordIds, subwordOffsets[i], subwordOffsets[i + 1]);
     }
 
     /**
@@ -729,11 +891,27 @@ public class Dictionary {
         if (i >= 0) {
             return getSubwords(i);
         }
-        List<Integer> ngrams = new ArrayList<>();
+        IntArrayList ngrams = new IntArrayList();
         computeSubwords(BOW + word + EOW, ngrams);
         return ngrams;
     }
 
+    /**
+     * Puts the subwords of the word into the buffer, as {@link #getSubwords(String)} does, but without a new list.
+     *
+     * @param word   String
+     * @param ngrams {@link IntArrayList}, the buffer, cleared before use
+     */
+    void getSubwords(String word, IntArrayList ngrams) {
+        ngrams.clear();
+        int i = getId(word);
+        if (i >= 0) {
+            addSubwords(ngrams, i);
+            return;
+        }
+        computeSubwords(BOW + word + EOW, ngrams);
+    }
+
     /**
      * Original (c++) code:
      * <pre>{@code
@@ -755,7 +933,7 @@ public class Dictionary {
      * @return {@link Multimap}
      */
     public Multimap<String, Integer> getSubwordsMap(String word) {
-        List<Integer> ngrams = new ArrayList<>();
+        IntArrayList ngrams = new IntArrayList();
         List<String> substrings = new ArrayList<>();
         int i = getId(word);
         if (i >= 0) {
@@ -952,6 +1130,57 @@ public class Dictionary {
         return res;
     }
 
+    /**
+     * Creates a new dictionary, which contains all entries of this one with the same counts and order,
+     * plus the entries of the other dictionary which are unknown here:
+     * new words are inserted after the known words (so the ids of known labels are shifted by the number of new words),
+     * new labels are appended at the end.
+     * The counts of known entries are not changed, so the target tables (and the hierarchical softmax tree)
+     * stay the same if there are no new targets.
+     * It is used to continue the training on new data, see {@link FastText#update(Args, String, boolean)}.
+     *
+     * @param other  {@link Dictionary} read from the new data with the same settings
+     * @param words  boolean, to add new words
+     * @param labels boolean, to add new labels
+     * @return {@link Dictionary}
+     * @throws IllegalStateException if this dictionary is pruned
+     */
+    Dictionary extend(Dictionary other, boolean words, boolean labels) throws IllegalStateException {
+        if (isPruned()) {
+            throw new IllegalStateException("Can't extend a pruned dictionary");
+        }
+        List<Entry> newWords = new ArrayList<>();
+        List<Entry> newLabels = new ArrayList<>();
+        for (Entry e : other.words) {
+            if (getId(e.word) != WORD_ID_DEFAULT) {
+                continue;
+            }
+            if (words && EntryType.WORD == e.type) {
+                newWords.add(e.copy());
+            }
+            if (labels && EntryType.LABEL == e.type) {
+                newLabels.add(e.copy());
+            }
+        }
+        Dictionary res = new Dictionary(model, label, t, bucket, maxn, minn, wordNgrams, charset);
+        List<Entry> entries = new ArrayList<>(size + newWords.size() + newLabels.size());
+        this.words.subList(0, nwords).forEach(e -> entries.add(e.copy()));
+        entries.addAll(newWords);
+        this.words.subList(nwords, size).forEach(e -> entries.add(e.copy()));
+        entries.addAll(newLabels);
+        res.words = entries;
+        res.word2int = new HashMap<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            res.word2int.put(res.find(entries.get(i).word), i);
+        }
+        res.size = entries.size();
+        res.nwords = nwords + newWords.size();
+        res.nlabels = nlabels + newLabels.size();
+        res.ntokens = ntokens + other.ntokens;
+        res.initTables();
+        return res;
+    }
+
     /**
      * Makes a full (deep) copy of the instance
      *
@@ -970,6 +1199,9 @@ public class Dictionary {
         res.words = new ArrayList<>(this.words);
         res.pruneIdx = new HashMap<>(this.pruneIdx);
         res.pdiscard = Floats.asList(Floats.toArray(this.pdiscard));
+        // never modified, rebuilt by initNgrams:
+        res.subwordOffsets = this.subwordOffsets;
+        res.subwordIds = this.subwordIds;
         return res;
     }
 
@@ -1055,6 +1287,23 @@ public class Dictionary {
      * @throws IOException if an I/O error occurs
      */
     static Dictionary load(Args args, Charset charset, FTInputStream in) throws IOException {
+        Dictionary res = loadEntries(args, charset, in);
+        res.initTables();
+        return res;
+    }
+
+    /**
+     * Loads a dictionary without the discard table and subwords.
+     * The tables must be initialized after that either by {@link #loadTables(FTInputStream)} or {@link #initTables()}.
+     *
+     * @param args    {@link Args}
+     * @param charset {@link Charset}
+     * @param in      {@link FTInputStream}
+     * @return {@link Dictionary} new instance
+     * @throws IOException if an I/O error occurs
+     * @see #load(Args, Charset, FTInputStream)
+     */
+    static Dictionary loadEntries(Args args, Charset charset, FTInputStream in) throws IOException {
         Dictionary res = new Dictionary(args, charset);
         res.size = in.readInt();
         res.nwords = in.readInt();
@@ -1072,11 +1321,85 @@ public class Dictionary {
         for (int i = 0; i < res.pruneIdxSize; i++) {
             res.pruneIdx.put(in.readInt(), in.readInt());
         }
-        res.initTableDiscard();
-        res.initNgrams();
         return res;
     }
 
+    /**
+     * Computes the discard table and subwords of all entries.
+     */
+    void initTables() {
+        initTableDiscard();
+        initNgrams();
+    }
+
+    /**
+     * Writes the precomputed discard table and subwords index.
+     * This is an optional section which goes at the very end of the model file, after the output matrix,
+     * and therefore is ignored by the original (c++) fastText and by older versions.
+     * Format (little endian): int32 magic, int32 size, int32[size + 1] offsets, int32 length, int32[length] ids,
+     * float[size] pdiscard.
+     *
+     * @param out {@link FTOutputStream}
+     * @throws IOException if an I/O error occurs
+     * @see #loadTables(FTInputStream)
+     */
+    void saveTables(FTOutputStream out) throws IOException {
+        out.writeInt(TABLES_MAGIC_INT32);
+        out.writeInt(size);
+        out.writeInts(subwordOffsets);
+        out.writeInt(subwordIds.length);
+        out.writeInts(subwordIds);
+        out.writeFloats(Floats.toArray(pdiscard));
+    }
+
+    /**
+     * Reads the precomputed discard table and subwords index if the stream contains them.
+     *
+     * @param in {@link FTInputStream}, positioned right after the output matrix
+     * @return true if the tables have been read, false if there is no such section (e.g. legacy model file)
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if the section does not match the dictionary
+     * @see #saveTables(FTOutputStream)
+     */
+    boolean loadTables(FTInputStream in) throws IOException, IllegalArgumentException {
+        byte[] head = new byte[Integer.BYTES];
+        if (ByteStreams.read(in, head, 0, head.length) != head.length) { // a few trailing bytes are not a section
+            return false;
+        }
+        if (TABLES_MAGIC_INT32 != Ints.fromBytes(head[3], head[2], head[1], head[0])) {
+            return false;
+        }
+        if (size != in.readInt()) {
+            throw new IllegalArgumentException("Wrong subwords section: size does not match the dictionary");
+        }
+        int[] offsets = new int[size + 1];
+        in.readInts(offsets);
+        int length = in.readInt();
+        if (length < 0 || offsets[0] != 0 || offsets[size] != length) {
+            throw new IllegalArgumentException("Wrong subwords section: broken offsets");
+        }
+        for (int i = 0; i < size; i++) {
+            if (offsets[i] > offsets[i + 1]) {
+                throw new IllegalArgumentException("Wrong subwords section: offsets are not monotonic at " + i);
+            }
+        }
+        int[] ids = new int[length];
+        in.readInts(ids);
+        // the word and label ids themselves and the ngram buckets:
+        long limit = Math.max(size, nwords + bucket.longValue());
+        for (int id : ids) {
+            if (id < 0 || id >= limit) {
+                throw new IllegalArgumentException("Wrong subwords section: id " + id + " is out of range [0, " + limit + ")");
+            }
+        }
+        float[] discard = new float[size];
+        in.readFloats(discard);
+        this.subwordOffsets = offsets;
+        this.subwordIds = ids;
+        this.pdiscard = Floats.asList(discard);
+        return true;
+    }
+
     /**
      * Reads a dictionary from stream.
      * Original (c++) code:
@@ -1134,8 +1457,67 @@ public class Dictionary {
             }
         }
         res.threshold(args.minCount(), args.minCountLabel());
-        res.initTableDiscard();
-        res.initNgrams();
+        res.initTables();
+        logs.infoln("\rRead %dM words", res.ntokens / READ_LOG_STEP);
+        logs.infoln("Number of words:  %d", res.nwords);
+        logs.infoln("Number of labels: %d", res.nlabels);
+        if (res.size == 0) {
+            throw new IllegalStateException("Empty vocabulary. Try a smaller -minCount value.");
+        }
+        return res;
+    }
+
+    /**
+     * Reads a dictionary from several files, as if they were a single file with a line break after each of them
+     * (see {@link cc.fasttext.io.ConcatInputStream}).
+     * The words of each file are counted separately (in parallel if it is allowed),
+     * then the counts are merged in the order of files, so the words have the same order as for the sequential reading.
+     * The files are counted in windows of the size of the fork-join pool, so only that many counts are kept in memory at once,
+     * and each of them is pruned with the same rule as the dictionary (see {@link #count(IOStreams, String, Charset)}).
+     * The only difference with {@link #read(InputStream, Args, Charset, PrintLogs)} is that the vocabulary is pruned
+     * (if it exceeds {@code 0.75 * MAX_VOCAB_SIZE}) per file and during merging, not per word of the whole input.
+     *
+     * @param fs      {@link IOStreams} to open the files
+     * @param files   List of uris
+     * @param args    {@link Args}
+     * @param charset {@link Charset}
+     * @param logs    {@link PrintLogs} to log process
+     * @return {@link Dictionary}
+     * @throws IOException           in case of error with stream
+     * @throws IllegalStateException if no words in dictionary
+     */
+    public static Dictionary read(IOStreams fs, List<String> files, Args args, Charset charset, PrintLogs logs)
+            throws IOException, IllegalStateException {
+        Dictionary res = new Dictionary(args, charset);
+        long minThreshold = 1;
+        int window = FastText.USE_PARALLEL_COMPUTATION ? ForkJoinPool.commonPool().getParallelism() : 1;
+        for (int from = 0; from < files.size(); from += window) {
+            List<String> parts = files.subList(from, Math.min(files.size(), from + window));
+            List<Map<String, long[]>> counts;
+            try {
+                counts = (window > 1 ? parts.parallelStream() : parts.stream()).map(file -> {
+                    try {
+                        return count(fs, file, charset);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }).collect(Collectors.toList());
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            for (Map<String, long[]> words : counts) {
+                for (Map.Entry<String, long[]> e : words.entrySet()) {
+                    res.add(e.getKey(), e.getValue()[0]);
+                    if (res.size > 0.75 * MAX_VOCAB_SIZE) {
+                        minThreshold++;
+                        res.threshold(minThreshold, minThreshold);
+                    }
+                }
+            }
+            logs.debug("\rRead %dM words", res.ntokens / READ_LOG_STEP);
+        }
+        res.threshold(args.minCount(), args.minCountLabel());
+        res.initTables();
         logs.infoln("\rRead %dM words", res.ntokens / READ_LOG_STEP);
         logs.infoln("Number of words:  %d", res.nwords);
         logs.infoln("Number of labels: %d", res.nlabels);
@@ -1145,6 +1527,36 @@ public class Dictionary {
         return res;
     }
 
+    /**
+     * Counts the words of a file, which is followed by a line break.
+     * As in {@link #read(InputStream, Args, Charset, PrintLogs)}, if the number of distinct words exceeds {@code 0.75 * MAX_VOCAB_SIZE},
+     * the threshold is increased and the rarer words are removed, so the memory does not grow with the size of the file.
+     *
+     * @param fs      {@link IOStreams}
+     * @param file    String, uri
+     * @param charset {@link Charset}
+     * @return Map with words in the order of their first occurrence and counts
+     * @throws IOException if an I/O error occurs
+     */
+    private static Map<String, long[]> count(IOStreams fs, String file, Charset charset) throws IOException {
+        Map<String, long[]> res = new LinkedHashMap<>();
+        try (InputStream in = fs.openInput(file)) {
+            WordReader reader = createWordReader(in, charset, FastText.Factory.BUFF_SIZE);
+            String word;
+            long minThreshold = 1;
+            while ((word = reader.nextWord()) != null) {
+                res.computeIfAbsent(word, w -> new long[1])[0]++;
+                if (res.size() > 0.75 * MAX_VOCAB_SIZE) {
+                    long threshold = ++minThreshold;
+                    res.values().removeIf(count -> count[0] < threshold);
+                }
+            }
+        }
+        // the trailing line break always gives one more EOS:
+        res.computeIfAbsent(EOS, w -> new long[1])[0]++;
+        return res;
+    }
+
     /**
      * Creates a word reader.
      *
@@ -1206,6 +1618,18 @@ public class Dictionary {
             throw new IllegalStateException("Can't seek to " + n + " position.");
         }
 
+        /**
+         * Returns the position of the next byte to read, taking into account the buffered bytes.
+         *
+         * @return long, the offset in bytes from the start of the stream
+         * @throws IOException                   if an I/O error occurs
+         * @throws UnsupportedOperationException if this operation is not supported by the underlying stream
+         */
+        public long getPos() throws IOException, UnsupportedOperationException {
+            checkIsSeekable();
+            return ((ScrollableInputStream) in).getPos() - buffered();
+        }
+
         /**
          * Resets stream to the start position.
 
@@ -1247,7 +1671,6 @@ public class Dictionary {
     public static class Entry {
         final String word;
         final EntryType type;
-        final List<Integer> subwords = new ArrayList<>();
         long count;
 
         private Entry(String word, long count, EntryType type) {
@@ -1258,7 +1681,7 @@ public class Dictionary {
 
         @Override
         public String toString() {
-            return String.format("entry [word=%s, count=%d, type=%s, subwords=%s]", word, count, type, subwords);
+            return String.format("entry [word=%s, count=%d, type=%s]", word, count, type);
         }
 
         public long count() {
@@ -1266,9 +1689,7 @@ public class Dictionary {
         }
 
         Entry copy() {
-            Entry res = new Entry(this.word, this.count, this.type);
-            res.subwords.addAll(this.subwords);
-            return res;
+            return new Entry(this.word, this.count, this.type);
         }
     }
 
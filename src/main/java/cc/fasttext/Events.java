@@ -2,15 +2,20 @@ package cc.fasttext;
 
 import org.apache.commons.lang.StringUtils;
 
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Class to measure time of events in runtime to gather statistics.
- * TODO: it's temporary and will be removed.
+ * Each event has a {@link Histogram} of durations in nanoseconds, which can be read at any moment, also during the training.
+ * The overhead is small enough to be enabled by default:
+ * the start time is kept in a per-thread array, and the frequent (per line or per example) events are sampled,
+ * only every {@code N}-th of them is measured and recorded with the weight {@code N},
+ * so the counts and sums are estimates, while the quantiles are taken from the sample.
+ * Use the system property {@code events=false} to disable, and {@code events.sample} to set {@code N} (a power of two, 16 by default).
+ * There is also a set of {@link Counter counters}.
  * <p>
  * Created by @szuev on 25.12.2017.
  */
@@ -21,67 +26,160 @@ public enum Events {
     OUT_MATRIX_CREATE,
 
     FILE_SEEK,
-    DIC_GET_LINE,
-    TRAIN_CALC,
-    MODEL_UPDATE,
-    MODEL_COMPUTE_HIDDEN,
-    MODEL_LOSS_CALC,
-    MODEL_GRAD_MUL,
-    MODEL_INPUT_ADD_ROW,
+    DIC_GET_LINE(true),
+    TRAIN_CALC(true),
+    MODEL_UPDATE(true),
+    MODEL_COMPUTE_HIDDEN(true),
+    MODEL_LOSS_CALC(true),
+    MODEL_GRAD_MUL(true),
+    MODEL_INPUT_ADD_ROW(true),
     CREATE_RES_MODEL,
     TRAIN,
     SAVE_BIN,
+    PREDICT,
+    PREDICT_BATCH,
     ALL;
 
-    // disabled by default
-    private static final boolean DISABLED = !Boolean.parseBoolean(System.getProperty("events", "false"));
+    private static final boolean DISABLED = !Boolean.parseBoolean(System.getProperty("events", "true"));
+    private static final int SAMPLE = Integer.highestOneBit(Math.max(1, Integer.parseInt(System.getProperty("events.sample", "16"))));
+    private static final int SIZE = values().length;
+    // the first half is the start times, the second half is the numbers of starts:
+    private static final ThreadLocal<long[]> LOCAL = ThreadLocal.withInitial(() -> new long[2 * SIZE]);
 
-    private ThreadLocal<Instant> start = new ThreadLocal<>();
-    private ConcurrentLinkedQueue<Long> times = new ConcurrentLinkedQueue<>();
+    private final boolean frequent;
+    private final Histogram histogram = new Histogram();
+
+    Events() {
+        this(false);
+    }
+
+    Events(boolean frequent) {
+        this.frequent = frequent;
+    }
 
     public static boolean isDisabled() {
         return DISABLED;
     }
 
+    private long mask() {
+        return frequent ? SAMPLE - 1 : 0;
+    }
+
     public void start() {
         if (DISABLED) return;
-        Instant now = Instant.now();
-        if (start.get() != null) throw new IllegalStateException();
-        start.set(now);
+        long[] local = LOCAL.get();
+        if ((local[SIZE + ordinal()]++ & mask()) != 0) return;
+        local[ordinal()] = System.nanoTime();
     }
 
     public void end() {
         if (DISABLED) return;
-        Instant now = Instant.now();
-        Instant start = this.start.get();
-        if (start == null) throw new IllegalStateException();
-        this.start.set(null);
-        long time = ChronoUnit.MICROS.between(start, now);
-        times.add(time);
+        long now = System.nanoTime();
+        long[] local = LOCAL.get();
+        long starts = local[SIZE + ordinal()];
+        if (starts == 0 || ((starts - 1) & mask()) != 0) return;
+        histogram.record(Math.max(0, now - local[ordinal()]), mask() + 1);
+    }
+
+    /**
+     * @return {@link Histogram.Snapshot} the current durations in nanoseconds
+     */
+    public Histogram.Snapshot snapshot() {
+        return histogram.snapshot();
     }
 
-    public int size() {
-        return times.size();
+    /**
+     * @return long, the (estimated) number of events
+     */
+    public long size() {
+        return snapshot().count();
     }
 
+    /**
+     * @return double, the average duration in seconds
+     */
     public double average() {
-        return times.stream().mapToDouble(t -> t).average().orElse(Double.NaN) / 1_000_000;
+        return snapshot().mean() / 1_000_000_000;
     }
 
+    /**
+     * @return double, the (estimated) total duration in seconds
+     */
     public double sum() {
-        return times.stream().mapToLong(t -> t).sum() / 1_000_000d;
+        return snapshot().sum() / 1_000_000_000d;
     }
 
     @Override
     public String toString() {
-        return StringUtils.rightPad(name(), 40) +
-                StringUtils.rightPad(String.valueOf(size()), 15) +
-                StringUtils.rightPad(String.valueOf(average()), 25) +
-                StringUtils.rightPad(String.valueOf(sum()), 20);
+        return toString(snapshot());
+    }
+
+    private String toString(Histogram.Snapshot s) {
+        return StringUtils.rightPad(name(), 25) +
+                StringUtils.leftPad(String.valueOf(s.count()), 15) +
+                StringUtils.leftPad(String.format("%.3f", s.mean() / 1000), 15) +
+                StringUtils.leftPad(String.format("%.3f", s.quantile(0.5) / 1000d), 15) +
+                StringUtils.leftPad(String.format("%.3f", s.quantile(0.99) / 1000d), 15) +
+                StringUtils.leftPad(String.format("%.3f", s.max() / 1000d), 15) +
+                StringUtils.leftPad(String.format("%.3f", s.sum() / 1_000_000_000d), 15);
+    }
+
+    /**
+     * Forgets all recorded events and counters.
+     */
+    public static void reset() {
+        Arrays.stream(values()).forEach(e -> e.histogram.reset());
+        Arrays.stream(Counter.values()).forEach(c -> c.value.reset());
     }
 
+    /**
+     * Prints the table of events which have occurred (durations in microseconds, totals in seconds) and the counters.
+     *
+     * @return String or {@code null} if disabled
+     */
     public static String print() {
         if (DISABLED) return null;
-        return Arrays.stream(values()).map(Events::toString).collect(Collectors.joining("\n"));
+        String header = StringUtils.rightPad("EVENT", 25) + Stream.of("COUNT", "MEAN(us)", "P50(us)", "P99(us)", "MAX(us)", "TOTAL(s)")
+                .map(s -> StringUtils.leftPad(s, 15)).collect(Collectors.joining());
+        StringBuilder res = new StringBuilder(header);
+        for (Events e : values()) {
+            Histogram.Snapshot s = e.snapshot();
+            if (s.count() == 0) continue;
+            res.append("\n").append(e.toString(s));
+        }
+        for (Counter c : Counter.values()) {
+            res.append("\n").append(c);
+        }
+        return res.toString();
+    }
+
+    /**
+     * The throughput and cache counters.
+     * The throughput ones are not updated on each item: the training threads add their local numbers from time to time,
+     * along with the progress.
+     */
+    public enum Counter {
+        TOKENS,
+        EXAMPLES,
+        LINES,
+        BYTES,
+        CACHE_HITS,
+        CACHE_MISSES;
+
+        private final LongAdder value = new LongAdder();
+
+        public void add(long delta) {
+            if (DISABLED) return;
+            value.add(delta);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        @Override
+        public String toString() {
+            return StringUtils.rightPad(name(), 25) + StringUtils.leftPad(String.valueOf(get()), 15);
+        }
     }
 }
@@ -4,12 +4,13 @@ import cc.fasttext.Args.ModelName;
 import cc.fasttext.Dictionary.EntryType;
 import cc.fasttext.io.*;
 import cc.fasttext.io.impl.LocalIOStreams;
+import cc.fasttext.metrics.Metric;
+import cc.fasttext.metrics.Metrics;
+import cc.fasttext.metrics.MetricsSource;
 import com.google.common.collect.*;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
-import org.apache.commons.math3.distribution.UniformIntegerDistribution;
 import org.apache.commons.math3.random.RandomGenerator;
-import org.apache.commons.math3.random.Well19937c;
 import org.apache.commons.math3.util.FastMath;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,11 +20,16 @@ import java.lang.ref.Reference;
 import java.lang.ref.SoftReference;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.IntFunction;
 import java.util.stream.Collectors;
@@ -49,10 +55,16 @@ public class FastText {
     // experimental, use parallel streams where it makes sense:
     public static final boolean USE_PARALLEL_COMPUTATION = Boolean.parseBoolean(System.getProperty("parallel", "true"));
     static final int PARALLEL_THRESHOLD_FACTOR = Integer.parseInt(System.getProperty("parallel.factor", "100"));
+    // to append precomputed dictionary tables to the model file by default, see Dictionary#saveTables:
+    static final boolean SAVE_DICTIONARY_TABLES = Boolean.parseBoolean(System.getProperty("model.subwords", "false"));
+    // the number of lines predicted at once by predictLines, see Model#predictBatch:
+    static final int PREDICT_BATCH_SIZE = Integer.parseInt(System.getProperty("predict.batch", "128"));
 
     private static final Logger LOGGER = LoggerFactory.getLogger(FastText.class);
 
-    public static final Factory DEFAULT_FACTORY = new Factory(new LocalIOStreams(), Well19937c::new, new SimpleLogger(), StandardCharsets.UTF_8);
+    // the random generator is chosen by -Dfasttext.random (well, splitmix or minstd), see RandomGenerators#forName:
+    public static final Factory DEFAULT_FACTORY = new Factory(new LocalIOStreams(),
+            randomGenerator(System.getProperty("fasttext.random", "well")), new SimpleLogger(), StandardCharsets.UTF_8);
 
     private static final double FIND_NN_THRESHOLD = 1e-8;
     private final Args args;
@@ -63,6 +75,8 @@ public class FastText {
     private final IOStreams fs;
     private final PrintLogs logs;
     private final IntFunction<RandomGenerator> random;
+    // the scratch buffers of the query methods, one per calling thread:
+    private final ThreadLocal<Workspace> workspaces;
 
     private Reference<Matrix> precomputedWordVectors;
 
@@ -75,6 +89,7 @@ public class FastText {
         this.fs = fs;
         this.logs = logs;
         this.random = random;
+        this.workspaces = ThreadLocal.withInitial(() -> new Workspace(args.dim(), dict.nlabels()));
     }
 
     public static FastText train(Args args, String file) throws IOException, ExecutionException {
@@ -89,6 +104,22 @@ public class FastText {
         return DEFAULT_FACTORY.load(modelFileURI);
     }
 
+    /**
+     * Returns the random generator provider by its name, an unknown name is logged and replaced with the default one.
+     * It is used to init {@link #DEFAULT_FACTORY}, so a wrong system property must not fail the class initialization.
+     *
+     * @param name String, see {@link RandomGenerators#forName(String)}
+     * @return {@link IntFunction} which makes a {@link RandomGenerator} from the seed
+     */
+    static IntFunction<RandomGenerator> randomGenerator(String name) {
+        try {
+            return RandomGenerators.forName(name);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("{}, the default one (well) is used", e.getMessage());
+            return RandomGenerators.forName("well");
+        }
+    }
+
     public Args getArgs() {
         return args;
     }
@@ -101,6 +132,27 @@ public class FastText {
         return model;
     }
 
+    /**
+     * Returns a source of metrics of this model: the estimated memory by component.
+     * It can be registered to expose the model, e.g. {@code Metrics.GLOBAL.register("model", fastText.metrics())}.
+     *
+     * @return {@link MetricsSource}
+     * @see Metrics
+     */
+    public MetricsSource metrics() {
+        return sink -> {
+            String help = "The estimated heap size of the model components";
+            Matrix cache = precomputedWordVectors == null ? null : precomputedWordVectors.get();
+            sink.accept(Metric.gauge("fasttext_memory_bytes", help, dict.memory(), "component", "dictionary"));
+            sink.accept(Metric.gauge("fasttext_memory_bytes", help,
+                    model.isQuant() ? model.qinput().memory() : model.input().memory(), "component", "input"));
+            sink.accept(Metric.gauge("fasttext_memory_bytes", help,
+                    model.isQuant() && args.qout() ? model.qoutput().memory() : model.output().memory(),
+                    "component", "output"));
+            sink.accept(Metric.gauge("fasttext_memory_bytes", help, cache == null ? 0 : cache.memory(), "component", "word_vectors"));
+        };
+    }
+
     public int getVersion() {
         return version;
     }
@@ -127,14 +179,40 @@ public class FastText {
      */
     public Vector getWordVector(String word) {
         Vector res = new Vector(args.dim());
-        List<Integer> ngrams = dict.getSubwords(word);
-        for (Integer i : ngrams) {
-            addInputVector(res, i);
+        getWordVector(res, word);
+        return res;
+    }
+
+    /**
+     * Puts the vector of the word into the given one, which is zeroed first.
+     *
+     * @param vec  {@link Vector} to fill
+     * @param word String, not null
+     * @see #getWordVector(String)
+     */
+    void getWordVector(Vector vec, String word) {
+        vec.clear();
+        int id = dict.getId(word);
+        if (id >= 0) {
+            // the known word, its subwords are read from the table as is:
+            int from = dict.subwordOffset(id);
+            int count = dict.subwordCount(id);
+            for (int k = from; k < from + count; k++) {
+                addInputVector(vec, dict.subwordId(k));
+            }
+            if (count > 0) {
+                vec.mul(1.0f / count);
+            }
+            return;
+        }
+        IntArrayList ngrams = workspaces.get().input;
+        dict.getSubwords(word, ngrams);
+        for (int i = 0; i < ngrams.size(); i++) {
+            addInputVector(vec, ngrams.getInt(i));
         }
         if (ngrams.size() > 0) {
-            res.mul(1.0f / ngrams.size());
+            vec.mul(1.0f / ngrams.size());
         }
-        return res;
     }
 
     /**
@@ -179,18 +257,21 @@ public class FastText {
         // add '\n' to the end of line to synchronize behaviour of c++ and java versions
         line += "\n";
         Vector res = new Vector(args.dim());
+        Workspace workspace = workspaces.get();
         if (ModelName.SUP.equals(args.model())) {
-            List<Integer> words = dict.getLine(line);
+            IntArrayList words = workspace.words;
+            dict.getLine(line, words, workspace.labels, workspace.hashes);
             if (words.isEmpty()) return res;
-            for (int w : words) {
-                addInputVector(res, w);
+            for (int i = 0; i < words.size(); i++) {
+                addInputVector(res, words.getInt(i));
             }
             res.mul(1.0f / words.size());
             return res;
         }
         int count = 0;
+        Vector vec = workspace.hidden;
         for (String word : line.split("\\s+")) {
-            Vector vec = getWordVector(word);
+            getWordVector(vec, word);
             float norm = vec.norm();
             if (norm > 0) {
                 vec.mul(1.0f / norm);
@@ -226,9 +307,10 @@ public class FastText {
     private Matrix computeWordVectors() {
         logs.info("Pre-computing word vectors... ");
         Matrix res = new Matrix(dict.nwords(), args.dim());
+        Vector vec = new Vector(args.dim());
         for (int i = 0; i < dict.nwords(); i++) {
             String word = dict.getWord(i);
-            Vector vec = getWordVector(word);
+            getWordVector(vec, word);
             float norm = vec.norm();
             if (norm > 0) {
                 res.addRow(vec, i, 1.0f / norm);
@@ -241,8 +323,10 @@ public class FastText {
     Matrix getPrecomputedWordVectors() {
         Matrix res;
         if (precomputedWordVectors != null && (res = precomputedWordVectors.get()) != null) {
+            Events.Counter.CACHE_HITS.add(1);
             return res;
         }
+        Events.Counter.CACHE_MISSES.add(1);
         precomputedWordVectors = new SoftReference<>(res = computeWordVectors());
         return res;
     }
@@ -289,10 +373,11 @@ public class FastText {
         }
         TreeMultimap<Float, String> heap = TreeMultimap.create(Comparator.reverseOrder(), Comparator.reverseOrder());
         Multimap<Float, String> res = TreeMultimap.create(Comparator.reverseOrder(), Comparator.reverseOrder());
+        Vector dots = new Vector(wordVectors.getM());
+        dots.mul(wordVectors, queryVec);
         for (int i = 0; i < dict.nwords(); i++) {
             String word = dict.getWord(i);
-            float dp = wordVectors.dotRow(queryVec, i);
-            heap.put(dp / queryNorm, word);
+            heap.put(dots.get(i) / queryNorm, word);
         }
         int i = 0;
         while (i < k && heap.size() > 0) {
@@ -399,11 +484,15 @@ public class FastText {
         Set<String> banSet = new HashSet<>();
         banSet.add(a);
         Vector query = new Vector(args.dim());
-        query.addVector(getWordVector(a), 1.0f);
+        Vector buffer = workspaces.get().hidden;
+        getWordVector(buffer, a);
+        query.addVector(buffer, 1.0f);
         banSet.add(b);
-        query.addVector(getWordVector(b), -1.0f);
+        getWordVector(buffer, b);
+        query.addVector(buffer, -1.0f);
         banSet.add(c);
-        query.addVector(getWordVector(c), 1.0f);
+        getWordVector(buffer, c);
+        query.addVector(buffer, 1.0f);
         return Multimaps.invertFrom(findNN(wordVectors, query, k, banSet), ArrayListMultimap.create());
     }
 
@@ -604,8 +693,23 @@ public class FastText {
      * @param file the full file path-uri to save binary model (*.bin or .*ftz)
      * @throws IOException              in case of i/o error
      * @throws IllegalArgumentException if no possible to write file
+     * @see #saveModel(String, boolean)
      */
     public void saveModel(String file) throws IOException, IllegalArgumentException {
+        saveModel(file, SAVE_DICTIONARY_TABLES);
+    }
+
+    /**
+     * Saves model to file, optionally with the precomputed subwords and discard tables at the end of file.
+     * Such a file is still readable by the original fastText, which just ignores the trailing section,
+     * but loading it here is much faster for large vocabularies, since there is no need to rehash all subwords.
+     *
+     * @param file   the full file path-uri to save binary model (*.bin or .*ftz)
+     * @param tables if true the dictionary tables are appended to the file
+     * @throws IOException              in case of i/o error
+     * @throws IllegalArgumentException if no possible to write file
+     */
+    public void saveModel(String file, boolean tables) throws IOException, IllegalArgumentException {
         Events.SAVE_BIN.start();
         if (!fs.canWrite(file)) {
             throw new IllegalArgumentException("Can't write to " + file);
@@ -616,18 +720,27 @@ public class FastText {
             args.save(out);
             dict.save(out);
             boolean quant_ = model.isQuant();
-            out.writeBoolean(quant_);
+            // the bool flags of the original, here they also mark the half-precision matrices (see Matrix.Storage):
             if (quant_) {
+                out.writeBoolean(true);
                 model.qinput().save(out);
             } else {
+                out.writeByte(model.input().storage().value());
                 model.input().save(out);
             }
-            out.writeBoolean(args.qout());
+            if (args.qout()) {
+                out.writeBoolean(true);
+            } else {
+                out.writeByte(model.output().storage().value());
+            }
             if (quant_ && args.qout()) {
                 model.qoutput().save(out);
             } else {
                 model.output().save(out);
             }
+            if (tables) {
+                dict.saveTables(out);
+            }
         }
         Events.SAVE_BIN.end();
     }
@@ -690,8 +803,8 @@ public class FastText {
         Validate.isTrue(k > 0, "Not positive factor");
         int nexamples = 0, nlabels = 0;
         double precision = 0.0;
-        List<Integer> line = new ArrayList<>();
-        List<Integer> labels = new ArrayList<>();
+        IntArrayList line = new IntArrayList();
+        IntArrayList labels = new IntArrayList();
         Dictionary.SeekableReader reader = dict.createReader(in);
         while (!reader.isEnd() && dict.getLine(reader, line, labels) != 0) {
             if (labels.isEmpty() || line.isEmpty()) {
@@ -840,21 +953,81 @@ public class FastText {
      *  }
      * }}</pre>
      *
+     * The lines are predicted one by one (not in batches as in {@link #predictLines(List, int)}),
+     * so the result of each line is available as soon as it is read, e.g. for an interactive input.
+     *
      * @param in {@link Dictionary.SeekableReader}
      * @param k  int the factor
      * @return {@link Multimap}
      * @throws IOException if i/o error occures
      */
     private Multimap<String, Float> predict(Dictionary.SeekableReader in, int k) throws IOException {
-        List<Integer> words = new ArrayList<>();
-        List<Integer> labels = new ArrayList<>();
-        dict.getLine(in, words, labels);
+        Workspace workspace = workspaces.get();
+        IntArrayList words = workspace.words;
+        dict.getLine(in, words, workspace.labels, workspace.hashes);
         if (words.isEmpty()) {
             return ImmutableListMultimap.of();
         }
-        Vector hidden = new Vector(args.dim());
-        Vector output = new Vector(dict.nlabels());
-        TreeMultimap<Float, Integer> map = model.predict(words, k, hidden, output);
+        Events.PREDICT.start();
+        try {
+            return predict(words, k);
+        } finally {
+            Events.PREDICT.end();
+        }
+    }
+
+    /**
+     * Predicts the given lines.
+     * The lines are predicted in batches (the size is set by the system property {@code predict.batch}, 128 by default),
+     * each batch is multiplied by the output matrix at once, see {@link Model#predictBatch(List, int)},
+     * which is faster than calling {@link #predictLine(String, int)} for each line.
+     *
+     * @param lines List of Strings to analyze
+     * @param k     int, the factor (size of result maps)
+     * @return List of Maps in the order of lines, labels as keys, probability as values, an empty map for a line without words
+     * @throws IllegalStateException    if duplicate labels in the output
+     * @throws IllegalArgumentException if wrong input
+     */
+    public List<Map<String, Float>> predictLines(List<String> lines, int k) throws IllegalStateException, IllegalArgumentException {
+        Objects.requireNonNull(lines, "Null lines specified.");
+        Validate.isTrue(k > 0, "Negative or zero factor");
+        Workspace workspace = workspaces.get();
+        List<Map<String, Float>> res = new ArrayList<>(lines.size());
+        List<IntArrayList> batch = new ArrayList<>();
+        for (String line : lines) {
+            IntArrayList words = new IntArrayList();
+            dict.getLine(Objects.requireNonNull(line, "Null line specified."), words, workspace.labels, workspace.hashes);
+            batch.add(words);
+            if (batch.size() == PREDICT_BATCH_SIZE) {
+                res.addAll(predictBatch(batch, k));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            res.addAll(predictBatch(batch, k));
+        }
+        return res;
+    }
+
+    private List<Map<String, Float>> predictBatch(List<IntArrayList> lines, int k) {
+        Events.PREDICT_BATCH.start();
+        try {
+            List<TreeMultimap<Float, Integer>> predictions = model.predictBatch(lines, k);
+            List<Map<String, Float>> res = new ArrayList<>(predictions.size());
+            for (TreeMultimap<Float, Integer> map : predictions) {
+                res.add(map.isEmpty() ? Collections.emptyMap() : toProbabilityMap(toLabels(map)));
+            }
+            return res;
+        } finally {
+            Events.PREDICT_BATCH.end();
+        }
+    }
+
+    private Multimap<String, Float> predict(List<Integer> words, int k) {
+        return toLabels(model.predict(words, k, workspaces.get()));
+    }
+
+    private Multimap<String, Float> toLabels(TreeMultimap<Float, Integer> map) {
         @SuppressWarnings("ConstantConditions")
         Multimap<String, Float> res = TreeMultimap.create((left, right) -> compareLabels(args.label(), left, right), map.keySet().comparator());
         map.forEach((f, i) -> res.put(dict.getLabel(i), f));
@@ -899,17 +1072,18 @@ public class FastText {
     public Map<String, Float> predictLine(String line, int k) throws IllegalStateException, IllegalArgumentException {
         Validate.notEmpty(line, "Null line specified.");
         Validate.isTrue(k > 0, "Negative or zero factor");
-        List<Integer> words = dict.getLine(line);
+        Workspace workspace = workspaces.get();
+        IntArrayList words = workspace.words;
+        dict.getLine(line, words, workspace.labels, workspace.hashes);
         if (words.isEmpty()) {
             return Collections.emptyMap();
         }
-        Vector hidden = new Vector(args.dim());
-        Vector output = new Vector(dict.nlabels());
-        TreeMultimap<Float, Integer> map = model.predict(words, k, hidden, output);
-        @SuppressWarnings("ConstantConditions")
-        Multimap<String, Float> res = TreeMultimap.create((left, right) -> compareLabels(args.label(), left, right), map.keySet().comparator());
-        map.forEach((f, i) -> res.put(dict.getLabel(i), f));
-        return toProbabilityMap(res);
+        Events.PREDICT.start();
+        try {
+            return toProbabilityMap(predict(words, k));
+        } finally {
+            Events.PREDICT.end();
+        }
     }
 
     /**
@@ -1043,6 +1217,80 @@ public class FastText {
         return factory.createFastText(qargs, qdict, model, FASTTEXT_VERSION);
     }
 
+    /**
+     * Converts the input and output matrices of this model to the specified storage.
+     * The {@link Matrix.Storage#FP16 fp16} and {@link Matrix.Storage#BF16 bf16} storages halve the memory and the size of the model file
+     * (see {@link HalfMatrix}), unlike the quantization they are available for unsupervised models too.
+     * The model file with such matrices can be loaded by {@link Factory#load(String)}, but not by the original (c++) fastText.
+     * This model is not changed.
+     *
+     * @param storage {@link Matrix.Storage}, {@code FLOAT}, {@code FP16} or {@code BF16}
+     * @return new {@link FastText fasttext model} instance
+     * @throws IllegalStateException    in case model is quantized
+     * @throws IllegalArgumentException if the storage is wrong
+     */
+    public FastText convert(Matrix.Storage storage) throws IllegalStateException, IllegalArgumentException {
+        if (model.isQuant()) {
+            throw new IllegalStateException("Can't convert a quantized model.");
+        }
+        Matrix input = model.input().toStorage(storage);
+        Matrix output = model.output().toStorage(storage);
+        Factory factory = toFactory();
+        Model res = factory.createModel(args, dict, input, output, 0);
+        return factory.createFastText(args, dict, res, FASTTEXT_VERSION);
+    }
+
+    /**
+     * Continues the training of this model on new data.
+     * The SGD starts again with the specified learning rate, which linearly decreases to zero
+     * over the specified number of epochs of the new data (the dictionary counts of new data only).
+     * If {@code grow} is {@code true} the words and labels of the new data, which pass the {@code minCount} thresholds
+     * and are unknown to the model, are added to the dictionary:
+     * their input vectors are initialized as for a new model, and their output vectors are zero.
+     * New targets (labels for supervised model, words otherwise) can't be added if the loss is hierarchical softmax
+     * (the tree would change), in that case only new words for supervised models are added.
+     * This model is not changed.
+     *
+     * @param other {@link Args} with training settings (lr, lrUpdateRate, epoch, thread, minCount, minCountLabel)
+     * @param file  String, the uri of new data: a file, a directory or a glob
+     * @param grow  boolean, to add new words and labels
+     * @return new {@link FastText fasttext model} instance
+     * @throws IOException              if an I/O error occurs while training
+     * @throws ExecutionException       if any error occurs while training
+     * @throws IllegalStateException    in case model is quantized
+     * @throws IllegalArgumentException if some args are wrong
+     */
+    public FastText update(Args other, String file, boolean grow) throws IOException, ExecutionException, IllegalStateException, IllegalArgumentException {
+        if (model.isQuant() || dict.isPruned()) {
+            throw new IllegalStateException("Can't update a quantized model.");
+        }
+        if (model.input().storage() != Matrix.Storage.FLOAT || model.output().storage() != Matrix.Storage.FLOAT) {
+            throw new IllegalStateException("Can't update a half-precision model, convert it to " + Matrix.Storage.FLOAT + " first.");
+        }
+        Args uargs = new Args.Builder()
+                .copy(this.args)
+                .setLR(other.lr())
+                .setLRUpdateRate(other.lrUpdateRate())
+                .setEpoch(other.epoch())
+                .setThread(other.thread())
+                .setMinCount(other.minCount())
+                .setMinCountLabel(other.minCountLabel())
+                .build();
+        Factory factory = toFactory();
+        Dictionary delta = factory.readDictionary(uargs, factory.expand(file));
+        boolean sup = ModelName.SUP.equals(args.model());
+        boolean hs = Args.LossName.HS.equals(args.loss());
+        Dictionary udict = dict.extend(delta, grow && (sup || !hs), grow && sup && !hs);
+        int words = udict.nwords() - dict.nwords();
+        int labels = udict.nlabels() - dict.nlabels();
+        logs.infoln("New words:  %d", words);
+        logs.infoln("New labels: %d", labels);
+        Matrix input = model.input().insertRows(dict.nwords(), words, random.apply(1), 1.0f / args.dim());
+        Matrix output = model.output().insertRows(model.output().getM(), sup ? labels : words, null, 0);
+        Model res = factory.newTrainer(uargs, file, delta.ntokens(), udict, input, output).train();
+        return factory.createFastText(uargs, udict, res, FASTTEXT_VERSION);
+    }
+
     /**
      * File statistics produced by {@link #test(InputStream, int)}
      * Immutable inner object.
@@ -1134,6 +1382,9 @@ public class FastText {
 
     /**
      * A factory to produce new {@link FastText} api-interface.
+     * The training data (and the data to build a dictionary from) is read through the {@link IOStreams#gzip() gzip view}
+     * of the file system, so {@code *.gz} corpora are decompressed on the fly;
+     * all other files (models, vectors, the input to predict and test) are read and written as is.
      *
      * @see IOStreams
      * @see PrintLogs
@@ -1146,27 +1397,47 @@ public class FastText {
         public static final int BUFF_SIZE = 8 * 1024;
 
         private final IOStreams fs;
+        // to read the training data, *.gz files are decompressed:
+        private final IOStreams data;
         private final PrintLogs logs;
         private final IntFunction<RandomGenerator> random;
         private final Charset charset;
+        private final Checkpoints checkpoints;
 
         public Factory(IOStreams factory, IntFunction<RandomGenerator> random, PrintLogs logs, Charset charset) {
+            this(factory, random, logs, charset, null);
+        }
+
+        private Factory(IOStreams factory, IntFunction<RandomGenerator> random, PrintLogs logs, Charset charset, Checkpoints checkpoints) {
             this.fs = Objects.requireNonNull(factory, "Null io-factory.");
+            this.data = factory instanceof GzipIOStreams ? factory : factory.gzip();
             this.random = Objects.requireNonNull(random, "Null random-factory.");
             this.logs = Objects.requireNonNull(logs, "Null logs.");
             this.charset = Objects.requireNonNull(charset, "Null charset.");
+            this.checkpoints = checkpoints;
         }
 
         public Factory setFileSystem(IOStreams fs) {
-            return new Factory(fs, this.random, this.logs, this.charset);
+            return new Factory(fs, this.random, this.logs, this.charset, this.checkpoints);
         }
 
         public Factory setLogs(PrintLogs logs) {
-            return new Factory(this.fs, this.random, logs, this.charset);
+            return new Factory(this.fs, this.random, logs, this.charset, this.checkpoints);
         }
 
         public Factory setRandom(IntFunction<RandomGenerator> random) {
-            return new Factory(this.fs, random, this.logs, this.charset);
+            return new Factory(this.fs, random, this.logs, this.charset, this.checkpoints);
+        }
+
+        /**
+         * Returns a factory whose trainers periodically save checkpoints.
+         *
+         * @param checkpoints {@link Checkpoints} or null to disable
+         * @return {@link Factory}
+         * @see #resume(String)
+         */
+        public Factory setCheckpoints(Checkpoints checkpoints) {
+            return new Factory(this.fs, this.random, this.logs, this.charset, checkpoints);
         }
 
         public IOStreams getFileSystem() {
@@ -1185,6 +1456,10 @@ public class FastText {
             return charset;
         }
 
+        public Checkpoints getCheckpoints() {
+            return checkpoints;
+        }
+
         /**
          * Loads model by file-reference (URI) using {@link IOStreams file-system}.
          * Original (c++) code:
@@ -1297,8 +1572,10 @@ public class FastText {
                 // backward compatibility: old supervised models do not use char ngrams.
                 args = new Args.Builder().copy(args).setMaxN(0).build();
             }
-            Dictionary dict = Dictionary.load(args, charset, inputStream);
-            boolean quant = inputStream.readBoolean();
+            Dictionary dict = Dictionary.loadEntries(args, charset, inputStream);
+            // the bool flags of the original, here they also mark the half-precision matrices (see Matrix.Storage):
+            Matrix.Storage inputStorage = readStorage(inputStream);
+            boolean quant = inputStorage == Matrix.Storage.QUANT;
             Matrix input;
             QMatrix qinput;
             if (quant) {
@@ -1306,13 +1583,14 @@ public class FastText {
                 input = Matrix.empty();
             } else {
                 qinput = QMatrix.empty();
-                input = Matrix.load(inputStream);
+                input = Matrix.load(inputStorage, inputStream);
             }
             if (!quant && dict.isPruned()) {
                 throw new IllegalArgumentException("Invalid model file.\nPlease download the updated model from " +
                         "www.fasttext.cc.\nSee issue #332 on Github for more information.\n");
             }
-            args = new Args.Builder().copy(args).setQOut(inputStream.readBoolean()).build();
+            Matrix.Storage outputStorage = readStorage(inputStream);
+            args = new Args.Builder().copy(args).setQOut(outputStorage == Matrix.Storage.QUANT).build();
             Matrix output;
             QMatrix qoutput;
             if (quant && args.qout()) {
@@ -1320,12 +1598,23 @@ public class FastText {
                 output = Matrix.empty();
             } else {
                 qoutput = QMatrix.empty();
-                output = Matrix.load(inputStream);
+                output = Matrix.load(args.qout() ? Matrix.Storage.FLOAT : outputStorage, inputStream);
+            }
+            if (!dict.loadTables(inputStream)) { // legacy file
+                dict.initTables();
             }
             Model model = createModel(args, dict, input, output, 0).setQuantizePointer(qinput, qoutput);
             return createFastText(args, dict, model, version);
         }
 
+        private static Matrix.Storage readStorage(FTInputStream in) throws IOException, IllegalArgumentException {
+            try {
+                return Matrix.Storage.fromValue(in.readByte());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Model file has wrong format!", e);
+            }
+        }
+
         /**
          * Loads matrix from file.
          * Original (c++) code:
@@ -1433,11 +1722,44 @@ public class FastText {
          * @throws IOException if an I/O error occurs
          */
         protected Dictionary readDictionary(Args args, String file) throws IOException {
-            try (InputStream in = fs.openInput(file)) {
+            try (InputStream in = data.openInput(file)) {
                 return Dictionary.read(in, args, charset, logs);
             }
         }
 
+        /**
+         * Reads dictionary from the files, which are counted in parallel if there are several of them.
+         *
+         * @param args  {@link Args} settings to construct new dictionary
+         * @param parts List of file paths, not empty
+         * @return {@link Dictionary}
+         * @throws IOException if an I/O error occurs
+         * @see #expand(String)
+         */
+        protected Dictionary readDictionary(Args args, List<String> parts) throws IOException {
+            if (parts.size() == 1) {
+                return readDictionary(args, parts.get(0));
+            }
+            return Dictionary.read(data, parts, args, charset, logs);
+        }
+
+        /**
+         * Lists the files of the data uri, which can be a file, a directory or a glob.
+         *
+         * @param file String, uri of data, not null
+         * @return List of file paths, not empty
+         * @throws IOException              if an I/O error occurs
+         * @throws IllegalArgumentException if there is nothing to read
+         * @see IOStreams#expand(String)
+         */
+        protected List<String> expand(String file) throws IOException, IllegalArgumentException {
+            List<String> parts = data.expand(Objects.requireNonNull(file, "Null data file specified"));
+            if (parts.isEmpty()) {
+                throw new IllegalArgumentException("Input file cannot be opened: " + file);
+            }
+            return parts;
+        }
+
         protected Matrix createInput(Args args, Dictionary dictionary) {
             Matrix res = new Matrix(dictionary.nwords() + args.bucket(), args.dim());
             res.uniform(random.apply(1), 1.0f / args.dim());
@@ -1451,33 +1773,78 @@ public class FastText {
             return new Matrix(dictionary.nwords(), args.dim());
         }
 
+        /**
+         * Creates a trainer for the specified data uri,
+         * which can be a file, a directory or a glob (see {@link IOStreams#expand(String)}).
+         * In the last two cases the files are read as a single {@link ConcatIOStreams concatenated} file,
+         * with the dictionary counted file by file in parallel.
+         *
+         * @param args    {@link Args}
+         * @param file    String, uri of data
+         * @param vectors String, uri of pretrained vectors, nullable
+         * @return {@link Trainer}
+         * @throws IOException              if an I/O error occurs
+         * @throws IllegalArgumentException if there is nothing to read
+         */
         protected Trainer newTrainer(Args args, String file, String vectors) throws IOException {
-            if (!fs.canRead(Objects.requireNonNull(file, "Null data file specified"))) {
-                throw new IllegalArgumentException("Input file cannot be opened: " + file);
+            List<String> parts = expand(file);
+            if (!parts.equals(Collections.singletonList(file))) {
+                logs.infoln("Read %d files from %s", parts.size(), file);
+                ConcatIOStreams source = new ConcatIOStreams(data, file, parts);
+                Events.READ_DICT.start();
+                Dictionary dic = readDictionary(args, parts);
+                Events.READ_DICT.end();
+                return newTrainer(args, source, file, source.size(file), dic, vectors);
             }
             Events.GET_FILE_SIZE.start();
-            long size = fs.size(file);
+            long size = data.size(file);
             Events.GET_FILE_SIZE.end();
             Events.READ_DICT.start();
             Dictionary dic = readDictionary(args, file);
             Events.READ_DICT.end();
+            return newTrainer(args, data, file, size, dic, vectors);
+        }
+
+        private Trainer newTrainer(Args args, IOStreams source, String file, long size, Dictionary dic, String vectors) throws IOException {
             Events.IN_MATRIX_CREATE.start();
             Matrix in = vectors == null ? createInput(args, dic) : loadInput(args, dic, vectors);
             Events.IN_MATRIX_CREATE.end();
             Events.OUT_MATRIX_CREATE.start();
             Matrix out = createOutput(args, dic);
             Events.OUT_MATRIX_CREATE.end();
-            return new Trainer(args, file, size, dic, in, out);
+            return new Trainer(args, source, file, size, dic, in, out);
         }
 
         protected Trainer newTrainer(Args args, String file, Dictionary dictionary, Matrix input, Matrix output) throws IOException {
-            if (!fs.canRead(Objects.requireNonNull(file, "Null data file specified"))) {
+            if (!data.canRead(Objects.requireNonNull(file, "Null data file specified"))) {
                 throw new IllegalArgumentException("Input file cannot be opened: " + file);
             }
-            long size = fs.size(file);
+            long size = data.size(file);
             return new Trainer(args, file, size, dictionary, input, output);
         }
 
+        /**
+         * Creates a trainer to continue the training of an existing model on new data.
+         *
+         * @param args       {@link Args}
+         * @param file       String, uri of the new data, which can be a file, a directory or a glob
+         * @param tokens     long, the number of tokens in the new data
+         * @param dictionary {@link Dictionary}, which includes the new data
+         * @param input      {@link Matrix}
+         * @param output     {@link Matrix}
+         * @return {@link Trainer}
+         * @throws IOException              if an I/O error occurs
+         * @throws IllegalArgumentException if there is nothing to read
+         */
+        protected Trainer newTrainer(Args args, String file, long tokens, Dictionary dictionary, Matrix input, Matrix output) throws IOException {
+            List<String> parts = expand(file);
+            if (!parts.equals(Collections.singletonList(file))) {
+                ConcatIOStreams source = new ConcatIOStreams(data, file, parts);
+                return new Trainer(args, source, file, source.size(file), tokens, dictionary, input, output);
+            }
+            return new Trainer(args, data, file, data.size(file), tokens, dictionary, input, output);
+        }
+
         /**
          * Trains new model (FastText instance).
          *
@@ -1499,6 +1866,83 @@ public class FastText {
             }
         }
 
+        /**
+         * Trains new model (FastText instance) from a stream, which can not seek, e.g. {@code System.in}.
+         * The training threads need to seek into the data,
+         * so while the dictionary is read the stream is copied (in the same pass) into a temporary local file,
+         * which is then used for training and deleted at the end.
+         *
+         * @param args    {@link Args} the settings
+         * @param data    {@link InputStream} data, not null, is read to the end but not closed
+         * @param vectors String, pre-trained vectors file, can be null
+         * @return {@link FastText}
+         * @throws IOException        if something is wrong with input
+         * @throws ExecutionException if something is wrong while training
+         */
+        public FastText train(Args args, InputStream data, String vectors) throws IOException, ExecutionException {
+            Objects.requireNonNull(data, "Null data stream");
+            Events.TRAIN.start();
+            Path spool = Files.createTempFile("fasttext-", ".input");
+            try {
+                Events.READ_DICT.start();
+                Dictionary dic;
+                try (OutputStream copy = Files.newOutputStream(spool)) {
+                    dic = Dictionary.read(new TeeInputStream(data, copy), args, charset, logs);
+                }
+                Events.READ_DICT.end();
+                Trainer trainer = newTrainer(args, new LocalIOStreams(), spool.toString(), Files.size(spool), dic, vectors);
+                Model model = trainer.train();
+                return createFastText(args, trainer.dictionary, model, FASTTEXT_VERSION);
+            } finally {
+                Files.deleteIfExists(spool);
+                Events.TRAIN.end();
+            }
+        }
+
+        /**
+         * Resumes the training from the last {@link #setCheckpoints(Checkpoints) checkpoint}:
+         * the model is loaded from the checkpoint, each thread continues from its saved file position
+         * (with a new random seed), and the learning rate continues to decrease from the saved progress.
+         * The checkpoints continue to be written.
+         *
+         * @param file String, data uri, must be the same as the one used for the interrupted training
+         * @return {@link FastText}
+         * @throws IOException              if something is wrong with files
+         * @throws ExecutionException       if something is wrong while training
+         * @throws IllegalStateException    if no checkpoints are set
+         * @throws IllegalArgumentException if the checkpoint does not match the data
+         */
+        public FastText resume(String file) throws IOException, ExecutionException, IllegalStateException, IllegalArgumentException {
+            if (checkpoints == null) {
+                throw new IllegalStateException("No checkpoints specified");
+            }
+            Events.TRAIN.start();
+            try {
+                Checkpoints.State state = checkpoints.read(fs);
+                List<String> parts = data.expand(Objects.requireNonNull(file, "Null data file specified"));
+                if (parts.isEmpty()) {
+                    throw new IllegalArgumentException("Input file cannot be opened: " + file);
+                }
+                IOStreams source = parts.equals(Collections.singletonList(file)) ? data : new ConcatIOStreams(data, file, parts);
+                long size = source.size(file);
+                if (size != state.size || Checkpoints.fingerprint(source, file, size) != state.fingerprint) {
+                    throw new IllegalArgumentException(String.format("The checkpoint was made for another data: %s (%d bytes)", state.file, state.size));
+                }
+                FastText model = load(checkpoints.getModelURI());
+                if (model.model.isQuant()) {
+                    throw new IllegalArgumentException("Quantized model in the checkpoint");
+                }
+                // the number of threads and the learning rate are not stored in the model file:
+                Args args = new Args.Builder().copy(model.args).setThread(state.counts.length).setLR(state.lr).build();
+                logs.infoln("Resume from %s: %.1f%%", checkpoints, 100.0 * state.total() / (args.epoch() * state.tokens));
+                Trainer trainer = new Trainer(args, source, file, size, state.tokens, model.dict, model.model.input(), model.model.output());
+                Model res = trainer.resume(state).train();
+                return createFastText(args, model.dict, res, FASTTEXT_VERSION);
+            } finally {
+                Events.TRAIN.end();
+            }
+        }
+
         /**
          * Creates model.
          *
@@ -1532,10 +1976,91 @@ public class FastText {
             return new FastText(args, dictionary, model, version, this.fs, this.logs, this.random);
         }
 
+        /**
+         * Copies all bytes read from the stream into the output.
+         */
+        private static class TeeInputStream extends FilterInputStream {
+            private final OutputStream copy;
+
+            private TeeInputStream(InputStream in, OutputStream copy) {
+                super(in);
+                this.copy = copy;
+            }
+
+            @Override
+            public int read() throws IOException {
+                int res = in.read();
+                if (res != -1) {
+                    copy.write(res);
+                }
+                return res;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int res = in.read(b, off, len);
+                if (res > 0) {
+                    copy.write(b, off, res);
+                }
+                return res;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                byte[] tmp = new byte[(int) Math.min(8192, Math.max(0, n))];
+                long res = 0;
+                int r;
+                while (res < n && (r = read(tmp, 0, (int) Math.min(tmp.length, n - res))) != -1) {
+                    res += r;
+                }
+                return res;
+            }
+
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+
+            @Override
+            public void close() {
+                // the source stream is not owned
+            }
+        }
+
+        /**
+         * Calculates the start position for the training thread.
+         * Originally it is just {@code threadId * size / threads}.
+         * If the file consists of not less blocks than there are threads,
+         * the position is moved to the nearest block boundary to avoid cross-block reads and extra seeks.
+         *
+         * @param threadId int, from {@code 0} to {@code threads - 1}
+         * @param threads  int, the number of threads, positive
+         * @param size     long, the file size
+         * @param blocks   array of block start offsets, ascending
+         * @return long, the position
+         * @see IOStreams#blockOffsets(String)
+         */
+        static long threadOffset(int threadId, int threads, long size, long[] blocks) {
+            long res = threadId * size / threads;
+            if (blocks.length < threads) {
+                return res;
+            }
+            int i = Arrays.binarySearch(blocks, res);
+            if (i >= 0) {
+                return res;
+            }
+            i = -i - 1; // insertion point, blocks[i - 1] < res < blocks[i]
+            if (i == blocks.length || res - blocks[i - 1] <= blocks[i] - res) {
+                return blocks[i - 1];
+            }
+            return blocks[i];
+        }
+
         /**
          * Auxiliary class to perform model training.
          */
         protected class Trainer {
+            private final IOStreams source;
             private final String file;
             private final long size;
 
@@ -1544,11 +2069,47 @@ public class FastText {
 
             private final Matrix input;
             private final Matrix output;
+            private final long tokens;
 
             private Instant start;          // original: clock_t start;
-            private AtomicLong tokenCount;  // original: std::atomic<int64_t> tokenCount;
+            private ProgressCounter tokenCount;  // original: std::atomic<int64_t> tokenCount;
+            private long[] blocks;
+            private AtomicLongArray positions;
+            private AtomicIntegerArray losses;
+            private Checkpoints.State state;
+            private int seed;
 
             protected Trainer(Args args, String file, long size, Dictionary dictionary, Matrix input, Matrix output) {
+                this(args, data, file, size, dictionary, input, output);
+            }
+
+            /**
+             * @param args       {@link Args}
+             * @param source     {@link IOStreams} to read the data file, usually the factory's one
+             * @param file       String, the data file
+             * @param size       long, the size of the file
+             * @param dictionary {@link Dictionary}
+             * @param input      {@link Matrix}
+             * @param output     {@link Matrix}
+             */
+            protected Trainer(Args args, IOStreams source, String file, long size, Dictionary dictionary, Matrix input, Matrix output) {
+                this(args, source, file, size, dictionary.ntokens(), dictionary, input, output);
+            }
+
+            /**
+             * @param args       {@link Args}
+             * @param source     {@link IOStreams} to read the data file, usually the factory's one
+             * @param file       String, the data file
+             * @param size       long, the size of the file
+             * @param tokens     long, the number of tokens in the file, usually it is {@link Dictionary#ntokens()},
+             *                   but it is less if the dictionary was built on more data
+             * @param dictionary {@link Dictionary}
+             * @param input      {@link Matrix}
+             * @param output     {@link Matrix}
+             */
+            protected Trainer(Args args, IOStreams source, String file, long size, long tokens, Dictionary dictionary, Matrix input, Matrix output) {
+                this.tokens = tokens;
+                this.source = Objects.requireNonNull(source, "Null file system");
                 this.args = Objects.requireNonNull(args, "Null args");
                 this.file = Objects.requireNonNull(file, "Null file");
                 this.size = size;
@@ -1558,7 +2119,23 @@ public class FastText {
             }
 
             protected Dictionary.SeekableReader createReader() throws IOException {
-                return dictionary.createReader(fs.openScrollable(file));
+                return dictionary.createReader(source.openScrollable(file));
+            }
+
+            /**
+             * Sets the progress to continue from.
+             *
+             * @param state {@link Checkpoints.State}
+             * @return this instance
+             * @throws IllegalArgumentException if the state does not match the settings
+             */
+            protected Trainer resume(Checkpoints.State state) throws IllegalArgumentException {
+                if (state.counts.length != Math.max(1, args.thread()) || state.positions.length != state.counts.length) {
+                    throw new IllegalArgumentException("Wrong number of threads in the checkpoint: " + state.counts.length);
+                }
+                this.state = state;
+                this.seed = state.seed;
+                return this;
             }
 
             /**
@@ -1637,8 +2214,101 @@ public class FastText {
              * @see Args#thread()
              */
             protected void perform() throws ExecutionException, IOException {
+                int threads = Math.max(1, args.thread());
+                this.blocks = source.blockOffsets(file);
                 this.start = Instant.now();
-                this.tokenCount = new AtomicLong(0);
+                this.tokenCount = new ProgressCounter(threads, ProgressCounter.DEFAULT_CADENCE,
+                        args.epoch() * tokens, args.lrUpdateRate(), state == null ? new long[threads] : state.counts);
+                this.positions = new AtomicLongArray(threads);
+                for (int i = 0; i < threads; i++) {
+                    positions.set(i, state == null ? threadOffset(i, threads, size, blocks) : state.positions[i]);
+                }
+                this.losses = new AtomicIntegerArray(threads);
+                MetricsSource metrics = this::metrics;
+                Metrics.GLOBAL.register(Metrics.TRAINING, metrics);
+                ScheduledExecutorService checkpointer = startCheckpoints();
+                try {
+                    performThreads();
+                } finally {
+                    if (checkpointer != null) {
+                        checkpointer.shutdownNow();
+                    }
+                    Metrics.GLOBAL.unregister(Metrics.TRAINING, metrics);
+                }
+            }
+
+            /**
+             * Collects the current training metrics:
+             * the progress, the learning rate, the ETA, and the rate and the loss of each thread.
+             * The numbers are taken as of the last flushes of threads.
+             *
+             * @param sink {@link Consumer} to accept {@link Metric}s
+             * @see #progressMessage(float, float)
+             */
+            protected void metrics(Consumer<Metric> sink) {
+                long limit = args.epoch() * tokens;
+                long done = tokenCount.sum();
+                double progress = limit == 0 ? 1 : Math.min(1, (double) done / limit);
+                double[] rates = tokenCount.rates();
+                double rate = Arrays.stream(rates).sum();
+                sink.accept(Metric.gauge("fasttext_train_progress", "The training progress, from 0 to 1", progress));
+                sink.accept(Metric.counter("fasttext_train_tokens_total", "The number of processed tokens", done));
+                sink.accept(Metric.gauge("fasttext_train_learning_rate", "The current learning rate", args.lr() * (1 - progress)));
+                sink.accept(Metric.gauge("fasttext_train_eta_seconds", "The estimated time to the end of training",
+                        rate == 0 ? Double.NaN : Math.max(0, limit - done) / rate));
+                for (int i = 0; i < rates.length; i++) {
+                    String thread = String.valueOf(i);
+                    sink.accept(Metric.gauge("fasttext_train_words_per_second", "The processing rate of a thread", rates[i], "thread", thread));
+                    sink.accept(Metric.gauge("fasttext_train_loss", "The average loss of a thread", Float.intBitsToFloat(losses.get(i)), "thread", thread));
+                }
+            }
+
+            /**
+             * Starts a background thread which periodically writes checkpoints.
+             *
+             * @return {@link ScheduledExecutorService} or null if checkpoints are not set
+             */
+            private ScheduledExecutorService startCheckpoints() {
+                if (checkpoints == null) {
+                    return null;
+                }
+                ScheduledExecutorService res = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "FT-Checkpoint");
+                    t.setDaemon(true);
+                    return t;
+                });
+                AtomicInteger sequence = new AtomicInteger();
+                long interval = checkpoints.getInterval();
+                res.scheduleWithFixedDelay(() -> {
+                    try {
+                        checkpoint(sequence.incrementAndGet());
+                    } catch (IOException | RuntimeException e) {
+                        logs.infoln("Can't write checkpoint %s: %s", checkpoints, e);
+                    }
+                }, interval, interval, TimeUnit.SECONDS);
+                return res;
+            }
+
+            /**
+             * Writes a checkpoint: captures the counters and positions of threads, then saves the (live) matrices.
+             *
+             * @param sequence int, the number of checkpoint, positive
+             * @throws IOException if an I/O error occurs
+             */
+            protected void checkpoint(int sequence) throws IOException {
+                int threads = positions.length();
+                long[] counts = new long[threads];
+                long[] offsets = new long[threads];
+                for (int i = 0; i < threads; i++) {
+                    counts[i] = tokenCount.count(i);
+                    offsets[i] = positions.get(i);
+                }
+                Checkpoints.State state = new Checkpoints.State(file, size, Checkpoints.fingerprint(source, file, size), tokens, args.lr(), seed + threads * sequence, counts, offsets);
+                Model model = new Model(input, output, args, random.apply(0));
+                checkpoints.write(fs, new FastText(args, dictionary, model, FASTTEXT_VERSION, fs, logs, random), state);
+            }
+
+            private void performThreads() throws ExecutionException, IOException {
                 if (args.thread() <= 1) {
                     trainThread(0);
                     return;
@@ -1716,21 +2386,24 @@ public class FastText {
             protected void trainThread(int threadId) throws IOException {
                 Model model;
                 try (Dictionary.SeekableReader in = createReader()) {
-                    long skip = threadId * size / args.thread();
+                    long skip = positions.get(threadId);
                     Events.FILE_SEEK.start();
                     in.seek(skip);
                     Events.FILE_SEEK.end();
-                    model = Factory.this.createModel(args, dictionary, input, output, threadId);
-                    long epochTokens = args.epoch() * dictionary.ntokens();
+                    model = Factory.this.createModel(args, dictionary, input, output, seed + threadId);
+                    long epochTokens = args.epoch() * tokens;
                     long localTokenCount = 0;
-                    List<Integer> line = new ArrayList<>();
-                    List<Integer> labels = new ArrayList<>();
-                    while (tokenCount.longValue() < epochTokens) {
-                        float progress = tokenCount.floatValue() / epochTokens;
+                    long lines = 0, examples = 0, pos = skip;
+                    ProgressCounter.Cell counter = tokenCount.cell(threadId);
+                    Workspace workspace = model.workspace();
+                    IntArrayList line = workspace.words;
+                    IntArrayList labels = workspace.labels;
+                    while (counter.total() < epochTokens) {
+                        float progress = (float) counter.total() / epochTokens;
                         float lr = (float) (args.lr() * (1 - progress));
                         if (ModelName.SUP == args.model()) {
                             Events.DIC_GET_LINE.start();
-                            localTokenCount += dictionary.getLine(in, line, labels);
+                            localTokenCount += dictionary.getLine(in, line, labels, workspace.hashes);
                             Events.DIC_GET_LINE.end();
                             Events.TRAIN_CALC.start();
                             supervised(model, lr, line, labels);
@@ -1750,9 +2423,24 @@ public class FastText {
                             skipgram(model, lr, line);
                             Events.TRAIN_CALC.end();
                         }
+                        lines++;
                         if (localTokenCount > args.lrUpdateRate()) {
-                            tokenCount.addAndGet(localTokenCount);
+                            counter.add(localTokenCount);
+                            long current = in.getPos();
+                            // the position is needed only to resume from a checkpoint:
+                            if (checkpoints != null) {
+                                positions.lazySet(threadId, current);
+                            }
+                            // the position goes back at the end of file:
+                            Events.Counter.BYTES.add(current >= pos ? current - pos : current);
+                            pos = current;
+                            losses.lazySet(threadId, Float.floatToIntBits(model.getLoss()));
+                            Events.Counter.TOKENS.add(localTokenCount);
+                            Events.Counter.LINES.add(lines);
+                            Events.Counter.EXAMPLES.add(model.getExamples() - examples);
                             localTokenCount = 0;
+                            lines = 0;
+                            examples = model.getExamples();
                             if (threadId == 0 && logs.isDebugEnabled()) {
                                 logs.debug(progressMessage(progress, model.getLoss()));
                             }
@@ -1762,6 +2450,9 @@ public class FastText {
                 if (logs.isInfoEnabled() && threadId == 0) {
                     logs.infoln(progressMessage(1, model.getLoss()));
                 }
+                if (logs.isTraceEnabled()) {
+                    logs.traceln("Thread #%d: %d words, %.0f words/sec", threadId, tokenCount.count(threadId), tokenCount.rate(threadId));
+                }
             }
 
             /**
@@ -1789,7 +2480,7 @@ public class FastText {
              */
             protected String progressMessage(float progress, float loss) {
                 float t = ChronoUnit.NANOS.between(start, Instant.now()) / 1_000_000_000f;
-                float wst = tokenCount.get() / t;
+                float wst = tokenCount.sum() / t;
                 float lr = (float) (args.lr() * (1 - progress));
                 int eta = (int) (t / progress * (1 - progress) / args.thread());
                 int etaH = eta / 3600;
@@ -1817,9 +2508,9 @@ public class FastText {
             protected void supervised(Model model, float lr, List<Integer> line, List<Integer> labels) {
                 if (labels.isEmpty() || line.isEmpty())
                     return;
-                int i = new UniformIntegerDistribution(model.random(), 0, labels.size() - 1).sample();
+                int i = model.random().nextInt(labels.size());
                 Events.MODEL_UPDATE.start();
-                model.update(line, labels.get(i), lr);
+                model.update(line, IntArrayList.getInt(labels, i), lr);
                 Events.MODEL_UPDATE.end();
             }
 
@@ -1847,19 +2538,19 @@ public class FastText {
              * @param line  List of ints
              */
             protected void cbow(Model model, float lr, List<Integer> line) {
-                UniformIntegerDistribution uniform = new UniformIntegerDistribution(model.random(), 1, args.ws());
+                RandomGenerator random = model.random();
+                IntArrayList bow = model.workspace().input;
                 for (int w = 0; w < line.size(); w++) {
-                    List<Integer> bow = new ArrayList<>();
-                    int boundary = uniform.sample();
+                    bow.clear();
+                    int boundary = 1 + random.nextInt(args.ws());
                     for (int c = -boundary; c <= boundary; c++) {
                         int wc;
                         if (c != 0 && (wc = w + c) >= 0 && wc < line.size()) {
-                            List<Integer> ngrams = dictionary.getSubwords(line.get(wc));
-                            bow.addAll(ngrams);
+                            dictionary.addSubwords(bow, IntArrayList.getInt(line, wc));
                         }
                     }
                     Events.MODEL_UPDATE.start();
-                    model.update(bow, line.get(w), lr);
+                    model.update(bow, IntArrayList.getInt(line, w), lr);
                     Events.MODEL_UPDATE.end();
                 }
             }
@@ -1884,15 +2575,17 @@ public class FastText {
              * @param line  List of ints
              */
             protected void skipgram(Model model, float lr, List<Integer> line) {
-                UniformIntegerDistribution uniform = new UniformIntegerDistribution(model.random(), 1, args.ws());
+                RandomGenerator random = model.random();
+                IntArrayList ngrams = model.workspace().input;
                 for (int w = 0; w < line.size(); w++) {
-                    int boundary = uniform.sample();
-                    List<Integer> ngrams = dictionary.getSubwords(line.get(w));
+                    int boundary = 1 + random.nextInt(args.ws());
+                    ngrams.clear();
+                    dictionary.addSubwords(ngrams, IntArrayList.getInt(line, w));
                     for (int c = -boundary; c <= boundary; c++) {
                         int wc;
                         if (c != 0 && (wc = w + c) >= 0 && wc < line.size()) {
                             Events.MODEL_UPDATE.start();
-                            model.update(ngrams, line.get(wc), lr);
+                            model.update(ngrams, IntArrayList.getInt(line, wc), lr);
                             Events.MODEL_UPDATE.end();
                         }
                     }
@@ -0,0 +1,408 @@
+package cc.fasttext;
+
+import cc.fasttext.io.FTInputStream;
+import cc.fasttext.io.FTOutputStream;
+import org.apache.commons.lang.Validate;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.util.FastMath;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.DoubleBinaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * The matrix which keeps its values in 16 bits: IEEE 754 half-precision ({@link Storage#FP16})
+ * or bfloat16 ({@link Storage#BF16}), it takes half of the memory (and of the model file) of a {@link Matrix}.
+ * The values are decoded on the fly and all sums are accumulated in {@code float}s,
+ * so {@link #dotRow(Vector, int)} and {@link Vector#addRow(Matrix, int, float)} differ from the float matrix
+ * only by the rounding of the stored values (about {@code 1e-3} relative for fp16, {@code 1e-2} for bf16).
+ * FP16 keeps more precision but its range is about {@code [6e-8, 65504]}, BF16 has the range of {@code float}.
+ * The matrix is meant for the inference:
+ * it can be changed with {@link #addRow(Vector, int, float)}, but the small updates of SGD are lost in the rounding,
+ * so a model should be trained with float matrices and converted afterwards, see {@link Matrix#toStorage(Storage)}.
+ */
+public class HalfMatrix extends Matrix {
+    // all fp16 values decoded, 256KB:
+    private static final float[] FP16_TABLE = new float[1 << 16];
+
+    static {
+        for (int i = 0; i < FP16_TABLE.length; i++) {
+            FP16_TABLE[i] = fromHalf((short) i);
+        }
+    }
+
+    private final boolean bf16;
+    private short[][] data;
+    // the decoded row, the matrix may be read by several threads:
+    private final ThreadLocal<float[]> rows = ThreadLocal.withInitial(() -> new float[n]);
+
+    private HalfMatrix(Storage storage, int m, int n) {
+        Validate.isTrue(storage == Storage.FP16 || storage == Storage.BF16, "Wrong storage: " + storage);
+        this.bf16 = storage == Storage.BF16;
+        this.m = m;
+        this.n = n;
+        this.data = new short[m][n];
+    }
+
+    /**
+     * Converts the matrix, each value is rounded to the nearest one of the storage.
+     *
+     * @param matrix  {@link Matrix}, not quantized
+     * @param storage {@link Storage}, {@link Storage#FP16} or {@link Storage#BF16}
+     */
+    public HalfMatrix(Matrix matrix, Storage storage) {
+        this(storage, matrix.getM(), matrix.getN());
+        Validate.isTrue(!matrix.isQuant(), "Quantized matrix");
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                data[i][j] = encode(matrix.at(i, j));
+            }
+        }
+    }
+
+    /**
+     * Rounds the float to the nearest half-precision (IEEE 754 binary16) value, ties to even.
+     * The values beyond the range become infinities or (signed) zeros, NaN stays NaN.
+     *
+     * @param value float
+     * @return short, the bits of the half
+     */
+    static short toHalf(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int abs = bits & 0x7fff_ffff;
+        if (abs >= 0x7f80_0000) { // infinity or NaN (keep it quiet)
+            return (short) (sign | 0x7c00 | (abs > 0x7f80_0000 ? 0x200 : 0));
+        }
+        if (abs >= 0x477f_f000) { // 65520 and above round to infinity
+            return (short) (sign | 0x7c00);
+        }
+        if (abs < 0x3880_0000) { // below 2^-14: subnormal or zero
+            if (abs < 0x3300_0000) { // below 2^-25
+                return (short) sign;
+            }
+            int exponent = abs >>> 23;
+            int mantissa = (abs & 0x7f_ffff) | 0x80_0000;
+            int shift = 126 - exponent;
+            int res = mantissa >>> shift;
+            int rest = mantissa & ((1 << shift) - 1);
+            int half = 1 << (shift - 1);
+            if (rest > half || (rest == half && (res & 1) != 0)) {
+                res++;
+            }
+            return (short) (sign | res);
+        }
+        // rebias the exponent from 127 to 15:
+        int res = (abs - 0x3800_0000) >>> 13;
+        int rest = abs & 0x1fff;
+        if (rest > 0x1000 || (rest == 0x1000 && (res & 1) != 0)) {
+            res++;
+        }
+        return (short) (sign | res);
+    }
+
+    /**
+     * Decodes a half-precision (IEEE 754 binary16) value.
+     *
+     * @param half short, the bits of the half
+     * @return float, exactly the same value
+     */
+    static float fromHalf(short half) {
+        int bits = half & 0xffff;
+        int sign = (bits & 0x8000) << 16;
+        int exponent = (bits >>> 10) & 0x1f;
+        int mantissa = bits & 0x3ff;
+        if (exponent == 0x1f) {
+            return Float.intBitsToFloat(sign | 0x7f80_0000 | (mantissa << 13));
+        }
+        if (exponent == 0) {
+            float res = mantissa * 0x1p-24f;
+            return sign == 0 ? res : -res;
+        }
+        return Float.intBitsToFloat(sign | ((exponent + 112) << 23) | (mantissa << 13));
+    }
+
+    /**
+     * Rounds the float to the nearest bfloat16 value (the upper half of the float bits), ties to even.
+     *
+     * @param value float
+     * @return short, the bits of the bfloat16
+     */
+    static short toBFloat16(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        if ((bits & 0x7fff_ffff) > 0x7f80_0000) { // NaN (keep it quiet)
+            return (short) ((bits >>> 16) | 0x40);
+        }
+        return (short) ((bits + 0x7fff + ((bits >>> 16) & 1)) >>> 16);
+    }
+
+    /**
+     * Decodes a bfloat16 value.
+     *
+     * @param value short, the bits of the bfloat16
+     * @return float, exactly the same value
+     */
+    static float fromBFloat16(short value) {
+        return Float.intBitsToFloat(value << 16);
+    }
+
+    private short encode(float value) {
+        return bf16 ? toBFloat16(value) : toHalf(value);
+    }
+
+    private float decode(short value) {
+        return bf16 ? fromBFloat16(value) : FP16_TABLE[value & 0xffff];
+    }
+
+    private void decodeRow(int i, float[] res) {
+        short[] row = data[i];
+        if (bf16) {
+            for (int j = 0; j < n; j++) {
+                res[j] = fromBFloat16(row[j]);
+            }
+        } else {
+            for (int j = 0; j < n; j++) {
+                res[j] = FP16_TABLE[row[j] & 0xffff];
+            }
+        }
+    }
+
+    /**
+     * Decodes the row into the buffer and multiplies it by the vector with the {@link Kernel},
+     * all dot products of the matrix go through here, so they are the same for a single row and for a batch.
+     *
+     * @param i   int, the row
+     * @param x   array of floats, the vector
+     * @param row array of floats, the buffer for the decoded row
+     * @return float
+     */
+    private float dot(int i, float[] x, float[] row) {
+        decodeRow(i, row);
+        return Kernel.INSTANCE.dot(row, x, n);
+    }
+
+    @Override
+    Storage storage() {
+        return bf16 ? Storage.BF16 : Storage.FP16;
+    }
+
+    @Override
+    public HalfMatrix copy() {
+        HalfMatrix res = new HalfMatrix(storage(), m, n);
+        for (int i = 0; i < m; i++) {
+            System.arraycopy(data[i], 0, res.data[i], 0, n);
+        }
+        return res;
+    }
+
+    @Override
+    public Matrix insertRows(int index, int rows, RandomGenerator rnd, float bound) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    float[] flatData() {
+        float[] res = new float[m * n];
+        float[] row = new float[n];
+        for (int i = 0; i < m; i++) {
+            decodeRow(i, row);
+            System.arraycopy(row, 0, res, i * n, n);
+        }
+        return res;
+    }
+
+    @Override
+    float[][] data() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Vector> getData() {
+        return Collections.unmodifiableList(Arrays.stream(data).map(row -> {
+            float[] res = new float[n];
+            for (int j = 0; j < n; j++) {
+                res[j] = decode(row[j]);
+            }
+            return new Vector(res);
+        }).collect(Collectors.toList()));
+    }
+
+    /**
+     * Estimates the heap size of the matrix data in bytes.
+     *
+     * @return long
+     */
+    @Override
+    public long memory() {
+        return data == null ? 0 : m * (16 + 2L * n);
+    }
+
+    @Override
+    float at(int i, int j) {
+        return decode(data[i][j]);
+    }
+
+    @Override
+    void put(int i, int j, float value) {
+        data[i][j] = encode(value);
+    }
+
+    @Override
+    public void uniform(RandomGenerator rnd, float bound) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public float dotRow(Vector vector, int i) {
+        validateMIndex(i);
+        validateNVector(vector);
+        float d = dot(i, vector.data(), rows.get());
+        if (Float.isNaN(d)) {
+            throw new IllegalStateException("Encountered NaN.");
+        }
+        return d;
+    }
+
+    @Override
+    public void dotRows(Vector vector, Vector res) {
+        validateNVector(vector);
+        validateMVector(res);
+        float[] x = vector.data();
+        float[] y = res.data();
+        float[] row = rows.get();
+        for (int i = 0; i < m; i++) {
+            y[i] = dot(i, x, row);
+        }
+        for (int i = 0; i < m; i++) {
+            if (Float.isNaN(y[i])) {
+                throw new IllegalStateException("Encountered NaN.");
+            }
+        }
+    }
+
+    /**
+     * Each row is decoded once for the whole batch.
+     *
+     * @param vectors array of {@link Vector}s, n-size each
+     * @param res     array of {@link Vector}s, m-size each, to write the results
+     */
+    @Override
+    public void dotRows(Vector[] vectors, Vector[] res) {
+        validateBatch(vectors, res);
+        float[] row = rows.get();
+        for (int i = 0; i < m; i++) {
+            decodeRow(i, row);
+            for (int b = 0; b < vectors.length; b++) {
+                res[b].data()[i] = Kernel.INSTANCE.dot(row, vectors[b].data(), n);
+            }
+        }
+        for (Vector v : res) {
+            for (int i = 0; i < m; i++) {
+                if (Float.isNaN(v.get(i))) {
+                    throw new IllegalStateException("Encountered NaN.");
+                }
+            }
+        }
+    }
+
+    /**
+     * The row is decoded, updated in {@code float}s and rounded back.
+     *
+     * @param vector {@link Vector}
+     * @param index  m-dimensional index
+     * @param factor float multiplier
+     */
+    @Override
+    public void addRow(Vector vector, int index, float factor) {
+        validateMIndex(index);
+        validateNVector(vector);
+        short[] row = data[index];
+        for (int j = 0; j < n; j++) {
+            row[j] = encode(decode(row[j]) + factor * vector.get(j));
+        }
+    }
+
+    @Override
+    void addRowTo(Vector vector, int index, float factor) {
+        short[] row = data[index];
+        float[] res = vector.data();
+        if (bf16) {
+            for (int j = 0; j < n; j++) {
+                res[j] += factor * fromBFloat16(row[j]);
+            }
+        } else {
+            for (int j = 0; j < n; j++) {
+                res[j] += factor * FP16_TABLE[row[j] & 0xffff];
+            }
+        }
+    }
+
+    @Override
+    protected void rowOp(Vector vector, int start, int end, DoubleBinaryOperator op) {
+        if (end == -1) {
+            end = m;
+        }
+        Validate.isTrue(end <= vector.size());
+        Validate.isTrue(end >= start);
+        for (int i = start; i < end; i++) {
+            float val = vector.get(i - start);
+            if (val == 0) {
+                continue;
+            }
+            short[] row = data[i];
+            for (int j = 0; j < n; j++) {
+                row[j] = encode((float) op.applyAsDouble(decode(row[j]), val));
+            }
+        }
+    }
+
+    @Override
+    public Vector l2NormRow() {
+        Vector res = new Vector(m);
+        float[] row = new float[n];
+        for (int i = 0; i < m; i++) {
+            decodeRow(i, row);
+            float norm = Kernel.INSTANCE.dot(row, row, n);
+            if (Float.isNaN(norm)) {
+                throw new IllegalStateException("Encountered NaN.");
+            }
+            res.set(i, (float) FastMath.sqrt(norm));
+        }
+        return res;
+    }
+
+    /**
+     * Writes the sizes as {@link Matrix} does and then the 16-bit values,
+     * the storage itself is written before the matrix (see {@link Storage}).
+     *
+     * @param out {@link FTOutputStream}
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    void save(FTOutputStream out) throws IOException {
+        out.writeLong(m);
+        out.writeLong(n);
+        for (int i = 0; i < m; i++) {
+            out.writeShorts(data[i]);
+        }
+    }
+
+    /**
+     * Reads the matrix written by {@link #save(FTOutputStream)}.
+     *
+     * @param storage {@link Storage}, {@link Storage#FP16} or {@link Storage#BF16}
+     * @param in      {@link FTInputStream}
+     * @return {@link HalfMatrix} new instance
+     * @throws IOException if an I/O error occurs
+     */
+    static HalfMatrix load(Storage storage, FTInputStream in) throws IOException {
+        HalfMatrix res = new HalfMatrix(storage, (int) in.readLong(), (int) in.readLong());
+        for (int i = 0; i < res.m; i++) {
+            in.readShorts(res.data[i]);
+        }
+        return res;
+    }
+}
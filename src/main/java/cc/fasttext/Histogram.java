@@ -0,0 +1,187 @@
+package cc.fasttext;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A fixed-size log-linear histogram of non-negative long values (e.g. nanoseconds), safe for concurrent recording.
+ * Each power of two is split into {@link #SUB_BUCKETS} linear sub-buckets, so the relative error of a quantile
+ * is at most 1/{@value #SUB_BUCKETS}; the values below {@link #SUB_BUCKETS} are exact,
+ * the values above {@code 2^}{@value #MAX_BITS} fall into the last bucket.
+ * The memory is bounded: the buckets are spread over a fixed number of stripes chosen by the thread id
+ * (so the threads of a pool usually write to their own stripe) and merged on read by {@link #snapshot()}.
+ *
+ * @see Events
+ */
+public class Histogram {
+    static final int SUB_BITS = 3;
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+    static final int MAX_BITS = 40;
+    static final int BUCKETS = (MAX_BITS - SUB_BITS + 1) * SUB_BUCKETS;
+    private static final int STRIPES = Math.min(64, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) * 2);
+    // the last two slots of a stripe:
+    private static final int SUM = BUCKETS;
+    private static final int MAX = BUCKETS + 1;
+
+    private volatile AtomicReferenceArray<AtomicLongArray> stripes = new AtomicReferenceArray<>(STRIPES);
+
+    /**
+     * Returns the index of the bucket for the value.
+     *
+     * @param value long
+     * @return int, from 0 to {@link #BUCKETS} exclusive
+     */
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return value < 0 ? 0 : (int) value;
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(value);
+        if (exp >= MAX_BITS) {
+            return BUCKETS - 1;
+        }
+        return (exp - SUB_BITS + 1) * SUB_BUCKETS + (int) ((value >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * Returns the smallest value of the bucket.
+     *
+     * @param bucket int, the index
+     * @return long
+     */
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exp = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exp - SUB_BITS);
+    }
+
+    private AtomicLongArray stripe() {
+        AtomicReferenceArray<AtomicLongArray> stripes = this.stripes;
+        int index = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        AtomicLongArray res = stripes.get(index);
+        if (res == null && !stripes.compareAndSet(index, null, res = new AtomicLongArray(BUCKETS + 2))) {
+            res = stripes.get(index);
+        }
+        return res;
+    }
+
+    /**
+     * Records the value.
+     *
+     * @param value long, not negative
+     */
+    public void record(long value) {
+        record(value, 1);
+    }
+
+    /**
+     * Records the value as if it was recorded {@code weight} times, used for sampling.
+     *
+     * @param value  long, not negative
+     * @param weight long, positive
+     */
+    public void record(long value, long weight) {
+        AtomicLongArray stripe = stripe();
+        stripe.addAndGet(bucket(value), weight);
+        stripe.addAndGet(SUM, value * weight);
+        long max;
+        while ((max = stripe.get(MAX)) < value && !stripe.compareAndSet(MAX, max, value)) {
+            // retry
+        }
+    }
+
+    /**
+     * Forgets all recorded values.
+     * The values recorded concurrently with this call may be lost.
+     */
+    public void reset() {
+        stripes = new AtomicReferenceArray<>(STRIPES);
+    }
+
+    /**
+     * Merges all stripes.
+     * It does not stop recording threads, so the result is consistent only approximately.
+     *
+     * @return {@link Snapshot}
+     */
+    public Snapshot snapshot() {
+        AtomicReferenceArray<AtomicLongArray> stripes = this.stripes;
+        long[] res = new long[BUCKETS + 2];
+        for (int i = 0; i < STRIPES; i++) {
+            AtomicLongArray stripe = stripes.get(i);
+            if (stripe == null) continue;
+            for (int j = 0; j < MAX; j++) {
+                res[j] += stripe.get(j);
+            }
+            res[MAX] = Math.max(res[MAX], stripe.get(MAX));
+        }
+        return new Snapshot(res);
+    }
+
+    /**
+     * An immutable merged state of {@link Histogram}.
+     */
+    public static class Snapshot {
+        private final long[] data;
+        private final long count;
+
+        private Snapshot(long[] data) {
+            this.data = data;
+            long count = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                count += data[i];
+            }
+            this.count = count;
+        }
+
+        /**
+         * @return long, the number of recorded values
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * @return long, the sum of recorded values
+         */
+        public long sum() {
+            return data[SUM];
+        }
+
+        /**
+         * @return long, the maximum recorded value
+         */
+        public long max() {
+            return data[MAX];
+        }
+
+        /**
+         * @return double, the mean of recorded values or {@code NaN} if there are no values
+         */
+        public double mean() {
+            return count == 0 ? Double.NaN : (double) data[SUM] / count;
+        }
+
+        /**
+         * Returns the approximate quantile: the upper bound of the bucket where it falls, but not greater than the maximum.
+         *
+         * @param q double, from 0 to 1
+         * @return long, or 0 if there are no values
+         */
+        public long quantile(double q) {
+            if (q < 0 || q > 1) {
+                throw new IllegalArgumentException("Wrong quantile: " + q);
+            }
+            long rank = (long) Math.ceil(q * count);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += data[i];
+                if (data[i] != 0 && seen >= rank) {
+                    return i == BUCKETS - 1 ? data[MAX] : Math.min(lowerBound(i + 1) - 1, data[MAX]);
+                }
+            }
+            return 0;
+        }
+    }
+}
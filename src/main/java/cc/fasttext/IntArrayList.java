@@ -0,0 +1,122 @@
+package cc.fasttext;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A growable list of primitive ints, an analogue of {@code std::vector<int32_t>}.
+ * It is still a {@code List<Integer>}, so can be passed everywhere a list of ids is expected,
+ * but the primitive methods ({@link #addInt(int)}, {@link #getInt(int)}, {@link #addAll(int[], int, int)})
+ * do not box, and {@link #clear()} keeps the storage, so the same instance can be reused as a buffer for every line.
+ * Not thread-safe.
+ */
+public final class IntArrayList extends AbstractList<Integer> implements RandomAccess {
+    private int[] data;
+    private int size;
+
+    public IntArrayList() {
+        this(16);
+    }
+
+    public IntArrayList(int capacity) {
+        this.data = new int[capacity];
+    }
+
+    /**
+     * Returns the element at the specified position without boxing.
+     *
+     * @param index int
+     * @return int
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public int getInt(int index) throws IndexOutOfBoundsException {
+        if (index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return data[index];
+    }
+
+    /**
+     * Returns the element of any list of ints, without boxing if it is an {@code IntArrayList}.
+     *
+     * @param list  List of ints
+     * @param index int
+     * @return int
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public static int getInt(List<Integer> list, int index) throws IndexOutOfBoundsException {
+        return list instanceof IntArrayList ? ((IntArrayList) list).getInt(index) : list.get(index);
+    }
+
+    /**
+     * Appends the specified element to the end of this list without boxing.
+     *
+     * @param value int
+     */
+    public void addInt(int value) {
+        if (size == data.length) {
+            grow(size + 1);
+        }
+        data[size++] = value;
+    }
+
+    /**
+     * Appends the specified range of the array to the end of this list.
+     *
+     * @param array the source array
+     * @param from  int, inclusive
+     * @param to    int, exclusive
+     */
+    public void addAll(int[] array, int from, int to) {
+        int len = to - from;
+        if (size + len > data.length) {
+            grow(size + len);
+        }
+        System.arraycopy(array, from, data, size, len);
+        size += len;
+    }
+
+    private void grow(int capacity) {
+        data = Arrays.copyOf(data, Math.max(capacity, data.length * 2));
+    }
+
+    /**
+     * Returns a copy of the content.
+     *
+     * @return array of ints
+     */
+    public int[] toIntArray() {
+        return Arrays.copyOf(data, size);
+    }
+
+    @Override
+    public Integer get(int index) {
+        return getInt(index);
+    }
+
+    @Override
+    public Integer set(int index, Integer element) {
+        int res = getInt(index);
+        data[index] = element;
+        return res;
+    }
+
+    @Override
+    public boolean add(Integer value) {
+        addInt(value);
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all of the elements, the allocated storage is kept.
+     */
+    @Override
+    public void clear() {
+        size = 0;
+    }
+}
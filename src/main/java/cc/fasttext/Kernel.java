@@ -0,0 +1,99 @@
+package cc.fasttext;
+
+import org.slf4j.LoggerFactory;
+
+/**
+ * The innermost loops of the linear algebra over {@code float} arrays:
+ * {@link Matrix#dotRow(Vector, int)}, {@link Matrix#addRow(Vector, int, float)}, {@link Vector#addVector(Vector, float)},
+ * {@link Vector#norm()}, the product-quantizer distance, etc.
+ * The loops are collected here so that they can be replaced as a whole by a SIMD implementation.
+ * <p>
+ * The implementation is selected once, at class loading:
+ * the project targets Java 8, where {@link ScalarKernel} (plain loops) is used,
+ * but the jar is multi-release (see the {@code jdk17} maven profile),
+ * and on Java 17+ with the {@code jdk.incubator.vector} module ({@code --add-modules jdk.incubator.vector})
+ * the SIMD implementation {@code cc.fasttext.VectorKernel} from {@code META-INF/versions/17} is used instead.
+ * The scalar implementation can be forced with {@code -Dkernel=scalar}.
+ * The results of the implementations are equal within floating-point tolerance (the order of summation differs).
+ */
+interface Kernel {
+    String VECTOR_KERNEL_CLASS = "cc.fasttext.VectorKernel";
+
+    Kernel INSTANCE = load(System.getProperty("kernel", "auto"));
+
+    /**
+     * Finds the best available kernel.
+     *
+     * @param name String, {@code auto} or {@code scalar}
+     * @return {@link Kernel}
+     * @throws IllegalArgumentException if the name is wrong
+     */
+    static Kernel load(String name) throws IllegalArgumentException {
+        if ("scalar".equals(name)) {
+            return new ScalarKernel();
+        }
+        if (!"auto".equals(name)) {
+            throw new IllegalArgumentException("Wrong kernel: " + name + ", expected auto or scalar");
+        }
+        try {
+            Kernel res = (Kernel) Class.forName(VECTOR_KERNEL_CLASS).getDeclaredConstructor().newInstance();
+            LoggerFactory.getLogger(Kernel.class).debug("Use {}", res);
+            return res;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Java 8, not a multi-release jar, or no jdk.incubator.vector module:
+            return new ScalarKernel();
+        }
+    }
+
+    /**
+     * Calculates the dot product.
+     *
+     * @param x float array
+     * @param y float array
+     * @param n int, the number of elements
+     * @return float, {@code sum(x[i] * y[i])}
+     */
+    float dot(float[] x, float[] y, int n);
+
+    /**
+     * Calculates the dot products of the rows with the vector.
+     *
+     * @param rows the matrix, each row has the same length as the vector
+     * @param x    the vector
+     * @param res  the result, {@code res[i] = dot(rows[i], x)}
+     * @param from int, the first row, inclusive
+     * @param to   int, the last row, exclusive
+     */
+    void dotRows(float[][] rows, float[] x, float[] res, int from, int to);
+
+    /**
+     * Adds the scaled vector: {@code y[i] += a * x[i]}.
+     *
+     * @param a float, the factor
+     * @param x float array, the source
+     * @param y float array, the destination
+     * @param n int, the number of elements
+     */
+    void axpy(float a, float[] x, float[] y, int n);
+
+    /**
+     * Calculates the sum of squares.
+     *
+     * @param x float array
+     * @param n int, the number of elements
+     * @return double, {@code sum(x[i] * x[i])}
+     */
+    double sumSquares(float[] x, int n);
+
+    /**
+     * Calculates the squared L2 distance between two slices.
+     *
+     * @param x       float array
+     * @param xOffset int, the start of the first slice
+     * @param y       float array
+     * @param yOffset int, the start of the second slice
+     * @param n       int, the number of elements
+     * @return float, {@code sum((x[xOffset + i] - y[yOffset + i])^2)}
+     */
+    float distL2(float[] x, int xOffset, float[] y, int yOffset, int n);
+}
@@ -3,10 +3,14 @@ package cc.fasttext;
 import cc.fasttext.io.FormatUtils;
 import cc.fasttext.io.IOStreams;
 import cc.fasttext.io.PrintLogs;
+import cc.fasttext.metrics.Metrics;
+import cc.fasttext.metrics.MetricsHttpServer;
 import org.apache.commons.lang.StringUtils;
 
 import java.io.IOException;
 import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
 import java.util.function.Consumer;
@@ -357,7 +361,7 @@ public class Main {
         String data = args.get("-input");
         if (StringUtils.isEmpty(data)) {
             throw Usage.TRAIN.toException("Empty -input", Usage.ARGS);
-        } else if (!fileSystem().canRead(data)) {
+        } else if (!"-".equals(data) && fileSystem().expand(data).isEmpty()) {
             throw Usage.TRAIN.toException("Wrong -input: can't read " + data, Usage.ARGS);
         }
         String model = args.get("-output");
@@ -378,7 +382,19 @@ public class Main {
             throw Usage.TRAIN.toException("Wrong -pretrainedVectors: can't read " + vectors, Usage.ARGS);
         }
         PrintLogs.Level verbose = parseVerbose(args, Usage.TRAIN);
-        FastText fasttext = factory.setLogs(createStdErrLogger(verbose)).train(parseArgs(type, args), data, vectors);
+        FastText.Factory trainer = factory.setLogs(createStdErrLogger(verbose));
+        Args settings = parseArgs(type, args);
+        Checkpoints checkpoints = parseCheckpoints(args);
+        FastText fasttext;
+        if (checkpoints == null) {
+            fasttext = "-".equals(data) ? trainer.train(settings, System.in, vectors) : trainer.train(settings, data, vectors);
+        } else if ("-".equals(data)) {
+            throw Usage.TRAIN.toException("Option -checkpoint is not supported for stdin", Usage.ARGS);
+        } else if (checkpoints.exists(fileSystem())) {
+            fasttext = trainer.setCheckpoints(checkpoints).resume(data);
+        } else {
+            fasttext = trainer.setCheckpoints(checkpoints).train(settings, data, vectors);
+        }
         fasttext.saveModel(bin);
         fasttext.saveVectors(vec);
         if (out == null) return;
@@ -445,8 +461,100 @@ public class Main {
         fasttext.saveVectors(vec);
     }
 
-    public static void main(String... args) {
+    /**
+     * Continues the training of an existing model on new data, see {@link FastText#update(Args, String, boolean)}.
+     * The training settings not specified in the input are taken from the model.
+     *
+     * @param input input parameters, array of strings, not null
+     *              (example: "update -input day.txt -output model -grow -lr 0.05 -epoch 2")
+     * @throws IOException              if an I/O error occurs during load or training
+     * @throws ExecutionException       if any error occurs while training in several threads
+     * @throws IllegalArgumentException if input is wrong
+     */
+    public static void update(String[] input) throws IOException, ExecutionException, IllegalArgumentException {
+        if (input.length == 0) {
+            throw Usage.UPDATE.toException("Empty args specified.", Usage.ARGS);
+        }
+        Map<String, String> argsMap = toMap(input);
+        String data = argsMap.get("-input");
+        if (StringUtils.isEmpty(data)) {
+            throw Usage.UPDATE.toException("Empty -input", Usage.ARGS);
+        } else if (fileSystem().expand(data).isEmpty()) {
+            throw Usage.UPDATE.toException("Wrong -input: can't read " + data, Usage.ARGS);
+        }
+        String model = argsMap.get("-output");
+        if (StringUtils.isEmpty(model)) {
+            throw Usage.UPDATE.toException("Empty -output", Usage.ARGS);
+        }
+        String bin = model + ".bin";
+        String vec = model + ".vec";
+        String source = argsMap.containsKey("-model") ? argsMap.get("-model") : bin;
+        if (StringUtils.isEmpty(source) || !fileSystem().canRead(source)) {
+            throw Usage.UPDATE.toException("Wrong -model: can't read file " + source, Usage.ARGS);
+        }
+        if (!fileSystem().canWrite(bin) || !fileSystem().canWrite(vec)) {
+            throw Usage.UPDATE.toException("Wrong -output: can't write model " + model, Usage.ARGS);
+        }
+        PrintLogs.Level verbose = parseVerbose(argsMap, Usage.UPDATE);
+        FastText fasttext = factory.setLogs(createStdErrLogger(verbose)).load(source);
+        Args.Builder builder = new Args.Builder().copy(fasttext.getArgs());
+        putIntegerArg(argsMap, "-lrUpdateRate", builder::setLRUpdateRate);
+        putIntegerArg(argsMap, "-epoch", builder::setEpoch);
+        putIntegerArg(argsMap, "-minCount", builder::setMinCount);
+        putIntegerArg(argsMap, "-minCountLabel", builder::setMinCountLabel);
+        putIntegerArg(argsMap, "-thread", builder::setThread);
+        putDoubleArg(argsMap, "-lr", builder::setLR);
+        boolean[] grow = new boolean[1];
+        putBooleanArg(argsMap, "-grow", b -> grow[0] = b);
+        fasttext = fasttext.update(builder.build(), data, grow[0]);
+        fasttext.saveModel(bin);
+        fasttext.saveVectors(vec);
+    }
+
+    /**
+     * Converts the matrices of a model to another storage, see {@link FastText#convert(Matrix.Storage)}.
+     *
+     * @param input input parameters, array of strings, not null
+     *              (example: "convert model.bin model.fp16.bin fp16")
+     * @throws IOException              if an I/O error occurs during load or save
+     * @throws IllegalArgumentException if input is wrong
+     */
+    public static void convert(String[] input) throws IOException, IllegalArgumentException {
+        if (input.length != 4) {
+            throw Usage.CONVERT.toException();
+        }
+        Matrix.Storage storage;
         try {
+            storage = Matrix.Storage.fromName(input[3]);
+        } catch (IllegalArgumentException e) {
+            throw Usage.CONVERT.toException(e.getMessage());
+        }
+        if (storage == Matrix.Storage.QUANT) {
+            throw Usage.CONVERT.toException("Use the quantize command.");
+        }
+        if (!fileSystem().canRead(input[1])) {
+            throw Usage.CONVERT.toException("Wrong <model>: can't read file " + input[1]);
+        }
+        if (!fileSystem().canWrite(input[2])) {
+            throw Usage.CONVERT.toException("Wrong <output>: can't write file " + input[2]);
+        }
+        loadModel(input[1]).convert(storage).saveModel(input[2]);
+    }
+
+    /**
+     * Runs the command.
+     * If the system property {@code metrics.port} is set, the {@link Metrics#GLOBAL metrics} are served
+     * at {@code http://localhost:<port>/metrics} in the Prometheus text format while the command is running.
+     *
+     * @param args array of command line arguments
+     */
+    public static void main(String... args) {
+        String port = System.getProperty("metrics.port");
+        try (MetricsHttpServer server = port == null ? null :
+                new MetricsHttpServer(Metrics.GLOBAL, new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(port)))) {
+            if (server != null) {
+                System.err.println("Metrics: " + server);
+            }
             run(args);
         } catch (Usage.WrongInputException e) {
             System.out.print(e.getMessage());
@@ -465,6 +573,10 @@ public class Main {
             train(args);
         } else if ("quantize".equalsIgnoreCase(command)) {
             quantize(args);
+        } else if ("update".equalsIgnoreCase(command)) {
+            update(args);
+        } else if ("convert".equalsIgnoreCase(command)) {
+            convert(args);
         } else if ("test".equalsIgnoreCase(command)) {
             test(args);
         } else if ("print-word-vectors".equalsIgnoreCase(command)) {
@@ -657,6 +769,26 @@ public class Main {
         return builder.build();
     }
 
+    /**
+     * Parses the checkpoint options.
+     *
+     * @param args Map of input parameters, see {@link #toMap(String...)}
+     * @return {@link Checkpoints} or null if there is no {@code -checkpoint} option
+     * @throws IllegalArgumentException if input is wrong
+     */
+    private static Checkpoints parseCheckpoints(Map<String, String> args) throws IllegalArgumentException {
+        String uri = args.get("-checkpoint");
+        if (uri == null) {
+            return null;
+        }
+        long[] interval = {Checkpoints.DEFAULT_INTERVAL};
+        putIntegerArg(args, "-checkpointInterval", i -> interval[0] = i);
+        if (StringUtils.isEmpty(uri) || interval[0] <= 0 || !fileSystem().canWrite(uri + ".bin")) {
+            throw Usage.TRAIN.toException("Wrong -checkpoint or -checkpointInterval: " + uri, Usage.ARGS);
+        }
+        return new Checkpoints(uri, interval[0]);
+    }
+
     /**
      * Parses an array to Map
      * Example: "cbow -thread 4 -dim 128 -ws 5 -epoch 10 -minCount 5 -input %s -output %s" =&gt;
@@ -721,6 +853,8 @@ public class Main {
                 + "The commands supported by fasttext are:\n\n"
                 + "  supervised              train a supervised classifier\n"
                 + "  quantize                quantize a model to reduce the memory usage\n"
+                + "  update                  continue training a model on new data\n"
+                + "  convert                 convert a model to half-precision storage to reduce the memory usage\n"
                 + "  test                    evaluate a supervised classifier\n"
                 + "  predict                 predict most likely labels\n"
                 + "  predict-prob            predict most likely labels with probabilities\n"
@@ -732,6 +866,14 @@ public class Main {
                 + "  analogies               query for analogies\n"),
         TRAIN("usage: {fasttext} {supervised|skipgram|cbow} <args>"),
         QUANTIZE("usage: {fasttext} quantize <args>"),
+        UPDATE("usage: {fasttext} update <args>\n\n"
+                + "  -model              model to update (<output>.bin by default) [file uri]\n"
+                + "  -grow               whether new words and labels are added [boolean]\n"
+                + "  -lr, -lrUpdateRate, -epoch, -thread, -minCount, -minCountLabel are taken from the model if not specified\n"),
+        CONVERT("usage: {fasttext} convert <model> <output> <storage>\n\n"
+                + "  <model>      model filename\n"
+                + "  <output>     converted model filename\n"
+                + "  <storage>    the storage of the matrices {fp16|bf16|float}\n"),
         TEST("usage: {fasttext} test <model> <test-data> [<k>]\n\n"
                 + "  <model>      model filename\n"
                 + "  <test-data>  test data filename (if -, read from stdin)\n"
@@ -755,7 +897,7 @@ public class Main {
                 + "  <k>          (optional; 10 by default) predict top k labels\n"),
 
         ARGS_BASIC_HELP("\nThe following arguments are mandatory:\n"
-                + "  -input              training file uri\n"
+                + "  -input              training file, directory or glob uri (if -, read from stdin)\n"
                 + "  -output             output file name\n"
                 + "\nThe following arguments are optional:\n"
                 + "  -verbose            verbosity level [integer]\n"),
@@ -778,7 +920,9 @@ public class Main {
                 + "  -loss               loss function {ns|hs|softmax} [string]\n"
                 + "  -thread             number of threads [integer]\n"
                 + "  -pretrainedVectors  pretrained word vectors for supervised learning [file uri]\n"
-                + "  -saveOutput         whether output params should be saved [boolean]\n"),
+                + "  -saveOutput         whether output params should be saved [boolean]\n"
+                + "  -checkpoint         checkpoint files prefix, the training resumes from it if exists [file uri]\n"
+                + "  -checkpointInterval seconds between checkpoints [integer]\n"),
         ARGS_QUANTIZATION_HELP("\nThe following arguments for quantization are optional:\n"
                 + "  -cutoff             number of words and ngrams to retain [integer]\n"
                 + "  -retrain            whether embeddings are finetuned if a cutoff is applied [boolean]\n"
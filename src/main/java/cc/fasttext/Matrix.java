@@ -26,6 +26,13 @@ public class Matrix {
 
     private static final int PARALLEL_SIZE_THRESHOLD = Integer.parseInt(System.getProperty("parallel.matrix.threshold",
             String.valueOf(FastText.PARALLEL_THRESHOLD_FACTOR * 100)));
+    // the min number of matrix cells (m * n) to split a matrix-vector product over the fork-join pool:
+    private static final long PARALLEL_DOT_ROWS_THRESHOLD = Long.parseLong(System.getProperty("parallel.matrix.gemv.threshold",
+            String.valueOf(FastText.PARALLEL_THRESHOLD_FACTOR * 10_000L)));
+    // the number of rows of a single fork-join task:
+    private static final int DOT_ROWS_TASK_SIZE = 256;
+    // the number of rows of a tile multiplied by all vectors of a batch before moving to the next one:
+    private static final int GEMM_TILE_SIZE = 64;
 
     private float[][] data;
 
@@ -51,6 +58,60 @@ public class Matrix {
         return res;
     }
 
+    /**
+     * Converts this matrix to the specified storage, e.g. to a {@link HalfMatrix} to halve the memory.
+     *
+     * @param storage {@link Storage}, not {@link Storage#QUANT} (see {@link QMatrix} instead)
+     * @return {@link Matrix}, this matrix if it already has the storage (or is empty), otherwise a new one
+     * @throws IllegalArgumentException if the storage is wrong
+     */
+    public Matrix toStorage(Storage storage) throws IllegalArgumentException {
+        Validate.isTrue(Objects.requireNonNull(storage, "Null storage") != Storage.QUANT, "Can't quantize a matrix this way");
+        if (storage == storage() || isEmpty()) {
+            return this;
+        }
+        if (storage != Storage.FLOAT) {
+            return new HalfMatrix(this, storage);
+        }
+        Matrix res = new Matrix(m, n);
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                res.data[i][j] = at(i, j);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Creates a copy of this matrix with new rows inserted at the specified position.
+     * The new rows are initialized as in {@link #uniform(RandomGenerator, float)} or are zero if the bound is zero.
+     * It is used to grow the model while continuing the training, see {@link FastText#update(Args, String, boolean)}.
+     *
+     * @param index int, the position of the first new row, from {@code 0} to {@link #getM()}
+     * @param rows  int, the number of new rows, not negative
+     * @param rnd   {@link RandomGenerator}
+     * @param bound float, the bound of uniform distribution
+     * @return {@link Matrix}
+     */
+    public Matrix insertRows(int index, int rows, RandomGenerator rnd, float bound) {
+        Validate.isTrue(index >= 0 && index <= m, "Wrong index: " + index);
+        Validate.isTrue(rows >= 0, "Wrong number of rows: " + rows);
+        Matrix res = new Matrix(m + rows, n);
+        for (int i = 0; i < m; i++) {
+            System.arraycopy(data[i], 0, res.data[i < index ? i : i + rows], 0, n);
+        }
+        if (bound == 0) {
+            return res;
+        }
+        UniformRealDistribution uniform = new UniformRealDistribution(rnd, -bound, bound);
+        for (int i = index; i < index + rows; i++) {
+            for (int j = 0; j < n; j++) {
+                res.data[i][j] = (float) uniform.sample();
+            }
+        }
+        return res;
+    }
+
     float[] flatData() {
         float[] res = new float[m * n];
         for (int i = 0; i < m; i++) {
@@ -88,6 +149,16 @@ public class Matrix {
         return (long) n * m;
     }
 
+    /**
+     * Estimates the heap size of the matrix data in bytes.
+     *
+     * @return long
+     */
+    public long memory() {
+        // each row is a separate array with a 16-byte header:
+        return data == null ? 0 : m * (16 + 4L * n);
+    }
+
     public float get(int i, int j) {
         validateMIndex(i);
         validateNIndex(j);
@@ -110,23 +181,42 @@ public class Matrix {
 
     public void compute(int i, int j, DoubleUnaryOperator operator) {
         Objects.requireNonNull(operator, "Null operator");
-        data[i][j] = (float) operator.applyAsDouble(data[i][j]);
+        put(i, j, (float) operator.applyAsDouble(at(i, j)));
     }
 
+    // the following checks are on the hot path, so the messages are built only on failure:
+
     void validateMIndex(int i) {
-        Validate.isTrue(i >= 0 && i < m, "First index (" + i + ") is out of range [0, " + m + ")");
+        if (i < 0 || i >= m) {
+            throw new IllegalArgumentException("First index (" + i + ") is out of range [0, " + m + ")");
+        }
     }
 
     void validateNIndex(int j) {
-        Validate.isTrue(j >= 0 && j < n, "Second index (" + j + ") is out of range [0, " + n + ")");
+        if (j < 0 || j >= n) {
+            throw new IllegalArgumentException("Second index (" + j + ") is out of range [0, " + n + ")");
+        }
     }
 
     void validateNVector(Vector vector) {
-        Validate.isTrue(Objects.requireNonNull(vector, "Null vector").size() == n, "Wrong vector size: " + vector.size() + " (!= " + n + ")");
+        if (Objects.requireNonNull(vector, "Null vector").size() != n) {
+            throw new IllegalArgumentException("Wrong vector size: " + vector.size() + " (!= " + n + ")");
+        }
     }
 
     void validateMVector(Vector vector) {
-        Validate.isTrue(Objects.requireNonNull(vector, "Null vector").size() == m, "Wrong vector size: " + vector.size() + " (!= " + m + ")");
+        if (Objects.requireNonNull(vector, "Null vector").size() != m) {
+            throw new IllegalArgumentException("Wrong vector size: " + vector.size() + " (!= " + m + ")");
+        }
+    }
+
+    /**
+     * Returns the storage of the matrix data, it is written to the model file before the matrix.
+     *
+     * @return {@link Storage}
+     */
+    Storage storage() {
+        return Storage.FLOAT;
     }
 
     boolean isQuant() {
@@ -186,10 +276,7 @@ public class Matrix {
         if (FastText.USE_PARALLEL_COMPUTATION && n > PARALLEL_SIZE_THRESHOLD) {
             d = (float) IntStream.range(0, n).parallel().mapToDouble(j -> data[i][j] * vector.get(j)).sum();
         } else {
-            d = 0;
-            for (int j = 0; j < n; j++) {
-                d += data[i][j] * vector.get(j);
-            }
+            d = Kernel.INSTANCE.dot(data[i], vector.data(), n);
         }
         if (Float.isNaN(d)) {
             throw new IllegalStateException("Encountered NaN.");
@@ -197,6 +284,89 @@ public class Matrix {
         return d;
     }
 
+    /**
+     * Computes the product of this matrix and the vector: {@code res[i] = dotRow(vector, i)} for each row.
+     * In the original (c++) fastText it is {@code Vector::mul(const Matrix& A, const Vector& vec)}, which calls {@code dotRow} for each row,
+     * here the rows are processed by {@link Kernel#dotRows(float[][], float[], float[], int, int)} (in blocks of four rows by both kernels),
+     * and the blocks are split over the fork-join pool if the matrix is large (e.g. the output layer of a softmax model with many labels).
+     * Within a row the products are summed up in the same order as in {@link #dotRow(Vector, int)}, so the results are the same.
+     *
+     * @param vector {@link Vector}, n-size
+     * @param res    {@link Vector}, m-size, to write the result
+     * @throws IllegalStateException if NaN is encountered
+     */
+    public void dotRows(Vector vector, Vector res) throws IllegalStateException {
+        validateNVector(vector);
+        validateMVector(res);
+        float[] x = vector.data();
+        float[] y = res.data();
+        if (FastText.USE_PARALLEL_COMPUTATION && size() >= PARALLEL_DOT_ROWS_THRESHOLD && m > DOT_ROWS_TASK_SIZE) {
+            int tasks = (m + DOT_ROWS_TASK_SIZE - 1) / DOT_ROWS_TASK_SIZE;
+            IntStream.range(0, tasks).parallel()
+                    .forEach(t -> Kernel.INSTANCE.dotRows(data, x, y, t * DOT_ROWS_TASK_SIZE, Math.min(m, (t + 1) * DOT_ROWS_TASK_SIZE)));
+        } else {
+            Kernel.INSTANCE.dotRows(data, x, y, 0, m);
+        }
+        for (int i = 0; i < m; i++) {
+            if (Float.isNaN(y[i])) {
+                throw new IllegalStateException("Encountered NaN.");
+            }
+        }
+    }
+
+    /**
+     * Computes the products of this matrix and a batch of vectors: {@code res[b] = this * vectors[b]},
+     * i.e. multiplies the {@code batch x n} matrix of the vectors by the transposed {@code m x n} matrix.
+     * The rows are processed in tiles (64 rows each),
+     * each tile is multiplied by all vectors of the batch while it is in the cache, so the matrix is read from memory once per batch,
+     * not once per vector as with {@link #dotRows(Vector, Vector)} for each of them.
+     * The tiles are split over the fork-join pool if the work is large.
+     * The products of each row are summed up as in {@link #dotRows(Vector, Vector)}, so the results are the same.
+     *
+     * @param vectors array of {@link Vector}s, n-size each
+     * @param res     array of {@link Vector}s, m-size each, to write the results, of the same length as the vectors
+     * @throws IllegalStateException if NaN is encountered
+     */
+    public void dotRows(Vector[] vectors, Vector[] res) throws IllegalStateException {
+        validateBatch(vectors, res);
+        int batch = vectors.length;
+        float[][] x = new float[batch][];
+        float[][] y = new float[batch][];
+        for (int b = 0; b < batch; b++) {
+            x[b] = vectors[b].data();
+            y[b] = res[b].data();
+        }
+        int tiles = (m + GEMM_TILE_SIZE - 1) / GEMM_TILE_SIZE;
+        IntStream range = IntStream.range(0, tiles);
+        if (FastText.USE_PARALLEL_COMPUTATION && size() * batch >= PARALLEL_DOT_ROWS_THRESHOLD && tiles > 1) {
+            range = range.parallel();
+        }
+        range.forEach(t -> {
+            int from = t * GEMM_TILE_SIZE;
+            int to = Math.min(m, from + GEMM_TILE_SIZE);
+            for (int b = 0; b < batch; b++) {
+                Kernel.INSTANCE.dotRows(data, x[b], y[b], from, to);
+            }
+        });
+        for (float[] v : y) {
+            for (int i = 0; i < m; i++) {
+                if (Float.isNaN(v[i])) {
+                    throw new IllegalStateException("Encountered NaN.");
+                }
+            }
+        }
+    }
+
+    void validateBatch(Vector[] vectors, Vector[] res) {
+        if (vectors.length != res.length) {
+            throw new IllegalArgumentException("Wrong batch size: " + vectors.length + " vectors, " + res.length + " results");
+        }
+        for (int b = 0; b < vectors.length; b++) {
+            validateNVector(vectors[b]);
+            validateMVector(res[b]);
+        }
+    }
+
     /**
      * Original (c++) code:
      * <pre>{@code void Matrix::addRow(const Vector& vec, int64_t i, real a) {
@@ -219,9 +389,19 @@ public class Matrix {
             IntStream.range(0, n).parallel().forEach(j -> data[index][j] += factor * vector.get(j));
             return;
         }
-        for (int j = 0; j < n; j++) {
-            data[index][j] += factor * vector.get(j);
-        }
+        Kernel.INSTANCE.axpy(factor, vector.data(), data[index], n);
+    }
+
+    /**
+     * Adds the scaled row to the vector: {@code vector += factor * row(index)}.
+     * It is called by {@link Vector#addRow(Matrix, int, float)}, which validates the arguments.
+     *
+     * @param vector {@link Vector}, n-size, to add to
+     * @param index  m-dimensional index
+     * @param factor float multiplier
+     */
+    void addRowTo(Vector vector, int index, float factor) {
+        Kernel.INSTANCE.axpy(factor, data[index], vector.data(), n);
     }
 
     /**
@@ -333,11 +513,7 @@ public class Matrix {
         if (FastText.USE_PARALLEL_COMPUTATION && n > PARALLEL_SIZE_THRESHOLD) {
             norm = (float) IntStream.range(0, n).parallel().mapToDouble(j -> data[i][j] * data[i][j]).sum();
         } else {
-            norm = 0;
-            for (int j = 0; j < n; j++) {
-                float v = at(i, j);
-                norm += v * v;
-            }
+            norm = Kernel.INSTANCE.dot(data[i], data[i], n);
         }
         if (Float.isNaN(norm)) {
             throw new IllegalStateException("Encountered NaN.");
@@ -382,9 +558,7 @@ public class Matrix {
         out.writeLong(m);
         out.writeLong(n);
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                out.writeFloat(data[i][j]);
-            }
+            out.writeFloats(data[i]);
         }
     }
 
@@ -405,13 +579,31 @@ public class Matrix {
     static Matrix load(FTInputStream in) throws IOException {
         Matrix res = new Matrix((int) in.readLong(), (int) in.readLong());
         for (int i = 0; i < res.m; i++) {
-            for (int j = 0; j < res.n; j++) {
-                res.data[i][j] = in.readFloat();
-            }
+            in.readFloats(res.data[i]);
         }
         return res;
     }
 
+    /**
+     * Loads a matrix of the specified storage, which is read from the model file before the matrix.
+     *
+     * @param storage {@link Storage}, not {@link Storage#QUANT}
+     * @param in      {@link FTInputStream}
+     * @return {@link Matrix} new instance
+     * @throws IOException if an I/O error occurs
+     */
+    static Matrix load(Storage storage, FTInputStream in) throws IOException {
+        switch (storage) {
+            case FLOAT:
+                return load(in);
+            case FP16:
+            case BF16:
+                return HalfMatrix.load(storage, in);
+            default:
+                throw new IllegalArgumentException("Wrong matrix storage: " + storage);
+        }
+    }
+
     /**
      * Creates an empty matrix.
      *
@@ -425,4 +617,34 @@ public class Matrix {
     public String toString() {
         return String.format("%s[m=%d, n=%d]", getClass().getSimpleName(), m, n);
     }
+
+    /**
+     * The storage of a matrix in the model file.
+     * It is the byte written in place of the c++ {@code bool} flags {@code quant_input} and {@code qout},
+     * the float and quantized matrices keep the original values ({@code false} and {@code true}),
+     * so such files are the same as in the original (c++) fastText,
+     * while the files with half-precision matrices ({@link HalfMatrix}) can be read only here.
+     */
+    public enum Storage {
+        FLOAT(0), QUANT(1), FP16(2), BF16(3);
+        private final int value;
+
+        Storage(int value) {
+            this.value = value;
+        }
+
+        int value() {
+            return value;
+        }
+
+        public static Storage fromValue(int value) throws IllegalArgumentException {
+            return Arrays.stream(values()).filter(v -> v.value == value)
+                    .findFirst().orElseThrow(() -> new IllegalArgumentException("Unknown storage enum value: " + value));
+        }
+
+        public static Storage fromName(String value) throws IllegalArgumentException {
+            return Arrays.stream(values()).filter(v -> v.name().equalsIgnoreCase(value))
+                    .findFirst().orElseThrow(() -> new IllegalArgumentException("Unknown storage name: " + value));
+        }
+    }
 }
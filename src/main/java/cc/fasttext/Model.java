@@ -40,9 +40,10 @@ public class Model {
     private Matrix wi_; // input
     private Matrix wo_; // output
 
-    private Vector hidden_;
-    private Vector output_;
-    private Vector grad_;
+    private final Workspace workspace;
+    private final Vector hidden_;
+    private final Vector output_;
+    private final Vector grad_;
     private int osz_; // output vocabSize
     private float loss_;
     private long nexamples_;
@@ -73,9 +74,10 @@ public class Model {
         this.dim = dim;
         this.neg = neg;
         this.qout = qout;
-        hidden_ = new Vector(dim);
-        output_ = new Vector(wo.getM());
-        grad_ = new Vector(dim);
+        workspace = new Workspace(dim, wo.getM());
+        hidden_ = workspace.hidden;
+        output_ = workspace.output;
+        grad_ = workspace.grad;
         rng = random;
         wi_ = wi;
         wo_ = wo;
@@ -115,6 +117,15 @@ public class Model {
         return rng;
     }
 
+    /**
+     * Returns the scratch buffers of this model, which are also available to the thread that trains it.
+     *
+     * @return {@link Workspace}
+     */
+    Workspace workspace() {
+        return workspace;
+    }
+
     public Matrix input() {
         return wi_;
     }
@@ -256,6 +267,15 @@ public class Model {
         } else {
             output.mul(wo_, hidden);
         }
+        computeSoftmax(output);
+    }
+
+    /**
+     * Turns the scores into probabilities in place, the second part of {@link #computeOutputSoftmax(Vector, Vector)}.
+     *
+     * @param output {@link Vector}, the scores
+     */
+    private void computeSoftmax(Vector output) {
         if (FastText.USE_PARALLEL_COMPUTATION && osz_ > PARALLEL_SIZE_THRESHOLD) {
             double max = IntStream.range(0, osz_).parallel().mapToDouble(output::get).max().orElseThrow(() -> new IllegalStateException("Can't calc max"));
             AtomicDouble z = new AtomicDouble();
@@ -306,13 +326,12 @@ public class Model {
     private float softmax(int target, float lr) {
         grad_.clear();
         computeOutputSoftmax();
-        IntStream ints = IntStream.range(0, osz_);
-        ints.forEach(i -> {
+        for (int i = 0; i < osz_; i++) {
             float label = i == target ? 1.0f : 0.0f;
             float alpha = lr * (label - output_.get(i));
             grad_.addRow(wo_, i, alpha);
             wo_.addRow(hidden_, i, alpha);
-        });
+        }
         return -log(output_.get(target));
     }
 
@@ -335,15 +354,14 @@ public class Model {
      * @param hidden {@link Vector}
      */
     private void computeHidden(List<Integer> input, Vector hidden) {
-        Validate.isTrue(hidden.size() == dim, "Wrong size of hidden vector: " + hidden.size() + "!=" + dim);
+        if (hidden.size() != dim) {
+            throw new IllegalArgumentException("Wrong size of hidden vector: " + hidden.size() + "!=" + dim);
+        }
         hidden.clear();
-        input.forEach(it -> {
-            if (isQuant()) {
-                hidden.addRow(qwi_, it);
-            } else {
-                hidden.addRow(wi_, it);
-            }
-        });
+        Matrix wi = isQuant() ? qwi_ : wi_;
+        for (int i = 0; i < input.size(); i++) {
+            hidden.addRow(wi, IntArrayList.getInt(input, i));
+        }
         hidden.mul(1.0f / input.size());
     }
 
@@ -405,6 +423,72 @@ public class Model {
         return predict(input, k, hidden_, output_);
     }
 
+    /**
+     * Predicts using the vectors of the given workspace,
+     * so that the same model can be queried concurrently, each thread with its own workspace.
+     *
+     * @param input     List of ints
+     * @param k         int
+     * @param workspace {@link Workspace}
+     * @return {@link TreeMultimap}
+     * @see #predict(List, int, Vector, Vector)
+     */
+    TreeMultimap<Float, Integer> predict(List<Integer> input, int k, Workspace workspace) {
+        return predict(input, k, workspace.hidden, workspace.output);
+    }
+
+    /**
+     * Predicts a batch of inputs at once.
+     * The hidden vectors of all inputs make a {@code batch x dim} matrix,
+     * which is multiplied by the output matrix in one go (see {@link Matrix#dotRows(Vector[], Vector[])}),
+     * then the softmax and the k best labels are computed for each row.
+     * This is faster than {@link #predict(List, int)} for each input, since each tile of the output matrix is loaded once for the whole batch
+     * (for a quantized output matrix the per-input lookup tables are used instead of decoding each row if there are enough rows, see {@link QMatrix}).
+     * For the hierarchical softmax the inputs are predicted one by one, as the tree is traversed for each input separately.
+     *
+     * @param inputs List of inputs (lists of ints), an empty input gives an empty result
+     * @param k      int
+     * @return List of {@link TreeMultimap}s, in the order of inputs
+     */
+    public List<TreeMultimap<Float, Integer>> predictBatch(List<? extends List<Integer>> inputs, int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k needs to be 1 or higher!");
+        }
+        if (!ModelName.SUP.equals(model)) {
+            throw new IllegalArgumentException("Model needs to be supervised for prediction!");
+        }
+        int batch = inputs.size();
+        List<TreeMultimap<Float, Integer>> res = new ArrayList<>(batch);
+        if (LossName.HS == loss) {
+            Vector hidden = new Vector(dim);
+            Vector output = new Vector(osz_);
+            for (List<Integer> input : inputs) {
+                res.add(input.isEmpty() ? TreeMultimap.create(HEAP_PROBABILITY_COMPARATOR, HEAP_LABEL_COMPARATOR) : predict(input, k, hidden, output));
+            }
+            return res;
+        }
+        Vector[] hidden = new Vector[batch];
+        Vector[] output = new Vector[batch];
+        for (int b = 0; b < batch; b++) {
+            hidden[b] = new Vector(dim);
+            output[b] = new Vector(osz_);
+            List<Integer> input = inputs.get(b);
+            if (!input.isEmpty()) {
+                computeHidden(input, hidden[b]);
+            }
+        }
+        (isQuant() && qout ? qwo_ : wo_).dotRows(hidden, output);
+        for (int b = 0; b < batch; b++) {
+            TreeMultimap<Float, Integer> heap = TreeMultimap.create(HEAP_PROBABILITY_COMPARATOR, HEAP_LABEL_COMPARATOR);
+            if (!inputs.get(b).isEmpty()) {
+                computeSoftmax(output[b]);
+                findKBest(k, heap, output[b]);
+            }
+            res.add(heap);
+        }
+        return res;
+    }
+
     /**
      * Original (c++) code:
      * <pre>{@code
@@ -431,6 +515,17 @@ public class Model {
      */
     private void findKBest(int k, TreeMultimap<Float, Integer> heap, Vector hidden, Vector output) {
         computeOutputSoftmax(hidden, output);
+        findKBest(k, heap, output);
+    }
+
+    /**
+     * Selects the k best labels from the computed probabilities, the second part of {@link #findKBest(int, TreeMultimap, Vector, Vector)}.
+     *
+     * @param k      int
+     * @param heap   {@link TreeMultimap}
+     * @param output {@link Vector}, the probabilities
+     */
+    private void findKBest(int k, TreeMultimap<Float, Integer> heap, Vector output) {
         for (int i = 0; i < osz_; i++) {
             float key = stdLog(output.get(i));
             if (heap.size() == k && key < heap.asMap().firstKey()) {
@@ -579,7 +674,9 @@ public class Model {
 
         Events.MODEL_INPUT_ADD_ROW.start();
         if (inputMap.isEmpty()) {
-            input.forEach(it -> wi_.addRow(grad_, it, 1.0f));
+            for (int i = 0; i < input.size(); i++) {
+                wi_.addRow(grad_, IntArrayList.getInt(input, i), 1.0f);
+            }
         } else {
             inputMap.entrySet().parallelStream().forEach(e -> wi_.addRow(grad_, e.getKey(), e.getValue()));
         }
@@ -789,6 +886,16 @@ public class Model {
         return loss_ / nexamples_;
     }
 
+    /**
+     * Returns the number of examples seen by {@link #update(List, int, float)}.
+     * The counter {@code nexamples_} starts from one to avoid division by zero in {@link #getLoss()}, so the result is one less.
+     *
+     * @return long
+     */
+    long getExamples() {
+        return nexamples_ - 1;
+    }
+
     /**
      * Original (c++) code:
      * <pre>{@code void Model::initSigmoid() {
@@ -38,6 +38,7 @@ public class ProductQuantizer {
     private int dsub_;
     private int lastdsub_;
 
+    private float[] centroids; // the array behind centroids_
     private List<Float> centroids_;
 
     private RandomGenerator rng;
@@ -65,7 +66,8 @@ public class ProductQuantizer {
         this.dim_ = dim;
         this.nsubq_ = dim / dsub;
         this.dsub_ = dsub;
-        this.centroids_ = asFloatList(new float[dim * KSUB]);
+        this.centroids = new float[dim * KSUB];
+        this.centroids_ = asFloatList(centroids);
         this.lastdsub_ = dim_ % dsub;
         if (this.lastdsub_ == 0) {
             this.lastdsub_ = dsub_;
@@ -88,9 +90,12 @@ public class ProductQuantizer {
      * @return List of {@link Float}s
      */
     List<Float> getCentroids(int m, byte b) {
+        return shiftFloats(centroids_, centroidsIndex(m, b));
+    }
+
+    private int centroidsIndex(int m, byte b) {
         int i = Byte.toUnsignedInt(b);
-        int index = m == nsubq_ - 1 ? m * KSUB * dsub_ + i * lastdsub_ : (m * KSUB + i) * dsub_;
-        return shiftFloats(centroids_, index);
+        return m == nsubq_ - 1 ? m * KSUB * dsub_ + i * lastdsub_ : (m * KSUB + i) * dsub_;
     }
 
     List<Float> getCentroids() {
@@ -108,18 +113,16 @@ public class ProductQuantizer {
      *  return dist;
      * }}</pre>
      *
-     * @param x List of {@link Float}s
-     * @param y List of {@link Float}s
-     * @param d int
+     * @param x       array of floats
+     * @param xOffset int, the start of x
+     * @param y       array of floats
+     * @param yOffset int, the start of y
+     * @param d       int
      * @return float
+     * @see Kernel#distL2(float[], int, float[], int, int)
      */
-    private float distL2(List<Float> x, List<Float> y, int d) {
-        float dist = 0;
-        for (int i = 0; i < d; i++) {
-            float tmp = getFloat(x, i) - getFloat(y, i);
-            dist += tmp * tmp;
-        }
-        return dist;
+    private static float distL2(float[] x, int xOffset, float[] y, int yOffset, int d) {
+        return Kernel.INSTANCE.distL2(x, xOffset, y, yOffset, d);
     }
 
     /**
@@ -140,20 +143,23 @@ public class ProductQuantizer {
      *  return dis;
      * }}</pre>
      *
-     * @param x List of {@link Float}s
-     * @param c List of {@link Float}s
-     * @param code List of {@link Byte}s
-     * @param d int
+     * @param x       array of floats
+     * @param xOffset int, the start of x
+     * @param c0      int, the start of the centroids within {@link #centroids}
+     * @param codes   array of bytes
+     * @param code    int, the index of the code to set
+     * @param d       int
      * @return float
      */
-    private float assignCentroid(List<Float> x, List<Float> c, List<Byte> code, int d) {
-        float dis = distL2(x, c, d);
-        code.set(0, (byte) 0);
+    private float assignCentroid(float[] x, int xOffset, int c0, byte[] codes, int code, int d) {
+        int c = c0;
+        float dis = distL2(x, xOffset, centroids, c, d);
+        codes[code] = 0;
         for (int j = 1; j < KSUB; j++) {
-            c = shiftFloats(c, d);
-            float disij = distL2(x, c, d);
+            c += d;
+            float disij = distL2(x, xOffset, centroids, c, d);
             if (disij < dis) {
-                code.set(0, (byte) j);
+                codes[code] = (byte) j;
                 dis = disij;
             }
         }
@@ -171,15 +177,14 @@ public class ProductQuantizer {
      * }}</pre>
      *
      * @param x array of float
-     * @param centroids List of {@link Float}s
-     * @param codes List of {@link Byte}s
+     * @param centroids int, the start of the centroids within {@link #centroids}
+     * @param codes array of bytes
      * @param d int
      * @param n int
      */
-    private void eStep(float[] x, List<Float> centroids, List<Byte> codes, int d, int n) {
-        List<Float> _x = asFloatList(x);
+    private void eStep(float[] x, int centroids, byte[] codes, int d, int n) {
         for (int i = 0; i < n; i++) {
-            assignCentroid(shiftFloats(_x, i * d), centroids, shiftBytes(codes, i), d);
+            assignCentroid(x, i * d, centroids, codes, i, d);
         }
     }
 
@@ -344,7 +349,7 @@ public class ProductQuantizer {
                             "xslice.length=" + xslice.length + ", dst-pos=" + dstPos, e);
                 }
             }
-            kmeans(xslice, getCentroids(m, (byte) 0), np, d);
+            kmeans(xslice, centroidsIndex(m, (byte) 0), np, d);
         }
     }
 
@@ -365,11 +370,12 @@ public class ProductQuantizer {
      *  delete [] codes;
      * }}</pre>
      * @param x float[]
-     * @param c List of {@link Float}s
+     * @param c0 int, the start of the centroids within {@link #centroids}
      * @param n int
      * @param d int
      */
-    private void kmeans(float[] x, List<Float> c, int n, int d) {
+    private void kmeans(float[] x, int c0, int n, int d) {
+        List<Float> c = shiftFloats(centroids_, c0);
         List<Integer> perm = IntStream.iterate(0, operand -> ++operand).limit(n).boxed().collect(Collectors.toList());
         Collections.shuffle(perm, new RandomAdaptor(rng));
         for (int i = 0; i < KSUB; i++) {
@@ -380,10 +386,10 @@ public class ProductQuantizer {
                 c.set(k + dstPos, x[srcPos + k]);
             }
         }
-        List<Byte> codes = asByteList(new byte[n]);
+        byte[] codes = new byte[n];
         for (int i = 0; i < NITER; i++) {
-            eStep(x, c, codes, d, n);
-            mStep(x, c, codes, d, n);
+            eStep(x, c0, codes, d, n);
+            mStep(x, c, asByteList(codes), d, n);
         }
     }
 
@@ -399,16 +405,18 @@ public class ProductQuantizer {
      *  }
      * }}</pre>
      *
-     * @param x List of {@link Float}s
-     * @param code List of {@link Byte}s
+     * @param x array of floats
+     * @param xOffset int, the start of x
+     * @param codes array of bytes
+     * @param code int, the start of the code
      */
-    private void computeCode(List<Float> x, List<Byte> code) {
+    private void computeCode(float[] x, int xOffset, byte[] codes, int code) {
         int d = dsub_;
         for (int m = 0; m < nsubq_; m++) {
             if (m == nsubq_ - 1) {
                 d = lastdsub_;
             }
-            assignCentroid(shiftFloats(x, m * dsub_), getCentroids(m, (byte) 0), shiftBytes(code, m), d);
+            assignCentroid(x, xOffset + m * dsub_, centroidsIndex(m, (byte) 0), codes, code + m, d);
         }
     }
 
@@ -425,10 +433,8 @@ public class ProductQuantizer {
      * @param n int
      */
     void computeCodes(float[] data, byte[] codes, int n) {
-        List<Float> _x = asFloatList(data);
-        List<Byte> _c = asByteList(codes);
         for (int i = 0; i < n; i++) {
-            computeCode(shiftFloats(_x, i * dim_), shiftBytes(_c, i * nsubq_));
+            computeCode(data, i * dim_, codes, i * nsubq_);
         }
     }
 
@@ -477,6 +483,64 @@ public class ProductQuantizer {
         return res;
     }
 
+    /**
+     * Answers {@code true} if the {@link #dotTable(float[]) table} of a vector pays off for the given number of codes:
+     * it costs {@code ksub * dim} multiplications, then each code costs {@code nsubq} lookups instead of {@code dim} multiplications,
+     * so the table is never used for less than {@code ksub} codes.
+     *
+     * @param codes int, the number of codes to multiply by the same vector
+     * @return boolean
+     */
+    boolean useDotTable(int codes) {
+        return (long) KSUB * dim_ + (long) codes * nsubq_ < (long) codes * dim_;
+    }
+
+    /**
+     * Computes the dot products of the vector slices with all the centroids:
+     * {@code table[m * ksub + k] = x[m * dsub .. m * dsub + d] * centroids(m, k)}.
+     * With this table {@link #mulCode(Vector, byte[], int, float)} turns into {@code nsubq} lookups (see {@link #lookupCode(float[], byte[], int)}),
+     * which pays off when the same vector is multiplied by many codes, e.g. by all rows of a quantized output matrix.
+     *
+     * @param x float array, the vector, dim-size
+     * @return float array, {@code nsubq * ksub}-size
+     */
+    float[] dotTable(float[] x) {
+        float[] res = new float[nsubq_ * KSUB];
+        float[] slice = new float[dsub_];
+        float[] centroid = new float[dsub_];
+        int d = dsub_;
+        for (int m = 0; m < nsubq_; m++) {
+            if (m == nsubq_ - 1) {
+                d = lastdsub_;
+            }
+            System.arraycopy(x, m * dsub_, slice, 0, d);
+            for (int k = 0; k < KSUB; k++) {
+                System.arraycopy(centroids, centroidsIndex(m, (byte) k), centroid, 0, d);
+                res[m * KSUB + k] = Kernel.INSTANCE.dot(slice, centroid, d);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Computes the dot product of a vector and the t-th code using the table from {@link #dotTable(float[])}.
+     * The result is equal to {@link #mulCode(Vector, byte[], int, float)} with {@code alpha = 1} within floating-point tolerance
+     * (the products are summed up per subquantizer first).
+     *
+     * @param table float array, the table of the vector
+     * @param codes byte[]
+     * @param t     int, the number of the code
+     * @return float
+     */
+    float lookupCode(float[] table, byte[] codes, int t) {
+        float res = 0;
+        int offset = nsubq_ * t;
+        for (int m = 0; m < nsubq_; m++) {
+            res += table[m * KSUB + Byte.toUnsignedInt(codes[offset + m])];
+        }
+        return res;
+    }
+
     /**
      * Original (c++) code:
      * <pre>{@code
@@ -565,7 +629,8 @@ public class ProductQuantizer {
         res.nsubq_ = in.readInt();
         res.dsub_ = in.readInt();
         res.lastdsub_ = in.readInt();
-        res.centroids_ = asFloatList(new float[res.dim_ * KSUB]);
+        res.centroids = new float[res.dim_ * KSUB];
+        res.centroids_ = asFloatList(res.centroids);
         for (int i = 0; i < res.centroids_.size(); i++) {
             res.centroids_.set(i, in.readFloat());
         }
@@ -584,13 +649,6 @@ public class ProductQuantizer {
         return Floats.asList(values);
     }
 
-    private float getFloat(List<Float> array, int index) {
-        if (index >= array.size()) {
-            return Float.NaN;
-        }
-        return array.get(index);
-    }
-
     private List<Byte> shiftBytes(List<Byte> bytes, int index) {
         return shift(bytes, index);
     }
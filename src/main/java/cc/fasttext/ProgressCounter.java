@@ -0,0 +1,179 @@
+package cc.fasttext;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * A striped counter of processed tokens which replaces the single shared {@code AtomicLong}
+ * (original: {@code std::atomic<int64_t> tokenCount}).
+ * Each training thread owns its own padded cell and is the only writer of that cell,
+ * so flushing the local token count never bounces a cache line between cores.
+ * The global total seen by a thread is an approximate view:
+ * all cells are summed only every {@code cadence} flushes, in between a thread adds its own tokens to the view.
+ * The view therefore never exceeds the real total and lags behind it by at most {@code cadence * step} tokens
+ * of each other thread.
+ * Near the limit the view is always read through,
+ * so the end of training is detected as precisely as with a single shared counter.
+ * Each cell also keeps the time of the last flush, which is used to calculate per-thread rates.
+ *
+ * @see FastText.Factory.Trainer
+ */
+class ProgressCounter {
+    // the number of flushes between two refreshes of the global view
+    static final int DEFAULT_CADENCE = Integer.parseInt(System.getProperty("progress.cadence", "16"));
+
+    // 16 longs = 128 bytes, to avoid false sharing also with adjacent-line prefetching:
+    private static final int STRIDE = 16;
+    private static final int TOKENS = 0;
+    private static final int TIME = 1;
+
+    private final AtomicLongArray cells;
+    private final int threads;
+    private final int cadence;
+    private final long exact;
+    private final long start;
+    private final long[] initial;
+
+    /**
+     * @param threads the number of training threads, positive
+     * @param cadence the number of flushes between refreshes of the global view, positive
+     * @param limit   the expected total number of tokens (i.e. {@code epoch * ntokens})
+     * @param step    the expected number of tokens in a single flush (i.e. {@code lrUpdateRate})
+     */
+    ProgressCounter(int threads, int cadence, long limit, long step) {
+        this(threads, cadence, limit, step, new long[threads]);
+    }
+
+    /**
+     * @param threads int, the number of threads
+     * @param cadence int, the number of flushes between two refreshes of the global view
+     * @param limit   long, the total number of tokens to process
+     * @param step    long, the expected number of tokens in one flush
+     * @param initial array of longs, the numbers of tokens already processed by each thread (e.g. before a checkpoint)
+     */
+    ProgressCounter(int threads, int cadence, long limit, long step, long[] initial) {
+        if (threads <= 0) throw new IllegalArgumentException("Wrong number of threads: " + threads);
+        if (cadence <= 0) throw new IllegalArgumentException("Wrong cadence: " + cadence);
+        if (initial.length != threads) throw new IllegalArgumentException("Wrong initial counts: " + initial.length);
+        this.threads = threads;
+        this.cadence = cadence;
+        this.exact = limit - threads * cadence * Math.max(step, 1);
+        // one extra stride at the beginning to separate the first cell from the array header:
+        this.cells = new AtomicLongArray((threads + 1) * STRIDE);
+        this.initial = initial.clone();
+        for (int i = 0; i < threads; i++) {
+            cells.set(index(i) + TOKENS, initial[i]);
+        }
+        this.start = System.nanoTime();
+    }
+
+    private static int index(int threadId) {
+        return (threadId + 1) * STRIDE;
+    }
+
+    /**
+     * Returns a cell to be used exclusively by the specified thread.
+     *
+     * @param threadId int, the thread id
+     * @return {@link Cell}
+     */
+    Cell cell(int threadId) {
+        if (threadId < 0 || threadId >= threads) throw new IllegalArgumentException("Wrong thread id: " + threadId);
+        return new Cell(index(threadId));
+    }
+
+    /**
+     * Sums all cells.
+     * The result is exact if there are no concurrent flushes.
+     *
+     * @return long, the total number of tokens
+     */
+    long sum() {
+        long res = 0;
+        for (int i = 0; i < threads; i++) {
+            res += cells.get(index(i) + TOKENS);
+        }
+        return res;
+    }
+
+    /**
+     * Returns the number of tokens flushed by the specified thread.
+     *
+     * @param threadId int
+     * @return long
+     */
+    long count(int threadId) {
+        return cells.get(index(threadId) + TOKENS);
+    }
+
+    /**
+     * Calculates the processing rate of the specified thread, measured up to its last flush.
+     *
+     * @param threadId int
+     * @return double, tokens per second
+     */
+    double rate(int threadId) {
+        int i = index(threadId);
+        long time = cells.get(i + TIME) - start;
+        return time <= 0 ? 0 : (cells.get(i + TOKENS) - initial[threadId]) * 1e9 / time;
+    }
+
+    /**
+     * Returns rates of all threads.
+     *
+     * @return array of doubles, tokens per second
+     * @see #rate(int)
+     */
+    double[] rates() {
+        return IntStream.range(0, threads).mapToDouble(this::rate).toArray();
+    }
+
+    /**
+     * Returns seconds passed since the counter was created.
+     *
+     * @return double
+     */
+    double seconds() {
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    /**
+     * A single-writer cell of the counter, must not be shared between threads.
+     */
+    final class Cell {
+        private final int index;
+        private long view;
+        private int flushes;
+
+        private Cell(int index) {
+            this.index = index;
+            this.view = sum();
+        }
+
+        /**
+         * Adds the local token count to the cell.
+         * Since this thread is the only writer of the cell, there is no need in CAS, an ordered store is enough.
+         *
+         * @param tokens long
+         */
+        void add(long tokens) {
+            cells.lazySet(index + TOKENS, cells.get(index + TOKENS) + tokens);
+            cells.lazySet(index + TIME, System.nanoTime());
+            if (++flushes < cadence && view < exact) {
+                view += tokens;
+                return;
+            }
+            flushes = 0;
+            view = sum();
+        }
+
+        /**
+         * Returns the approximate global number of tokens, as seen by this thread.
+         *
+         * @return long
+         */
+        long total() {
+            return view < exact ? view : (view = sum());
+        }
+    }
+}
@@ -73,6 +73,26 @@ public class QMatrix extends Matrix {
         return npq_;
     }
 
+    /**
+     * Estimates the heap size of the codes and the centroids in bytes.
+     *
+     * @return long
+     */
+    @Override
+    public long memory() {
+        long res = (codes_ == null ? 0 : codes_.length) + (normCodes == null ? 0 : normCodes.length);
+        // the centroids are boxed floats:
+        for (ProductQuantizer pq : new ProductQuantizer[]{pq_, npq_}) {
+            if (pq != null) res += 20L * pq.getCentroids().size();
+        }
+        return res;
+    }
+
+    @Override
+    public Matrix toStorage(Storage storage) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public List<Vector> getData() {
         throw new UnsupportedOperationException();
@@ -88,6 +108,11 @@ public class QMatrix extends Matrix {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    Storage storage() {
+        return Storage.QUANT;
+    }
+
     @Override
     boolean isQuant() {
         return true;
@@ -192,7 +217,67 @@ public class QMatrix extends Matrix {
         if (qnorm_) {
             norm = npq_.getCentroids(0, normCodes[i]).get(0);
         }
-        return pq_.mulCode(vector, codes_, i, norm);
+        float d = pq_.mulCode(vector, codes_, i, norm);
+        if (Float.isNaN(d)) {
+            throw new IllegalStateException("Encountered NaN.");
+        }
+        return d;
+    }
+
+    /**
+     * The rows are decoded one by one, as in the original.
+     *
+     * @param vector {@link Vector}, n-size
+     * @param res    {@link Vector}, m-size, to write the result
+     */
+    @Override
+    public void dotRows(Vector vector, Vector res) {
+        validateNVector(vector);
+        validateMVector(res);
+        for (int i = 0; i < m; i++) {
+            res.set(i, dotRow(vector, i));
+        }
+    }
+
+    /**
+     * For each vector of the batch the table of its dot products with all centroids is computed once
+     * (see {@link ProductQuantizer#dotTable(float[])}), then each row costs {@code nsubq} lookups instead of decoding it.
+     * The norms of the rows are decoded once per batch.
+     * The results are equal to {@link #dotRow(Vector, int)} within floating-point tolerance.
+     * The table costs as much as decoding {@code ksub} (256) rows, so a matrix with not much more rows
+     * (e.g. the output matrix of a supervised model with a few hundreds of labels) is multiplied row by row,
+     * see {@link ProductQuantizer#useDotTable(int)}.
+     *
+     * @param vectors array of {@link Vector}s, n-size each
+     * @param res     array of {@link Vector}s, m-size each, to write the results
+     * @throws IllegalStateException if NaN is encountered
+     */
+    @Override
+    public void dotRows(Vector[] vectors, Vector[] res) {
+        validateBatch(vectors, res);
+        if (!pq_.useDotTable(m)) {
+            for (int b = 0; b < vectors.length; b++) {
+                dotRows(vectors[b], res[b]);
+            }
+            return;
+        }
+        float[] norms = null;
+        if (qnorm_) {
+            norms = new float[m];
+            for (int i = 0; i < m; i++) {
+                norms[i] = npq_.getCentroids(0, normCodes[i]).get(0);
+            }
+        }
+        for (int b = 0; b < vectors.length; b++) {
+            float[] table = pq_.dotTable(vectors[b].data());
+            float[] y = res[b].data();
+            for (int i = 0; i < m; i++) {
+                y[i] = pq_.lookupCode(table, codes_, i) * (norms == null ? 1 : norms[i]);
+                if (Float.isNaN(y[i])) {
+                    throw new IllegalStateException("Encountered NaN.");
+                }
+            }
+        }
     }
 
     @Override
@@ -0,0 +1,199 @@
+package cc.fasttext;
+
+import org.apache.commons.math3.random.BitsStreamGenerator;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.Well19937c;
+
+import java.util.Locale;
+import java.util.function.IntFunction;
+
+/**
+ * Lightweight {@link RandomGenerator random generators} for the training hot loops.
+ * All of them are small, fast and do not allocate on {@link RandomGenerator#nextInt(int)},
+ * {@link RandomGenerator#nextFloat()} or {@link RandomGenerator#nextDouble()}.
+ * Any of them can be passed to {@link FastText.Factory#setRandom(IntFunction)} as a constructor reference,
+ * e.g. {@code FastText.DEFAULT_FACTORY.setRandom(RandomGenerators.SplitMix64::new)}.
+ * <p>
+ * The default generator can also be chosen with the system property {@code random}
+ * ({@code well} (default), {@code splitmix} or {@code minstd}).
+ *
+ * @see <a href='http://prng.di.unimi.it/splitmix64.c'>splitmix64.c</a>
+ * @see <a href='http://en.cppreference.com/w/cpp/numeric/random/linear_congruential_engine'>std::minstd_rand</a>
+ */
+public final class RandomGenerators {
+
+    private RandomGenerators() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Returns a random generator provider by its name.
+     *
+     * @param name String, one of {@code well}, {@code splitmix}, {@code minstd}
+     * @return {@link IntFunction} which makes a {@link RandomGenerator} from the seed
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static IntFunction<RandomGenerator> forName(String name) throws IllegalArgumentException {
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "well":
+                return Well19937c::new;
+            case "splitmix":
+                return SplitMix64::new;
+            case "minstd":
+                return MinStd::new;
+            default:
+                throw new IllegalArgumentException("Unknown random generator: '" + name + "'");
+        }
+    }
+
+    /**
+     * The SplitMix64 generator: a 64-bit state, a single addition and two multiplications per {@code long}.
+     * Statistically good enough for SGD sampling, and much cheaper than {@link Well19937c}.
+     */
+    public static class SplitMix64 extends BitsStreamGenerator {
+        private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+        private static final long serialVersionUID = 1L;
+
+        private long state;
+
+        public SplitMix64(int seed) {
+            setSeed(seed);
+        }
+
+        public SplitMix64(long seed) {
+            setSeed(seed);
+        }
+
+        @Override
+        public void setSeed(int seed) {
+            setSeed((long) seed);
+        }
+
+        @Override
+        public void setSeed(int[] seed) {
+            long res = 0;
+            for (int s : seed) {
+                res = res * 31 + s;
+            }
+            setSeed(res);
+        }
+
+        @Override
+        public void setSeed(long seed) {
+            this.state = seed;
+            clear();
+        }
+
+        @Override
+        protected int next(int bits) {
+            return (int) (nextLong() >>> (64 - bits));
+        }
+
+        @Override
+        public long nextLong() {
+            long z = (state += GOLDEN_GAMMA);
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+
+        @Override
+        public double nextDouble() {
+            return (nextLong() >>> 11) * 0x1.0p-53;
+        }
+
+        @Override
+        public float nextFloat() {
+            return (nextLong() >>> 40) * 0x1.0p-24f;
+        }
+
+        /**
+         * Returns a uniform int from {@code [0, bound)}.
+         * Uses the multiply-shift method by D.Lemire, which needs a division only in rare cases of rejection.
+         *
+         * @param bound int, positive
+         * @return int
+         * @throws IllegalArgumentException if the bound is not positive
+         */
+        @Override
+        public int nextInt(int bound) throws IllegalArgumentException {
+            if (bound <= 0) throw new IllegalArgumentException("Not positive bound: " + bound);
+            long m = (nextLong() >>> 32) * bound;
+            if ((m & 0xFFFF_FFFFL) < bound) {
+                long t = (0x1_0000_0000L - bound) % bound;
+                while ((m & 0xFFFF_FFFFL) < t) {
+                    m = (nextLong() >>> 32) * bound;
+                }
+            }
+            return (int) (m >>> 32);
+        }
+    }
+
+    /**
+     * The "minimal standard" linear congruential generator, {@code x = x * 48271 mod (2^31 - 1)}.
+     * Its raw sequence ({@link #nextRaw()}) is exactly the same as of the c++ {@code std::minstd_rand}
+     * seeded with the same value, which is used by the original fastText.
+     * Note: the derived values ({@code nextInt(bound)}, {@code nextDouble()}, etc) are not the same
+     * as produced by c++ distributions, since those are implementation specific.
+     */
+    public static class MinStd extends BitsStreamGenerator {
+        private static final long MULTIPLIER = 48_271;
+        private static final long MODULUS = 2_147_483_647;
+        private static final long serialVersionUID = 1L;
+
+        private int state;
+
+        public MinStd(int seed) {
+            setSeed(seed);
+        }
+
+        /**
+         * Original (c++) code (libstdc++):
+         * <pre>{@code
+         * if ((__detail::__mod<_UIntType, __m>(__c) == 0) && (__detail::__mod<_UIntType, __m>(__s) == 0))
+         *  _M_x = 1;
+         * else
+         *  _M_x = __detail::__mod<_UIntType, __m>(__s);
+         * }</pre>
+         *
+         * @param seed int, treated as unsigned
+         */
+        @Override
+        public void setSeed(int seed) {
+            setSeed(Integer.toUnsignedLong(seed));
+        }
+
+        @Override
+        public void setSeed(int[] seed) {
+            long res = 0;
+            for (int s : seed) {
+                res = res * 31 + s;
+            }
+            setSeed(res);
+        }
+
+        @Override
+        public void setSeed(long seed) {
+            int s = (int) Long.remainderUnsigned(seed, MODULUS);
+            this.state = s == 0 ? 1 : s;
+            clear();
+        }
+
+        /**
+         * Advances the engine.
+         *
+         * @return int from {@code [1, 2^31 - 2]}, the same as {@code std::minstd_rand::operator()}
+         */
+        public int nextRaw() {
+            return state = (int) (state * MULTIPLIER % MODULUS);
+        }
+
+        @Override
+        protected int next(int bits) {
+            if (bits <= 31) {
+                return nextRaw() >>> (31 - bits);
+            }
+            return (nextRaw() << 1) | (nextRaw() & 1);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package cc.fasttext;
+
+/**
+ * The plain (Java 8) implementation of {@link Kernel}.
+ * The loops sum up in the same order as the original (c++) fastText does, so the results are reproducible.
+ */
+class ScalarKernel implements Kernel {
+
+    @Override
+    public float dot(float[] x, float[] y, int n) {
+        float res = 0;
+        for (int i = 0; i < n; i++) {
+            res += x[i] * y[i];
+        }
+        return res;
+    }
+
+    /**
+     * Processes the rows in blocks of four, so each element of the vector is loaded once per block.
+     * Within a row the summation order is the same as in {@link #dot(float[], float[], int)}.
+     */
+    @Override
+    public void dotRows(float[][] rows, float[] x, float[] res, int from, int to) {
+        int n = x.length;
+        int i = from;
+        for (; i + 3 < to; i += 4) {
+            float[] r0 = rows[i];
+            float[] r1 = rows[i + 1];
+            float[] r2 = rows[i + 2];
+            float[] r3 = rows[i + 3];
+            float d0 = 0, d1 = 0, d2 = 0, d3 = 0;
+            for (int j = 0; j < n; j++) {
+                float v = x[j];
+                d0 += r0[j] * v;
+                d1 += r1[j] * v;
+                d2 += r2[j] * v;
+                d3 += r3[j] * v;
+            }
+            res[i] = d0;
+            res[i + 1] = d1;
+            res[i + 2] = d2;
+            res[i + 3] = d3;
+        }
+        for (; i < to; i++) {
+            res[i] = dot(rows[i], x, n);
+        }
+    }
+
+    @Override
+    public void axpy(float a, float[] x, float[] y, int n) {
+        for (int i = 0; i < n; i++) {
+            y[i] += a * x[i];
+        }
+    }
+
+    @Override
+    public double sumSquares(float[] x, int n) {
+        double res = 0;
+        for (int i = 0; i < n; i++) {
+            res += x[i] * x[i];
+        }
+        return res;
+    }
+
+    @Override
+    public float distL2(float[] x, int xOffset, float[] y, int yOffset, int n) {
+        float res = 0;
+        for (int i = 0; i < n; i++) {
+            float tmp = x[xOffset + i] - y[yOffset + i];
+            res += tmp * tmp;
+        }
+        return res;
+    }
+
+    @Override
+    public String toString() {
+        return "ScalarKernel";
+    }
+}
@@ -62,8 +62,15 @@ public class Vector {
         return Floats.asList(data);
     }
 
+    /**
+     * Zeroes the vector in place, the storage is kept.
+     * Original (c++) code:
+     * <pre>{@code void Vector::zero() {
+     *  std::fill(data_.begin(), data_.end(), 0.0);
+     * }}</pre>
+     */
     public void clear() {
-        data = new float[data.length];
+        Arrays.fill(data, 0);
     }
 
     /**
@@ -84,10 +91,7 @@ public class Vector {
         if (FastText.USE_PARALLEL_COMPUTATION && size() > PARALLEL_SIZE_THRESHOLD) {
             sum = IntStream.range(0, size()).parallel().mapToDouble(i -> data[i] * data[i]).sum();
         } else {
-            sum = 0;
-            for (int i = 0; i < size(); i++) {
-                sum += data[i] * data[i];
-            }
+            sum = Kernel.INSTANCE.sumSquares(data, size());
         }
         return (float) FastMath.sqrt(sum);
     }
@@ -121,14 +125,14 @@ public class Vector {
      * @param s      float (see real.h)
      */
     public void addVector(Vector source, float s) {
-        Validate.isTrue(size() == Objects.requireNonNull(source, "Null source vector").size(), "Wrong size of vector: " + size() + "!=" + source.size());
+        if (size() != Objects.requireNonNull(source, "Null source vector").size()) {
+            throw new IllegalArgumentException("Wrong size of vector: " + size() + "!=" + source.size());
+        }
         if (FastText.USE_PARALLEL_COMPUTATION && size() > PARALLEL_SIZE_THRESHOLD) {
             IntStream.range(0, size()).parallel().forEach(i -> data[i] += s * source.data[i]);
             return;
         }
-        for (int i = 0; i < size(); i++) {
-            data[i] += s * source.data[i];
-        }
+        Kernel.INSTANCE.axpy(s, source.data, data, size());
     }
 
     /**
@@ -169,8 +173,7 @@ public class Vector {
      * @see #addRow(Matrix, int, float)
      */
     public void addRow(Matrix matrix, int index) {
-        Validate.isTrue(index >= 0 && index < matrix.getM(), "Incompatible index (" + index + ") and matrix m-size (" + matrix.getM() + ")");
-        Validate.isTrue(size() == matrix.getN(), "Wrong matrix n-size: " + size() + " != " + matrix.getN());
+        validateRow(matrix, index);
         if (matrix.isQuant()) {
             addQRow((QMatrix) matrix, index);
             return;
@@ -179,8 +182,22 @@ public class Vector {
             IntStream.range(0, matrix.getN()).parallel().forEach(j -> data[j] += matrix.at(index, j));
             return;
         }
-        for (int j = 0; j < matrix.getN(); j++) {
-            data[j] += matrix.at(index, j);
+        matrix.addRowTo(this, index, 1);
+    }
+
+    /**
+     * Checks the row index and the matrix n-size.
+     * The messages are built only on failure, since the method is called for every row on the training hot path.
+     *
+     * @param matrix {@link Matrix}
+     * @param index  m-dimension matrix coordinate
+     */
+    private void validateRow(Matrix matrix, int index) {
+        if (index < 0 || index >= matrix.getM()) {
+            throw new IllegalArgumentException("Incompatible index (" + index + ") and matrix m-size (" + matrix.getM() + ")");
+        }
+        if (size() != matrix.getN()) {
+            throw new IllegalArgumentException("Wrong matrix n-size: " + size() + " != " + matrix.getN());
         }
     }
 
@@ -219,15 +236,12 @@ public class Vector {
      * @see #addRow(Matrix, int)
      */
     public void addRow(Matrix matrix, int index, float factor) {
-        Validate.isTrue(index >= 0 && index < matrix.getM(), "Incompatible index (" + index + ") and matrix m-size (" + matrix.getM() + ")");
-        Validate.isTrue(size() == matrix.getN(), "Wrong matrix n-size: " + size() + " != " + matrix.getN());
+        validateRow(matrix, index);
         if (FastText.USE_PARALLEL_COMPUTATION && matrix.getN() > PARALLEL_SIZE_THRESHOLD) {
             IntStream.range(0, matrix.getN()).parallel().forEach(j -> data[j] += factor * matrix.at(index, j));
             return;
         }
-        for (int j = 0; j < matrix.getN(); j++) {
-            data[j] += factor * matrix.at(index, j);
-        }
+        matrix.addRowTo(this, index, factor);
     }
 
     /**
@@ -243,17 +257,16 @@ public class Vector {
      *
      * @param matrix {@link Matrix}
      * @param vector {@link Vector}
+     * @see Matrix#dotRows(Vector, Vector)
      */
     public void mul(Matrix matrix, Vector vector) {
-        Validate.isTrue(matrix.getM() == size(), "Wrong matrix m-size: " + size() + " != " + matrix.getM());
-        Validate.isTrue(matrix.getN() == vector.size(), "Matrix n-size (" + matrix.getN() + ") and vector size (" + vector.size() + ")  are not equal.");
-        if (FastText.USE_PARALLEL_COMPUTATION && size() > PARALLEL_SIZE_THRESHOLD) {
-            IntStream.range(0, size()).parallel().forEach(i -> data[i] = matrix.dotRow(vector, i));
-            return;
+        if (matrix.getM() != size()) {
+            throw new IllegalArgumentException("Wrong matrix m-size: " + size() + " != " + matrix.getM());
         }
-        for (int i = 0; i < size(); i++) {
-            data[i] = matrix.dotRow(vector, i);
+        if (matrix.getN() != vector.size()) {
+            throw new IllegalArgumentException("Matrix n-size (" + matrix.getN() + ") and vector size (" + vector.size() + ")  are not equal.");
         }
+        matrix.dotRows(vector, this);
     }
 
     /**
@@ -0,0 +1,36 @@
+package cc.fasttext;
+
+/**
+ * The scratch buffers of a single thread: the hidden, gradient and output vectors of a {@link Model}
+ * and the token buffers of a {@link Dictionary} line.
+ * All of them are reset in place ({@link Vector#clear()}, {@link IntArrayList#clear()}),
+ * so a thread which owns a workspace does not allocate them for every update or query.
+ * In the original (c++) fastText the vectors are the fields {@code hidden_}, {@code output_} and {@code grad_} of a model
+ * and the token buffers are local {@code std::vector}s,
+ * here they are collected together to be shared between the trainer and the query methods of {@link FastText}.
+ * Not thread-safe: a workspace must be used by one thread only.
+ */
+final class Workspace {
+    final Vector hidden;
+    final Vector output;
+    final Vector grad;
+    // the word and subword ids of a line:
+    final IntArrayList words = new IntArrayList();
+    // the label ids of a line:
+    final IntArrayList labels = new IntArrayList();
+    // the word hashes of a line, used to compute word ngrams:
+    final IntArrayList hashes = new IntArrayList();
+    // the input of a model update in an unsupervised model (the context of a word for cbow, the subwords of a word for skipgram),
+    // or the subwords of a queried word:
+    final IntArrayList input = new IntArrayList();
+
+    /**
+     * @param dim int, the size of the hidden and gradient vectors
+     * @param osz int, the size of the output vector
+     */
+    Workspace(int dim, int osz) {
+        this.hidden = new Vector(dim);
+        this.output = new Vector(osz);
+        this.grad = new Vector(dim);
+    }
+}
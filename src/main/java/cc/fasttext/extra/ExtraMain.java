@@ -3,13 +3,17 @@ package cc.fasttext.extra;
 import cc.fasttext.Main;
 import cc.fasttext.extra.io.HadoopIOStreams;
 import cc.fasttext.io.IOStreams;
+import cc.fasttext.io.ReadAheadInputStream;
 import cc.fasttext.io.ScrollableInputStream;
+import cc.fasttext.io.SpoolingIOStreams;
+import cc.fasttext.io.impl.HttpRangeInputStream;
 import cc.fasttext.io.impl.LocalIOStreams;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -20,6 +24,7 @@ import java.net.URL;
 import java.nio.file.FileSystemNotFoundException;
 import java.nio.file.Paths;
 import java.util.AbstractMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
@@ -50,7 +55,20 @@ public class ExtraMain {
     }
 
     public static void main(String... args) {
-        Main.main(args);
+        try {
+            Main.main(args);
+        } finally {
+            close(DEFAULT_FS);
+        }
+    }
+
+    private static void close(IOStreams fs) {
+        if (!(fs instanceof Closeable)) return;
+        try {
+            ((Closeable) fs).close();
+        } catch (IOException e) {
+            LOGGER.warn("Can't close {}: {}", fs, e.getMessage());
+        }
     }
 
     private static void init() {
@@ -89,13 +107,17 @@ public class ExtraMain {
         }
         System.setProperty("hadoop.home.dir", home);
         FileSystem fs = FileSystem.get(IOStreams.toURI(url), conf);
-        return new HadoopIOStreams(fs) {
+        IOStreams res = new HadoopIOStreams(fs) {
             @Override
             public String toString() {
                 return String.format("Hadoop-FS: %s@<%s>%s", user, url, settings);
             }
 
         };
+        if (ReadAheadInputStream.DEFAULT_BLOCKS <= 0) {
+            return res;
+        }
+        return res.readAhead(ReadAheadInputStream.DEFAULT_BLOCKS, ReadAheadInputStream.DEFAULT_BLOCK_SIZE);
     }
 
     private static IOStreams createHadoopFS(URI uri, Map<String, String> settings) throws IllegalArgumentException, UncheckedIOException {
@@ -154,7 +176,7 @@ public class ExtraMain {
     /**
      * Created by @szuev on 28.11.2017.
      */
-    public static class CombinedIOStreams implements IOStreams {
+    public static class CombinedIOStreams implements IOStreams, Closeable {
         private final Map<URI, IOStreams> map = new ConcurrentHashMap<>();
         private final Function<URI, IOStreams> provider;
 
@@ -192,6 +214,36 @@ public class ExtraMain {
             return chooseFS(uri).size(uri);
         }
 
+        @Override
+        public long[] blockOffsets(String uri) throws IOException {
+            return chooseFS(uri).blockOffsets(uri);
+        }
+
+        @Override
+        public void rename(String from, String to) throws IOException {
+            if (getRoot(from).equals(getRoot(to))) {
+                chooseFS(from).rename(from, to);
+                return;
+            }
+            IOStreams.super.rename(from, to);
+        }
+
+        @Override
+        public List<String> expand(String uri) throws IOException {
+            return chooseFS(uri).expand(uri);
+        }
+
+        /**
+         * Closes all file systems created so far, e.g. deletes the temporary copies of web resources.
+         * The instance can be used further, new file systems will be created on demand.
+         */
+        @Override
+        public void close() {
+            for (URI root : map.keySet()) {
+                ExtraMain.close(map.remove(root));
+            }
+        }
+
         private IOStreams chooseFS(String uri) {
             return map.computeIfAbsent(getRoot(uri), provider);
         }
@@ -201,7 +253,44 @@ public class ExtraMain {
         }
     }
 
-    public static class WebIOStreams implements IOStreams {
+    /**
+     * Read-only web file system.
+     * Resources which support range requests are read directly ({@link HttpRangeInputStream}),
+     * others are downloaded once into a temporary file ({@link SpoolingIOStreams}).
+     */
+    public static class WebIOStreams implements IOStreams, Closeable {
+        private final Map<String, Long> ranges = new ConcurrentHashMap<>();
+        private final SpoolingIOStreams spool = spooled();
+
+        /**
+         * Returns the length of the resource if it can be read by ranges, the result is cached.
+         *
+         * @param uri String
+         * @return long or {@code -1}
+         * @throws IOException if I/O error occurs
+         */
+        private long rangeLength(String uri) throws IOException {
+            Long res = ranges.get(uri);
+            if (res == null) {
+                ranges.put(uri, res = HttpRangeInputStream.rangeLength(IOStreams.toURI(uri).toURL()));
+            }
+            return res;
+        }
+
+        @Override
+        public ScrollableInputStream openScrollable(String uri) throws IOException {
+            long size = rangeLength(uri);
+            if (size < 0) {
+                return spool.openScrollable(uri);
+            }
+            return new HttpRangeInputStream(IOStreams.toURI(uri).toURL(), size);
+        }
+
+        @Override
+        public long size(String uri) throws IOException {
+            long res = rangeLength(uri);
+            return res < 0 ? spool.size(uri) : res;
+        }
 
         @Override
         public OutputStream createOutput(String uri) {
@@ -223,5 +312,15 @@ public class ExtraMain {
             return false;
         }
 
+        /**
+         * Deletes the temporary files with downloaded resources.
+         *
+         * @throws IOException if I/O error occurs
+         * @see SpoolingIOStreams#close()
+         */
+        @Override
+        public void close() throws IOException {
+            spool.close();
+        }
     }
 }
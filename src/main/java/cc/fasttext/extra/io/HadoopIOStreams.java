@@ -2,12 +2,19 @@ package cc.fasttext.extra.io;
 
 import cc.fasttext.io.IOStreams;
 import cc.fasttext.io.ScrollableInputStream;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.LongStream;
 
 
 /**
@@ -40,6 +47,65 @@ public class HadoopIOStreams implements IOStreams {
         return fs.getFileStatus(toPath(uri)).getLen();
     }
 
+    @Override
+    public long[] blockOffsets(String uri) throws IOException {
+        return blockOffsets(fs, toPath(uri));
+    }
+
+    @Override
+    public void rename(String from, String to) throws IOException {
+        Path target = toPath(to);
+        fs.delete(target, false);
+        if (!fs.rename(toPath(from), target)) {
+            throw new IOException("Can't rename " + from + " to " + to);
+        }
+    }
+
+    /**
+     * Lists the files denoted by the uri, which can be a file, a directory (not recursive) or a glob.
+     * Hidden files ({@code _SUCCESS}, {@code .crc}, etc) are skipped for directories.
+     *
+     * @param uri String
+     * @return sorted List of uris
+     * @throws IOException if I/O error occurs
+     */
+    @Override
+    public List<String> expand(String uri) throws IOException {
+        FileStatus[] statuses = fs.globStatus(toPath(uri));
+        if (statuses == null) {
+            return Collections.emptyList();
+        }
+        List<String> res = new ArrayList<>();
+        for (FileStatus status : statuses) {
+            if (status.isFile()) {
+                res.add(status.getPath().toUri().toString());
+                continue;
+            }
+            for (FileStatus child : fs.listStatus(status.getPath(), p -> !p.getName().startsWith("_") && !p.getName().startsWith("."))) {
+                if (child.isFile()) {
+                    res.add(child.getPath().toUri().toString());
+                }
+            }
+        }
+        Collections.sort(res);
+        return res;
+    }
+
+    /**
+     * Lists the start offsets of the hadoop blocks of the file.
+     *
+     * @param fs   {@link FileSystem}
+     * @param path {@link Path}
+     * @return array of longs, ascending, the first element is {@code 0}
+     * @throws IOException if I/O error occurs
+     */
+    public static long[] blockOffsets(FileSystem fs, Path path) throws IOException {
+        FileStatus status = fs.getFileStatus(path);
+        BlockLocation[] locations = fs.getFileBlockLocations(status, 0, status.getLen());
+        return LongStream.concat(LongStream.of(0), Arrays.stream(locations).mapToLong(BlockLocation::getOffset))
+                .distinct().sorted().toArray();
+    }
+
     /**
      * Makes a hadoop fs path
      *
@@ -6,76 +6,149 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
 
 /**
+ * A {@link ScrollableInputStream} over a hadoop file, which uses only positional reads
+ * ({@link org.apache.hadoop.fs.PositionedReadable pread}) through its own buffer.
+ * So {@link #seek(long) seek} is free (there is no reopening of block readers),
+ * and a buffer refill never crosses the boundary of a hadoop block.
+ * <p>
  * Created by @szuev on 30.10.2017.
  */
 public class HadoopInputStream extends ScrollableInputStream {
-    private FSDataInputStream in;
-    private long size;
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final FSDataInputStream in;
+    private final long size;
+    private final long[] blocks;
+    private final byte[] buffer;
+
+    private long pos;
+    // the position of the buffer in the file and the number of valid bytes in it:
+    private long bufferStart;
+    private int bufferLength;
 
     public HadoopInputStream(FileSystem fs, Path path) throws IOException {
-        this.size = fs.getFileStatus(path).getLen();
-        this.in = fs.open(path);
+        this(fs, path, DEFAULT_BUFFER_SIZE);
     }
 
-    @Override
-    public void seek(long pos) throws IOException {
-        in.seek(pos);
+    public HadoopInputStream(FileSystem fs, Path path, int bufferSize) throws IOException {
+        this(fs.open(path), fs.getFileStatus(path).getLen(), HadoopIOStreams.blockOffsets(fs, path), bufferSize);
     }
 
-    @Override
-    public long getPos() throws IOException {
-        return in.getPos();
+    /**
+     * @param in         {@link FSDataInputStream}
+     * @param size       long, the file size
+     * @param blocks     array of block start offsets, ascending
+     * @param bufferSize int, positive
+     */
+    protected HadoopInputStream(FSDataInputStream in, long size, long[] blocks, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Wrong buffer size: " + bufferSize);
+        }
+        this.in = Objects.requireNonNull(in, "Null stream");
+        this.size = size;
+        this.blocks = Objects.requireNonNull(blocks, "Null blocks");
+        this.buffer = new byte[bufferSize];
     }
 
-    @Override
-    public long getLen() {
-        return size;
+    /**
+     * Returns the end of the block which contains the specified position.
+     *
+     * @param pos long
+     * @return long
+     */
+    private long blockEnd(long pos) {
+        int i = Arrays.binarySearch(blocks, pos);
+        i = i >= 0 ? i + 1 : -i - 1;
+        return i < blocks.length ? blocks[i] : size;
     }
 
-    @Override
-    public int read() throws IOException {
-        return in.read();
+    private boolean fill() throws IOException {
+        if (pos >= bufferStart && pos < bufferStart + bufferLength) {
+            return true;
+        }
+        if (pos >= size) {
+            return false;
+        }
+        int len = (int) Math.min(buffer.length, blockEnd(pos) - pos);
+        in.readFully(pos, buffer, 0, len);
+        bufferStart = pos;
+        bufferLength = len;
+        return true;
     }
 
     @Override
-    public int read(byte[] b) throws IOException {
-        return in.read(b);
+    public void seek(long pos) throws IOException {
+        if (pos < 0 || pos > size) {
+            throw new IOException("Position is out of range: " + pos);
+        }
+        this.pos = pos;
     }
 
     @Override
-    public int read(byte[] b, int off, int len) throws IOException {
-        return in.read(b, off, len);
+    public long getPos() {
+        return pos;
     }
 
     @Override
-    public long skip(long n) throws IOException {
-        return in.skip(n);
+    public long getLen() {
+        return size;
     }
 
     @Override
-    public int available() throws IOException {
-        return in.available();
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return buffer[(int) (pos++ - bufferStart)] & 0xFF;
     }
 
+    @SuppressWarnings("NullableProblems")
     @Override
-    public void close() throws IOException {
-        in.close();
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.requireNonNull(b, "Null buff");
+        if (len == 0) {
+            return 0;
+        }
+        if (pos >= size) {
+            return -1;
+        }
+        int res = 0;
+        while (res < len && pos < size) {
+            int n;
+            if (len - res >= buffer.length) { // large read: directly into the destination
+                n = (int) Math.min(len - res, blockEnd(pos) - pos);
+                in.readFully(pos, b, off + res, n);
+            } else {
+                fill();
+                int from = (int) (pos - bufferStart);
+                n = Math.min(len - res, bufferLength - from);
+                System.arraycopy(buffer, from, b, off + res, n);
+            }
+            pos += n;
+            res += n;
+        }
+        return res;
     }
 
     @Override
-    public void mark(int limit) {
-        in.mark(limit);
+    public long skip(long n) {
+        long res = Math.max(0, Math.min(n, size - pos));
+        pos += res;
+        return res;
     }
 
     @Override
-    public void reset() throws IOException {
-        in.reset();
+    public int available() {
+        long res = size - pos;
+        return res > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) res;
     }
 
     @Override
-    public boolean markSupported() {
-        return in.markSupported();
+    public void close() throws IOException {
+        in.close();
     }
 }
@@ -0,0 +1,302 @@
+package cc.fasttext.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * A {@link ScrollableInputStream} over a BGZF file, i.e. a gzip file which consists of many small gzip members (blocks),
+ * each with its compressed size in the {@code BC} extra subfield (as produced by {@code bgzip} or {@link BgzfOutputStream}).
+ * Such a file is still a valid gzip file, but it can also be read from any position:
+ * the positions (see {@link #seek(long)}, {@link #getPos()}, {@link #getLen()}) are in the uncompressed space,
+ * and only the block which contains the position is inflated.
+ * The {@link Index block index} is built by reading the headers and footers of blocks, without decompression,
+ * and can be shared between streams opened for the same file.
+ * Not thread-safe.
+ *
+ * @see <a href='https://samtools.github.io/hts-specs/SAMv1.pdf'>The BGZF compression format (SAMv1, 4.1)</a>
+ * @see GzipIOStreams
+ */
+public class BgzfInputStream extends ScrollableInputStream {
+    static final int MAX_BLOCK_SIZE = 1 << 16;
+    private static final int HEADER_SIZE = 12;
+    private static final int FOOTER_SIZE = 8;
+
+    private final ScrollableInputStream in;
+    private final Index index;
+    private final Inflater inflater = new Inflater(true);
+    private final CRC32 crc = new CRC32();
+    private final byte[] raw = new byte[MAX_BLOCK_SIZE];
+    private final byte[] block = new byte[MAX_BLOCK_SIZE];
+
+    private int current = -1;
+    private int length;
+    private int offset;
+    private long pos;
+
+    /**
+     * @param in    {@link ScrollableInputStream} the compressed stream
+     * @param index {@link Index} of the same file
+     */
+    public BgzfInputStream(ScrollableInputStream in, Index index) {
+        this.in = Objects.requireNonNull(in, "Null stream");
+        this.index = Objects.requireNonNull(index, "Null index");
+    }
+
+    /**
+     * Answers {@code true} if the bytes are the beginning of a BGZF block.
+     *
+     * @param header byte array, at least 16 bytes
+     * @param length int, the number of valid bytes in the array
+     * @return boolean
+     */
+    public static boolean isBgzf(byte[] header, int length) {
+        return length >= 16 && (header[0] & 0xFF) == 0x1F && (header[1] & 0xFF) == 0x8B && header[2] == 8 && (header[3] & 4) != 0
+                && header[12] == 'B' && header[13] == 'C' && header[14] == 2 && header[15] == 0;
+    }
+
+    private static int uint16(byte[] b, int i) {
+        return (b[i] & 0xFF) | (b[i + 1] & 0xFF) << 8;
+    }
+
+    private static long uint32(byte[] b, int i) {
+        return (uint16(b, i) | (long) uint16(b, i + 2) << 16);
+    }
+
+    private static void readFully(ScrollableInputStream in, byte[] b, int len) throws IOException {
+        int res = 0;
+        int n;
+        while (res < len && (n = in.read(b, res, len - res)) != -1) {
+            res += n;
+        }
+        if (res < len) throw new EOFException("Truncated BGZF block");
+    }
+
+    /**
+     * Reads the header of the block at the current position of the stream.
+     *
+     * @param in     {@link ScrollableInputStream}
+     * @param buffer byte array to store the header
+     * @return int, the total size of block
+     * @throws IOException if the block is broken
+     */
+    private static int header(ScrollableInputStream in, byte[] buffer) throws IOException {
+        readFully(in, buffer, HEADER_SIZE);
+        if ((buffer[0] & 0xFF) != 0x1F || (buffer[1] & 0xFF) != 0x8B || buffer[2] != 8 || (buffer[3] & 4) == 0) {
+            throw new IOException("Not a BGZF block");
+        }
+        int xlen = uint16(buffer, 10);
+        byte[] extra = new byte[xlen];
+        readFully(in, extra, xlen);
+        for (int i = 0; i + 4 <= xlen; i += 4 + uint16(extra, i + 2)) {
+            if (extra[i] == 'B' && extra[i + 1] == 'C' && uint16(extra, i + 2) == 2) {
+                return uint16(extra, i + 4) + 1;
+            }
+        }
+        throw new IOException("No BC subfield in gzip header");
+    }
+
+    private void load(int i) throws IOException {
+        in.seek(index.compressed[i]);
+        int size = index.sizes[i];
+        readFully(in, raw, size);
+        int head = HEADER_SIZE + uint16(raw, 10);
+        int expected = (int) (index.uncompressed[i + 1] - index.uncompressed[i]);
+        inflater.reset();
+        inflater.setInput(raw, head, size - head - FOOTER_SIZE);
+        int res;
+        try {
+            res = inflater.inflate(block, 0, block.length);
+        } catch (DataFormatException e) {
+            throw new IOException("Broken BGZF block #" + i, e);
+        }
+        crc.reset();
+        crc.update(block, 0, res);
+        if (res != expected || crc.getValue() != uint32(raw, size - FOOTER_SIZE)) {
+            throw new IOException("Wrong BGZF block #" + i + ": size or crc mismatch");
+        }
+        current = i;
+        length = res;
+    }
+
+    private boolean ensure() throws IOException {
+        if (current >= 0 && offset < length) {
+            return true;
+        }
+        int i = current >= 0 && pos == index.uncompressed[current + 1] ? current + 1 : index.block(pos);
+        if (i >= index.size()) {
+            return false;
+        }
+        load(i);
+        offset = (int) (pos - index.uncompressed[i]);
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensure()) {
+            return -1;
+        }
+        pos++;
+        return block[offset++] & 0xFF;
+    }
+
+    /**
+     * Reads the requested number of bytes, less only at the end of stream.
+     *
+     * @param b   byte array
+     * @param off int
+     * @param len int
+     * @return int, the number of bytes read or {@code -1}
+     * @throws IOException if I/O error occurs
+     */
+    @SuppressWarnings("NullableProblems")
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.requireNonNull(b, "Null buff");
+        if (len == 0) {
+            return 0;
+        }
+        int res = 0;
+        while (res < len && ensure()) {
+            int n = Math.min(len - res, length - offset);
+            System.arraycopy(block, offset, b, off + res, n);
+            offset += n;
+            pos += n;
+            res += n;
+        }
+        return res == 0 ? -1 : res;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long res = Math.max(0, Math.min(n, getLen() - pos));
+        seek(pos + res);
+        return res;
+    }
+
+    @Override
+    public void seek(long bytes) throws IOException {
+        if (bytes < 0 || bytes > getLen()) {
+            throw new IOException("Position is out of range: " + bytes);
+        }
+        if (current >= 0 && bytes >= index.uncompressed[current] && bytes < index.uncompressed[current + 1]) {
+            offset = (int) (bytes - index.uncompressed[current]);
+        } else {
+            offset = length; // the block will be chosen on the next read
+        }
+        pos = bytes;
+    }
+
+    @Override
+    public long getPos() {
+        return pos;
+    }
+
+    @Override
+    public long getLen() {
+        return index.length();
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        in.close();
+    }
+
+    /**
+     * The block index of a BGZF file: the start offsets of non-empty blocks in compressed and uncompressed spaces.
+     * Immutable and thread-safe.
+     */
+    public static class Index {
+        private final long[] compressed;
+        private final int[] sizes;
+        // has size + 1 elements, the last one is the total length:
+        private final long[] uncompressed;
+
+        private Index(long[] compressed, int[] sizes, long[] uncompressed) {
+            this.compressed = compressed;
+            this.sizes = sizes;
+            this.uncompressed = uncompressed;
+        }
+
+        /**
+         * Scans the file reading only headers and footers of blocks.
+         *
+         * @param in {@link ScrollableInputStream}, the compressed BGZF stream, is not closed
+         * @return {@link Index}
+         * @throws IOException if I/O error occurs or the file is not in BGZF format
+         */
+        public static Index build(ScrollableInputStream in) throws IOException {
+            long total = in.getLen();
+            long[] compressed = new long[16];
+            int[] sizes = new int[16];
+            long[] uncompressed = new long[17];
+            byte[] buffer = new byte[HEADER_SIZE];
+            byte[] footer = new byte[4];
+            int n = 0;
+            long c = 0;
+            long u = 0;
+            while (c < total) {
+                in.seek(c);
+                int size = header(in, buffer);
+                in.seek(c + size - 4);
+                readFully(in, footer, 4);
+                long isize = uint32(footer, 0);
+                if (isize != 0) { // skip empty blocks, e.g. the EOF marker
+                    if (n == compressed.length) {
+                        compressed = Arrays.copyOf(compressed, n * 2);
+                        sizes = Arrays.copyOf(sizes, n * 2);
+                        uncompressed = Arrays.copyOf(uncompressed, n * 2 + 1);
+                    }
+                    compressed[n] = c;
+                    sizes[n] = size;
+                    uncompressed[n] = u;
+                    n++;
+                }
+                c += size;
+                u += isize;
+            }
+            uncompressed[n] = u;
+            return new Index(Arrays.copyOf(compressed, n), Arrays.copyOf(sizes, n), Arrays.copyOf(uncompressed, n + 1));
+        }
+
+        /**
+         * @return int, the number of (non-empty) blocks
+         */
+        public int size() {
+            return compressed.length;
+        }
+
+        /**
+         * @return long, the total uncompressed length
+         */
+        public long length() {
+            return uncompressed[size()];
+        }
+
+        /**
+         * Returns the start offsets of blocks in the uncompressed space.
+         *
+         * @return array of longs, the first is {@code 0}
+         */
+        public long[] offsets() {
+            return size() == 0 ? new long[]{0} : Arrays.copyOf(uncompressed, size());
+        }
+
+        /**
+         * Finds the block which contains the uncompressed position.
+         *
+         * @param pos long
+         * @return int, the block number, or {@link #size()} if the position is at the end
+         */
+        private int block(long pos) {
+            int i = Arrays.binarySearch(uncompressed, pos);
+            return i >= 0 ? i : -i - 2;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package cc.fasttext.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * An {@link OutputStream} which writes data in the BGZF format:
+ * a sequence of gzip members, each of them holds not more than {@link #BLOCK_SIZE} bytes of input
+ * and has its compressed size in the {@code BC} extra subfield; the stream ends with an empty EOF block.
+ * The result can be read by any gzip tool and also randomly accessed with {@link BgzfInputStream}.
+ * Not thread-safe.
+ *
+ * @see BgzfInputStream
+ */
+public class BgzfOutputStream extends OutputStream {
+    /**
+     * The max size of uncompressed data in a block, so that the compressed block (even incompressible) fits in 64KB.
+     */
+    public static final int BLOCK_SIZE = 0xFF00;
+    private static final byte[] HEADER = {0x1F, (byte) 0x8B, 8, 4, 0, 0, 0, 0, 0, (byte) 0xFF, 6, 0, 'B', 'C', 2, 0};
+    private static final int HEADER_SIZE = HEADER.length + 2;
+    private static final int FOOTER_SIZE = 8;
+
+    private final OutputStream out;
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] buffer = new byte[BLOCK_SIZE];
+    private final byte[] block = new byte[BgzfInputStream.MAX_BLOCK_SIZE];
+    private int size;
+    private boolean closed;
+
+    public BgzfOutputStream(OutputStream out) {
+        this(out, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param out   {@link OutputStream} to write compressed data
+     * @param level int, the compression level (0-9)
+     */
+    public BgzfOutputStream(OutputStream out, int level) {
+        this.out = Objects.requireNonNull(out, "Null stream");
+        this.deflater = new Deflater(level, true);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (size == BLOCK_SIZE) {
+            writeBlock();
+        }
+        buffer[size++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        Objects.requireNonNull(b, "Null buff");
+        while (len > 0) {
+            if (size == BLOCK_SIZE) {
+                writeBlock();
+            }
+            int n = Math.min(len, BLOCK_SIZE - size);
+            System.arraycopy(b, off, buffer, size, n);
+            size += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        deflater.reset();
+        deflater.setInput(buffer, 0, size);
+        deflater.finish();
+        int compressed = 0;
+        int max = block.length - HEADER_SIZE - FOOTER_SIZE;
+        while (!deflater.finished() && compressed < max) {
+            compressed += deflater.deflate(block, HEADER_SIZE + compressed, max - compressed);
+        }
+        if (!deflater.finished()) {
+            throw new IllegalStateException("Can't fit the block into " + block.length + " bytes");
+        }
+        System.arraycopy(HEADER, 0, block, 0, HEADER.length);
+        int total = HEADER_SIZE + compressed + FOOTER_SIZE;
+        int16(block, HEADER.length, total - 1);
+        crc.reset();
+        crc.update(buffer, 0, size);
+        int32(block, HEADER_SIZE + compressed, crc.getValue());
+        int32(block, HEADER_SIZE + compressed + 4, size);
+        out.write(block, 0, total);
+        size = 0;
+    }
+
+    private static void int16(byte[] b, int i, int v) {
+        b[i] = (byte) v;
+        b[i + 1] = (byte) (v >>> 8);
+    }
+
+    private static void int32(byte[] b, int i, long v) {
+        int16(b, i, (int) v);
+        int16(b, i + 2, (int) (v >>> 16));
+    }
+
+    /**
+     * Writes the current block, if it is not empty.
+     * Note: each flush ends a block, so frequent flushes worsen the compression.
+     *
+     * @throws IOException if I/O error occurs
+     */
+    @Override
+    public void flush() throws IOException {
+        if (size > 0) {
+            writeBlock();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            flush();
+            writeBlock(); // empty EOF marker
+            out.flush();
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+}
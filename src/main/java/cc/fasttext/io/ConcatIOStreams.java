@@ -0,0 +1,110 @@
+package cc.fasttext.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.LongStream;
+
+/**
+ * A view of a file system in which a single (virtual) uri, e.g. a directory or a glob,
+ * is the {@link ConcatInputStream concatenation} of several files, each followed by a line break.
+ * The {@link #blockOffsets(String) blocks} of the virtual file are the blocks of all parts,
+ * so the training threads are distributed across the files proportionally to their sizes,
+ * and start at file boundaries if there are enough files.
+ * All other uris are passed to the encapsulated file system as is.
+ */
+public class ConcatIOStreams implements IOStreams {
+    private final IOStreams fs;
+    private final String uri;
+    private final List<String> parts;
+    private final long[] starts;
+
+    /**
+     * @param fs    {@link IOStreams} the file system to read parts
+     * @param uri   String, the virtual uri
+     * @param parts List of file uris, not empty
+     * @throws IOException if I/O error occurs
+     */
+    public ConcatIOStreams(IOStreams fs, String uri, List<String> parts) throws IOException {
+        this.fs = Objects.requireNonNull(fs, "Null fs");
+        this.uri = Objects.requireNonNull(uri, "Null uri");
+        if (parts.isEmpty()) {
+            throw new IllegalArgumentException("No files for " + uri);
+        }
+        this.parts = Collections.unmodifiableList(new ArrayList<>(parts));
+        this.starts = new long[parts.size() + 1];
+        for (int i = 0; i < parts.size(); i++) {
+            starts[i + 1] = starts[i] + fs.size(parts.get(i)) + 1;
+        }
+    }
+
+    /**
+     * @return List of files which form the virtual one
+     */
+    public List<String> getParts() {
+        return parts;
+    }
+
+    @Override
+    public OutputStream createOutput(String uri) throws IOException {
+        return fs.createOutput(uri);
+    }
+
+    @Override
+    public InputStream openInput(String uri) throws IOException {
+        return this.uri.equals(uri) ? openScrollable(uri) : fs.openInput(uri);
+    }
+
+    @Override
+    public boolean canRead(String uri) {
+        return this.uri.equals(uri) || fs.canRead(uri);
+    }
+
+    @Override
+    public boolean canWrite(String uri) {
+        return fs.canWrite(uri);
+    }
+
+    @Override
+    public ScrollableInputStream openScrollable(String uri) throws IOException {
+        return this.uri.equals(uri) ? new ConcatInputStream(fs, parts, starts) : fs.openScrollable(uri);
+    }
+
+    @Override
+    public long size(String uri) throws IOException {
+        return this.uri.equals(uri) ? starts[parts.size()] : fs.size(uri);
+    }
+
+    @Override
+    public List<String> expand(String uri) throws IOException {
+        return this.uri.equals(uri) ? Collections.singletonList(uri) : fs.expand(uri);
+    }
+
+    @Override
+    public void rename(String from, String to) throws IOException {
+        fs.rename(from, to);
+    }
+
+    @Override
+    public long[] blockOffsets(String uri) throws IOException {
+        if (!this.uri.equals(uri)) {
+            return fs.blockOffsets(uri);
+        }
+        LongStream res = LongStream.empty();
+        for (int i = 0; i < parts.size(); i++) {
+            long start = starts[i];
+            res = LongStream.concat(res, Arrays.stream(fs.blockOffsets(parts.get(i))).map(x -> start + x));
+        }
+        return res.distinct().sorted().toArray();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[%s = %d files]", fs, uri, parts.size());
+    }
+}
@@ -0,0 +1,137 @@
+package cc.fasttext.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A {@link ScrollableInputStream} which is the concatenation of several files, each followed by a line break,
+ * so that the last line of a file never merges with the first line of the next one.
+ * The parts are opened lazily, only one at a time.
+ * As for a local file, {@link #read(byte[], int, int)} reads the requested number of bytes except at the end of stream.
+ * Not thread-safe.
+ *
+ * @see ConcatIOStreams
+ */
+public class ConcatInputStream extends ScrollableInputStream {
+    private static final byte SEPARATOR = '\n';
+
+    private final IOStreams fs;
+    private final List<String> parts;
+    private final long[] starts;
+
+    private int current = -1;
+    private ScrollableInputStream in;
+    private long pos;
+
+    /**
+     * @param fs     {@link IOStreams} to open the parts
+     * @param parts  List of uris
+     * @param starts array of start positions, one more than parts, the last one is the total length,
+     *               each part takes its size plus one byte for the separator
+     */
+    ConcatInputStream(IOStreams fs, List<String> parts, long[] starts) {
+        this.fs = Objects.requireNonNull(fs, "Null fs");
+        this.parts = Objects.requireNonNull(parts, "Null parts");
+        this.starts = Objects.requireNonNull(starts, "Null starts");
+    }
+
+    private int part(long pos) {
+        int i = Arrays.binarySearch(starts, pos);
+        // several empty parts could have the same start, take the last one:
+        if (i >= 0) {
+            while (i + 1 < starts.length && starts[i + 1] == pos) i++;
+            return i;
+        }
+        return -i - 2;
+    }
+
+    private ScrollableInputStream open(int i) throws IOException {
+        if (current == i) {
+            return in;
+        }
+        drop();
+        in = fs.openScrollable(parts.get(i));
+        current = i;
+        return in;
+    }
+
+    private void drop() throws IOException {
+        if (in == null) return;
+        try {
+            in.close();
+        } finally {
+            in = null;
+            current = -1;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] res = new byte[1];
+        return read(res, 0, 1) == -1 ? -1 : res[0] & 0xFF;
+    }
+
+    @SuppressWarnings("NullableProblems")
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.requireNonNull(b, "Null buff");
+        if (len == 0) {
+            return 0;
+        }
+        int res = 0;
+        while (res < len && pos < getLen()) {
+            int i = part(pos);
+            long local = pos - starts[i];
+            long size = starts[i + 1] - starts[i] - 1;
+            if (local == size) {
+                b[off + res++] = SEPARATOR;
+                pos++;
+                continue;
+            }
+            ScrollableInputStream in = open(i);
+            if (in.getPos() != local) {
+                in.seek(local);
+            }
+            int n = in.read(b, off + res, (int) Math.min(len - res, size - local));
+            if (n == -1) {
+                throw new EOFException("Unexpected end of " + parts.get(i) + " at " + local);
+            }
+            pos += n;
+            res += n;
+        }
+        return res == 0 ? -1 : res;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long res = Math.max(0, Math.min(n, getLen() - pos));
+        pos += res;
+        return res;
+    }
+
+    @Override
+    public void seek(long bytes) throws IOException {
+        if (bytes < 0 || bytes > getLen()) {
+            throw new IOException("Position is out of range: " + bytes);
+        }
+        pos = bytes;
+    }
+
+    @Override
+    public long getPos() {
+        return pos;
+    }
+
+    @Override
+    public long getLen() {
+        return starts[starts.length - 1];
+    }
+
+    @Override
+    public void close() throws IOException {
+        drop();
+    }
+}
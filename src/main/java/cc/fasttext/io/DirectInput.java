@@ -0,0 +1,35 @@
+package cc.fasttext.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A stream whose content is directly addressable in memory (e.g. a memory-mapped file),
+ * so that a reader can scan bytes in place instead of copying them into its own buffer.
+ * Implemented by {@link InputStream}s, the methods of this interface and {@code read} share the same position.
+ *
+ * @see WordReader
+ * @see cc.fasttext.io.impl.MappedInputStream
+ */
+public interface DirectInput {
+
+    /**
+     * Returns the max size of a window that can be requested.
+     *
+     * @return int, positive
+     */
+    int maxWindow();
+
+    /**
+     * Returns a read-only view of the next bytes of the stream starting from the current position,
+     * and advances the position past them.
+     * As with {@link java.io.InputStream#read(byte[], int, int)} of a local file,
+     * the window is shorter than requested only at the end of the stream.
+     *
+     * @param size int, the desired size of the window, not greater than {@link #maxWindow()}
+     * @return {@link ByteBuffer} with position 0 and limit equal to the number of bytes, or {@code null} at the end of stream
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if size is wrong
+     */
+    ByteBuffer nextWindow(int size) throws IOException, IllegalArgumentException;
+}
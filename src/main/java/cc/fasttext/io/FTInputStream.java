@@ -3,6 +3,8 @@ package cc.fasttext.io;
 import com.google.common.io.LittleEndianDataInputStream;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
@@ -17,6 +19,8 @@ import java.util.Objects;
  * @see com.google.common.io.LittleEndianDataInputStream
  */
 public class FTInputStream extends FilterInputStream {
+    // the max number of primitives to read at once:
+    static final int BULK_SIZE = 8192;
 
     public FTInputStream(InputStream in) {
         super(wrap(in));
@@ -79,6 +83,51 @@ public class FTInputStream extends FilterInputStream {
         return in().readDouble();
     }
 
+    /**
+     * Reads an array of ints in bulk, the same as calling {@link #readInt()} for each element, but much faster.
+     *
+     * @param array array of ints to fill
+     * @throws IOException an I/O error
+     */
+    public void readInts(int[] array) throws IOException {
+        byte[] buff = new byte[Math.min(array.length, BULK_SIZE) * Integer.BYTES];
+        for (int pos = 0, len; pos < array.length; pos += len) {
+            len = Math.min(BULK_SIZE, array.length - pos);
+            readFully(buff, 0, len * Integer.BYTES);
+            ByteBuffer.wrap(buff, 0, len * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(array, pos, len);
+        }
+    }
+
+    /**
+     * Reads an array of shorts in bulk, the same as calling {@link #readShort()} for each element, but much faster.
+     *
+     * @param array array of shorts to fill
+     * @throws IOException an I/O error
+     */
+    public void readShorts(short[] array) throws IOException {
+        byte[] buff = new byte[Math.min(array.length, BULK_SIZE) * Short.BYTES];
+        for (int pos = 0, len; pos < array.length; pos += len) {
+            len = Math.min(BULK_SIZE, array.length - pos);
+            readFully(buff, 0, len * Short.BYTES);
+            ByteBuffer.wrap(buff, 0, len * Short.BYTES).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(array, pos, len);
+        }
+    }
+
+    /**
+     * Reads an array of floats in bulk, the same as calling {@link #readFloat()} for each element, but much faster.
+     *
+     * @param array array of floats to fill
+     * @throws IOException an I/O error
+     */
+    public void readFloats(float[] array) throws IOException {
+        byte[] buff = new byte[Math.min(array.length, BULK_SIZE) * Float.BYTES];
+        for (int pos = 0, len; pos < array.length; pos += len) {
+            len = Math.min(BULK_SIZE, array.length - pos);
+            readFully(buff, 0, len * Float.BYTES);
+            ByteBuffer.wrap(buff, 0, len * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(array, pos, len);
+        }
+    }
+
     /**
      * Reads an array of bytes from input stream till specified end character
      *
@@ -6,6 +6,8 @@ import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 import java.util.Objects;
 
@@ -66,6 +68,54 @@ public class FTOutputStream extends FilterOutputStream {
         out().writeShort(v);
     }
 
+    /**
+     * Writes an array of ints in bulk, the same as calling {@link #writeInt(int)} for each element, but much faster.
+     *
+     * @param array array of ints
+     * @throws IOException an I/O error
+     */
+    public void writeInts(int[] array) throws IOException {
+        ByteBuffer buff = ByteBuffer.allocate(Math.min(array.length, FTInputStream.BULK_SIZE) * Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        for (int pos = 0, len; pos < array.length; pos += len) {
+            len = Math.min(FTInputStream.BULK_SIZE, array.length - pos);
+            buff.asIntBuffer().put(array, pos, len);
+            out.write(buff.array(), 0, len * Integer.BYTES);
+        }
+    }
+
+    /**
+     * Writes an array of shorts in bulk, the same as calling {@link #writeShort(int)} for each element, but much faster.
+     *
+     * @param array array of shorts
+     * @throws IOException an I/O error
+     */
+    public void writeShorts(short[] array) throws IOException {
+        ByteBuffer buff = ByteBuffer.allocate(Math.min(array.length, FTInputStream.BULK_SIZE) * Short.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        for (int pos = 0, len; pos < array.length; pos += len) {
+            len = Math.min(FTInputStream.BULK_SIZE, array.length - pos);
+            buff.asShortBuffer().put(array, pos, len);
+            out.write(buff.array(), 0, len * Short.BYTES);
+        }
+    }
+
+    /**
+     * Writes an array of floats in bulk, the same as calling {@link #writeFloat(float)} for each element, but much faster.
+     *
+     * @param array array of floats
+     * @throws IOException an I/O error
+     */
+    public void writeFloats(float[] array) throws IOException {
+        ByteBuffer buff = ByteBuffer.allocate(Math.min(array.length, FTInputStream.BULK_SIZE) * Float.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        for (int pos = 0, len; pos < array.length; pos += len) {
+            len = Math.min(FTInputStream.BULK_SIZE, array.length - pos);
+            buff.asFloatBuffer().put(array, pos, len);
+            out.write(buff.array(), 0, len * Float.BYTES);
+        }
+    }
+
     @Override
     public void close() throws IOException {
         out.close();
@@ -0,0 +1,152 @@
+package cc.fasttext.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A decorator which transparently reads and writes gzip files (with {@code .gz} extension).
+ * Files are written in the {@link BgzfOutputStream BGZF} format.
+ * BGZF files are {@link #openScrollable(String) opened} as {@link BgzfInputStream}s,
+ * so that each training thread seeks to its own block and decompresses only it;
+ * the {@link #blockOffsets(String) block offsets} are the BGZF blocks, so the thread start positions are aligned to them.
+ * Ordinary gzip files can not be read from the middle, so they are decompressed once into a local temporary file
+ * (see {@link SpoolingIOStreams}).
+ * All positions and {@link #size(String) sizes} are in the uncompressed space.
+ *
+ * @see IOStreams#gzip()
+ */
+public class GzipIOStreams implements IOStreams {
+    private static final int BUFF_SIZE = 64 * 1024;
+
+    private final IOStreams fs;
+    private final Map<String, Optional<BgzfInputStream.Index>> indexes = new ConcurrentHashMap<>();
+    private final SpoolingIOStreams spool;
+
+    public GzipIOStreams(IOStreams fs) {
+        this.fs = Objects.requireNonNull(fs, "Null fs");
+        this.spool = new SpoolingIOStreams(this, null);
+    }
+
+    /**
+     * Answers {@code true} if the file is expected to be compressed.
+     *
+     * @param uri String
+     * @return boolean
+     */
+    public static boolean isGzip(String uri) {
+        return uri.toLowerCase(Locale.ROOT).endsWith(".gz");
+    }
+
+    /**
+     * Returns the BGZF index of the file, it is built on the first call.
+     *
+     * @param uri String, gzip file
+     * @return Optional around {@link BgzfInputStream.Index}, empty if it is not a BGZF file
+     * @throws IOException if I/O error occurs
+     */
+    private Optional<BgzfInputStream.Index> index(String uri) throws IOException {
+        try {
+            return indexes.computeIfAbsent(uri, u -> {
+                try (ScrollableInputStream in = fs.openScrollable(u)) {
+                    byte[] header = new byte[16];
+                    int length = 0;
+                    int n;
+                    while (length < header.length && (n = in.read(header, length, header.length - length)) != -1) {
+                        length += n;
+                    }
+                    if (!BgzfInputStream.isBgzf(header, length)) {
+                        return Optional.empty();
+                    }
+                    return Optional.of(BgzfInputStream.Index.build(in));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public OutputStream createOutput(String uri) throws IOException {
+        OutputStream res = fs.createOutput(uri);
+        return isGzip(uri) ? new BgzfOutputStream(res) : res;
+    }
+
+    @Override
+    public InputStream openInput(String uri) throws IOException {
+        if (!isGzip(uri)) {
+            return fs.openInput(uri);
+        }
+        // GZIPInputStream may stop at a member boundary if the underlying stream has no bytes available,
+        // which is likely for a BGZF file of many small members:
+        Optional<BgzfInputStream.Index> index = index(uri);
+        if (index.isPresent()) {
+            return new BgzfInputStream(fs.openScrollable(uri), index.get());
+        }
+        return new GZIPInputStream(fs.openInput(uri), BUFF_SIZE);
+    }
+
+    @Override
+    public boolean canRead(String uri) {
+        return fs.canRead(uri);
+    }
+
+    @Override
+    public boolean canWrite(String uri) {
+        return fs.canWrite(uri);
+    }
+
+    @Override
+    public ScrollableInputStream openScrollable(String uri) throws IOException {
+        if (!isGzip(uri)) {
+            return fs.openScrollable(uri);
+        }
+        Optional<BgzfInputStream.Index> index = index(uri);
+        if (index.isPresent()) {
+            return new BgzfInputStream(fs.openScrollable(uri), index.get());
+        }
+        return spool.openScrollable(uri);
+    }
+
+    @Override
+    public long size(String uri) throws IOException {
+        if (!isGzip(uri)) {
+            return fs.size(uri);
+        }
+        Optional<BgzfInputStream.Index> index = index(uri);
+        return index.isPresent() ? index.get().length() : spool.size(uri);
+    }
+
+    @Override
+    public List<String> expand(String uri) throws IOException {
+        return fs.expand(uri);
+    }
+
+    @Override
+    public void rename(String from, String to) throws IOException {
+        fs.rename(from, to);
+    }
+
+    @Override
+    public long[] blockOffsets(String uri) throws IOException {
+        if (!isGzip(uri)) {
+            return fs.blockOffsets(uri);
+        }
+        return index(uri).map(BgzfInputStream.Index::offsets).orElseGet(() -> new long[]{0});
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[gzip]", fs);
+    }
+}
@@ -7,6 +7,8 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -64,6 +66,8 @@ public interface IOStreams {
 
     /**
      * Opens a file to read with seek supporting.
+     * The default implementation re-opens the {@link #openInput(String) input} on each backward seek,
+     * file systems which can not seek natively should consider {@link #spooled()}.
      *
      * @param uri, the file URI
      * @return {@link ScrollableInputStream}
@@ -83,6 +87,91 @@ public interface IOStreams {
         return openScrollable(uri).getLen();
     }
 
+    /**
+     * Lists the files denoted by the uri:
+     * the uri itself if it is a readable file, all files inside if it is a directory, or all matching files if it is a glob.
+     * The default implementation knows nothing about directories and globs.
+     *
+     * @param uri, the file, directory or glob URI
+     * @return List of file URIs, sorted, possibly empty
+     * @throws IOException if I/O error occurs
+     */
+    default List<String> expand(String uri) throws IOException {
+        return canRead(uri) ? Collections.singletonList(uri) : Collections.emptyList();
+    }
+
+    /**
+     * Renames (moves) a file, replacing the target if it exists.
+     * Used to publish a completely written file (e.g. a checkpoint) under its final name,
+     * so that a reader never sees a partially written one.
+     * The default implementation just copies the content, it is neither atomic nor removes the source,
+     * file systems which support renaming should override it.
+     *
+     * @param from, the source file URI
+     * @param to,   the target file URI
+     * @throws IOException if I/O error occurs
+     */
+    default void rename(String from, String to) throws IOException {
+        try (InputStream in = openInput(from); OutputStream out = createOutput(to)) {
+            byte[] buffer = new byte[8 * 1024];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+        }
+    }
+
+    /**
+     * Returns the start offsets of the storage blocks the file consists of (e.g. HDFS blocks), in ascending order.
+     * Reading within a single block is usually cheaper than across the boundary,
+     * so the trainer aligns the thread start positions to these offsets if there are enough blocks.
+     * By default the whole file is a single block.
+     *
+     * @param uri, the file URI
+     * @return array of longs, not empty, the first element is always {@code 0}
+     * @throws IOException if I/O error occurs
+     */
+    default long[] blockOffsets(String uri) throws IOException {
+        return new long[]{0};
+    }
+
+    /**
+     * Returns a view of this file system whose {@link #openScrollable(String) scrollable streams}
+     * prefetch the next blocks asynchronously on a background thread.
+     * Useful for slow (remote) file systems, where the training threads would otherwise wait for I/O.
+     *
+     * @param blocks    int, the number of blocks to read ahead, positive
+     * @param blockSize int, the size of block in bytes, positive
+     * @return {@link IOStreams}
+     * @see ReadAheadInputStream
+     */
+    default IOStreams readAhead(int blocks, int blockSize) {
+        return new ReadAheadIOStreams(this, blocks, blockSize);
+    }
+
+    /**
+     * Returns a view of this file system which reads every source only once into a local temporary file,
+     * and serves all {@link #openScrollable(String) scrollable streams} and {@link #size(String) sizes} from it.
+     * Intended for file systems which can not seek, for which the {@link #openScrollable(String) default}
+     * implementation re-reads the source on each backward seek.
+     *
+     * @return {@link SpoolingIOStreams}
+     */
+    default SpoolingIOStreams spooled() {
+        return new SpoolingIOStreams(this, null);
+    }
+
+    /**
+     * Returns a view of this file system which transparently decompresses (and compresses) {@code *.gz} files.
+     * The files in the block gzip format (BGZF) can be read from any position without decompressing the preceding data.
+     * The {@link cc.fasttext.FastText.Factory} reads the training data through this view, other files are not affected.
+     *
+     * @return {@link GzipIOStreams}
+     */
+    default IOStreams gzip() {
+        return new GzipIOStreams(this);
+    }
+
     /**
      * Makes an URI from String.
      *
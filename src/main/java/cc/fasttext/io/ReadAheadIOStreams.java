@@ -0,0 +1,83 @@
+package cc.fasttext.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Internal, the part of {@link IOStreams}.
+ * A decorator which wraps all {@link ScrollableInputStream scrollable streams} as {@link ReadAheadInputStream}s.
+ * Streams which are already in memory ({@link DirectInput}) are returned as is.
+ *
+ * @see IOStreams#readAhead(int, int)
+ */
+class ReadAheadIOStreams implements IOStreams {
+    private final IOStreams fs;
+    private final int blocks;
+    private final int blockSize;
+
+    ReadAheadIOStreams(IOStreams fs, int blocks, int blockSize) {
+        this.fs = Objects.requireNonNull(fs, "Null fs");
+        if (blocks <= 0 || blockSize <= 0) {
+            throw new IllegalArgumentException("Wrong read-ahead settings: blocks=" + blocks + ", size=" + blockSize);
+        }
+        this.blocks = blocks;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public OutputStream createOutput(String uri) throws IOException {
+        return fs.createOutput(uri);
+    }
+
+    @Override
+    public InputStream openInput(String uri) throws IOException {
+        return fs.openInput(uri);
+    }
+
+    @Override
+    public boolean canRead(String uri) {
+        return fs.canRead(uri);
+    }
+
+    @Override
+    public boolean canWrite(String uri) {
+        return fs.canWrite(uri);
+    }
+
+    @Override
+    public ScrollableInputStream openScrollable(String uri) throws IOException {
+        ScrollableInputStream res = fs.openScrollable(uri);
+        if (res instanceof DirectInput) {
+            return res;
+        }
+        return new ReadAheadInputStream(res, blocks, blockSize);
+    }
+
+    @Override
+    public long size(String uri) throws IOException {
+        return fs.size(uri);
+    }
+
+    @Override
+    public List<String> expand(String uri) throws IOException {
+        return fs.expand(uri);
+    }
+
+    @Override
+    public void rename(String from, String to) throws IOException {
+        fs.rename(from, to);
+    }
+
+    @Override
+    public long[] blockOffsets(String uri) throws IOException {
+        return fs.blockOffsets(uri);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[read-ahead %d x %d]", fs, blocks, blockSize);
+    }
+}
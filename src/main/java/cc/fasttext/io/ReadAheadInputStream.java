@@ -0,0 +1,253 @@
+package cc.fasttext.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ScrollableInputStream} decorator which prefetches the next blocks of the encapsulated stream
+ * on a background I/O thread, so that the reader thread does not wait for a (slow, e.g. hdfs or network) disk.
+ * The prefetched blocks are discarded on {@link #seek(long) seek} outside of the current block.
+ * Each instance owns a single daemon thread, which is stopped on {@link #close()}.
+ * Unlike many other streams, the {@link #read(byte[], int, int)} method always reads the requested number of bytes,
+ * except at the end of stream.
+ * Not thread-safe.
+ * <p>
+ * The defaults can be set by the system properties {@code io.readahead.blocks} and {@code io.readahead.block.size}.
+ *
+ * @see IOStreams#readAhead(int, int)
+ */
+public class ReadAheadInputStream extends ScrollableInputStream {
+    public static final int DEFAULT_BLOCKS = Integer.parseInt(System.getProperty("io.readahead.blocks", "3"));
+    public static final int DEFAULT_BLOCK_SIZE = Integer.parseInt(System.getProperty("io.readahead.block.size", String.valueOf(1 << 20)));
+
+    private final ScrollableInputStream in;
+    private final int blocks;
+    private final int blockSize;
+    private final long size;
+    private final ExecutorService executor;
+    private final Queue<Future<Block>> pending = new ArrayDeque<>();
+    private final Queue<byte[]> free = new ConcurrentLinkedQueue<>();
+
+    private Block current;
+    private int offset;
+    // the position of the next block to schedule:
+    private long next;
+
+    /**
+     * @param in        {@link ScrollableInputStream} to wrap, must not be used by anything else after
+     * @param blocks    int, the number of blocks to prefetch, positive
+     * @param blockSize int, the size of block in bytes, positive
+     * @throws IOException if I/O error occurs
+     */
+    public ReadAheadInputStream(ScrollableInputStream in, int blocks, int blockSize) throws IOException {
+        if (blocks <= 0 || blockSize <= 0) {
+            throw new IllegalArgumentException("Wrong read-ahead settings: blocks=" + blocks + ", size=" + blockSize);
+        }
+        this.in = Objects.requireNonNull(in, "Null stream");
+        this.blocks = blocks;
+        this.blockSize = blockSize;
+        this.size = in.getLen();
+        this.next = in.getPos();
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread res = new Thread(r, "read-ahead");
+            res.setDaemon(true);
+            return res;
+        });
+    }
+
+    /**
+     * Schedules blocks to fill the queue.
+     */
+    private void schedule() {
+        while (pending.size() < blocks && next < size) {
+            long pos = next;
+            pending.add(executor.submit(() -> fetch(pos)));
+            next += blockSize;
+        }
+    }
+
+    /**
+     * Reads a block, runs on the background thread.
+     *
+     * @param pos long, the position of block
+     * @return {@link Block}
+     * @throws IOException if I/O error occurs
+     */
+    private Block fetch(long pos) throws IOException {
+        byte[] data = free.poll();
+        if (data == null) {
+            data = new byte[blockSize];
+        }
+        if (in.getPos() != pos) {
+            in.seek(pos);
+        }
+        int length = 0;
+        int res;
+        while (length < blockSize && (res = in.read(data, length, blockSize - length)) != -1) {
+            length += res;
+        }
+        return new Block(pos, data, length);
+    }
+
+    /**
+     * Makes sure there are some bytes available in the current block.
+     *
+     * @return false in case of end of stream
+     * @throws IOException if I/O error occurs
+     */
+    private boolean ensure() throws IOException {
+        if (current != null && offset < current.length) {
+            return true;
+        }
+        if (current != null) {
+            if (current.length < blockSize) { // the last block
+                return false;
+            }
+            free.add(current.data);
+            current = null;
+        }
+        schedule();
+        Future<Block> future = pending.poll();
+        if (future == null) {
+            return false;
+        }
+        current = await(future);
+        offset = 0;
+        schedule();
+        return current.length != 0;
+    }
+
+    private static Block await(Future<Block> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a block");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            throw new IOException("Can't read block", cause);
+        }
+    }
+
+    /**
+     * Discards all prefetched blocks.
+     * The running task (if any) is not interrupted (some streams do not like it),
+     * it will be just ignored, the next tasks seek the stream themselves.
+     */
+    private void invalidate() {
+        Future<Block> f;
+        while ((f = pending.poll()) != null) {
+            f.cancel(false);
+        }
+        if (current != null) {
+            free.add(current.data);
+            current = null;
+        }
+        offset = 0;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensure()) {
+            return -1;
+        }
+        return current.data[offset++] & 0xFF;
+    }
+
+    @SuppressWarnings("NullableProblems")
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.requireNonNull(b, "Null buff");
+        if (len == 0) {
+            return 0;
+        }
+        int res = 0;
+        while (res < len && ensure()) {
+            int n = Math.min(len - res, current.length - offset);
+            System.arraycopy(current.data, offset, b, off + res, n);
+            offset += n;
+            res += n;
+        }
+        return res == 0 ? -1 : res;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long pos = getPos();
+        long res = Math.max(0, Math.min(n, size - pos));
+        seek(pos + res);
+        return res;
+    }
+
+    @Override
+    public void seek(long bytes) throws IOException {
+        if (bytes < 0 || bytes > size) {
+            throw new IOException("Position is out of range: " + bytes);
+        }
+        if (current != null && bytes >= current.start && bytes <= current.start + current.length) {
+            offset = (int) (bytes - current.start);
+            return;
+        }
+        invalidate();
+        next = bytes;
+    }
+
+    @Override
+    public long getPos() {
+        if (current == null) {
+            return next - (long) pending.size() * blockSize;
+        }
+        return current.start + offset;
+    }
+
+    @Override
+    public long getLen() {
+        return size;
+    }
+
+    @Override
+    public int available() {
+        return current == null ? 0 : current.length - offset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        invalidate();
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            in.close();
+        }
+    }
+
+    private static class Block {
+        private final long start;
+        private final byte[] data;
+        private final int length;
+
+        private Block(long start, byte[] data, int length) {
+            this.start = start;
+            this.data = data;
+            this.length = length;
+        }
+    }
+}
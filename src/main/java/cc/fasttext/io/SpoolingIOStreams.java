@@ -0,0 +1,285 @@
+package cc.fasttext.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A decorator for file systems which can not seek (e.g. web).
+ * Each source is read only once, on a background thread, into a local temporary file (a spool),
+ * and all {@link ScrollableInputStream scrollable streams} opened for the same uri are served from that file,
+ * so neither {@link ScrollableInputStream#seek(long) seek} nor {@link ScrollableInputStream#getLen() getLen}
+ * re-read the source (as {@link DefScrollInStreamImpl the default implementation} does).
+ * A stream can read the already downloaded part while the rest is still being spooled.
+ * The temporary files are deleted on {@link #close()} or on JVM exit.
+ *
+ * @see IOStreams#spooled()
+ */
+public class SpoolingIOStreams implements IOStreams, Closeable {
+    private static final int BUFF_SIZE = 64 * 1024;
+
+    private final IOStreams fs;
+    private final Path dir;
+    private final Map<String, Spool> spools = new ConcurrentHashMap<>();
+
+    /**
+     * @param fs  {@link IOStreams} the source file system
+     * @param dir {@link Path} the directory for temporary files, null for the default one
+     */
+    public SpoolingIOStreams(IOStreams fs, Path dir) {
+        this.fs = Objects.requireNonNull(fs, "Null fs");
+        this.dir = dir;
+    }
+
+    private Spool spool(String uri) throws IOException {
+        try {
+            return spools.computeIfAbsent(uri, u -> {
+                try {
+                    return new Spool(u);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public OutputStream createOutput(String uri) throws IOException {
+        return fs.createOutput(uri);
+    }
+
+    @Override
+    public InputStream openInput(String uri) throws IOException {
+        return fs.openInput(uri);
+    }
+
+    @Override
+    public boolean canRead(String uri) {
+        return fs.canRead(uri);
+    }
+
+    @Override
+    public boolean canWrite(String uri) {
+        return fs.canWrite(uri);
+    }
+
+    @Override
+    public ScrollableInputStream openScrollable(String uri) throws IOException {
+        return new SpooledInputStream(spool(uri));
+    }
+
+    @Override
+    public long size(String uri) throws IOException {
+        return spool(uri).length();
+    }
+
+    @Override
+    public List<String> expand(String uri) throws IOException {
+        return fs.expand(uri);
+    }
+
+    @Override
+    public void rename(String from, String to) throws IOException {
+        fs.rename(from, to);
+    }
+
+    @Override
+    public long[] blockOffsets(String uri) throws IOException {
+        return fs.blockOffsets(uri);
+    }
+
+    /**
+     * Deletes all temporary files.
+     * The streams opened before become unusable.
+     *
+     * @throws IOException if I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        IOException ex = null;
+        for (String uri : spools.keySet()) {
+            try {
+                spools.remove(uri).close();
+            } catch (IOException e) {
+                if (ex == null) {
+                    ex = e;
+                } else {
+                    ex.addSuppressed(e);
+                }
+            }
+        }
+        if (ex != null) throw ex;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[spooled]", fs);
+    }
+
+    /**
+     * The temporary copy of a source, which is being filled on a background thread.
+     */
+    private class Spool implements Runnable, Closeable {
+        private final String uri;
+        private final Path file;
+        private final FileChannel channel;
+        // guarded by this:
+        private long written;
+        private boolean done;
+        private IOException error;
+
+        private Spool(String uri) throws IOException {
+            this.uri = uri;
+            this.file = dir == null ? Files.createTempFile("fasttext-", ".spool") : Files.createTempFile(dir, "fasttext-", ".spool");
+            file.toFile().deleteOnExit();
+            this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            Thread thread = new Thread(this, "spool-" + file.getFileName());
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void run() {
+            try (InputStream in = fs.openInput(uri)) {
+                byte[] buffer = new byte[BUFF_SIZE];
+                long pos = 0;
+                int res;
+                while ((res = in.read(buffer)) != -1) {
+                    ByteBuffer bb = ByteBuffer.wrap(buffer, 0, res);
+                    while (bb.hasRemaining()) {
+                        channel.write(bb, pos + bb.position());
+                    }
+                    pos += res;
+                    synchronized (this) {
+                        written = pos;
+                        notifyAll();
+                    }
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    error = e;
+                }
+            } finally {
+                synchronized (this) {
+                    done = true;
+                    notifyAll();
+                }
+            }
+        }
+
+        /**
+         * Waits until the specified number of bytes is spooled or the source is exhausted.
+         *
+         * @param end long, the desired number of bytes
+         * @return long, the number of available bytes
+         * @throws IOException if the source can not be read
+         */
+        private synchronized long await(long end) throws IOException {
+            try {
+                while (!done && written < end) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while spooling " + uri);
+            }
+            if (error != null && written < end) {
+                throw new IOException("Can't read " + uri, error);
+            }
+            return written;
+        }
+
+        private long length() throws IOException {
+            return await(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                channel.close();
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * A stream over {@link Spool}, it uses positional reads, so any number of them can share the same file.
+     * As for a local file, {@link #read(byte[], int, int)} reads the requested number of bytes except at the end of stream.
+     */
+    private static class SpooledInputStream extends ScrollableInputStream {
+        private final Spool spool;
+        private long pos;
+
+        private SpooledInputStream(Spool spool) {
+            this.spool = spool;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] res = new byte[1];
+            return read(res, 0, 1) == -1 ? -1 : res[0] & 0xFF;
+        }
+
+        @SuppressWarnings("NullableProblems")
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            Objects.requireNonNull(b, "Null buff");
+            if (len == 0) {
+                return 0;
+            }
+            long available = spool.await(pos + len);
+            if (available <= pos) {
+                return -1;
+            }
+            int n = (int) Math.min(len, available - pos);
+            ByteBuffer bb = ByteBuffer.wrap(b, off, n);
+            while (bb.hasRemaining()) {
+                if (spool.channel.read(bb, pos + bb.position() - off) == -1) {
+                    throw new IOException("Unexpected end of " + spool.file);
+                }
+            }
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long res = Math.max(0, Math.min(n, spool.await(n > Long.MAX_VALUE - pos ? Long.MAX_VALUE : pos + n) - pos));
+            pos += res;
+            return res;
+        }
+
+        @Override
+        public void seek(long bytes) throws IOException {
+            if (bytes < 0 || bytes > spool.await(bytes)) {
+                throw new IOException("Position is out of range: " + bytes);
+            }
+            pos = bytes;
+        }
+
+        @Override
+        public long getPos() {
+            return pos;
+        }
+
+        @Override
+        public long getLen() throws IOException {
+            return spool.length();
+        }
+    }
+}
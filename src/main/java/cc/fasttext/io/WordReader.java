@@ -4,6 +4,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
@@ -14,6 +15,8 @@ import java.util.stream.StreamSupport;
  * The buffered stream reader which allows to read word-tokens from any binary {@link InputStream input stream}.
  * Not thread-safe.
  * Expected to be faster then standard {@link java.io.BufferedReader BufferedReader}.
+ * If the stream is a {@link DirectInput} (e.g. a memory-mapped file), the bytes are scanned in place,
+ * without copying them into the reader's own buffer.
  * <p>
  * Created by @szuev on 20.12.2017.
  */
@@ -25,7 +28,10 @@ public class WordReader implements Closeable {
     private final String newLine;
     private final byte[] delimiters;
     private final byte[] buffer;
+    private final DirectInput direct;
+    private final int capacity;
 
+    private ByteBuffer window;
     private int index;
     private int res;
     private int start;
@@ -46,7 +52,9 @@ public class WordReader implements Closeable {
         if (bufferSize <= 0) {
             throw new IllegalArgumentException("Buffer size must be positive number");
         }
-        this.buffer = new byte[bufferSize];
+        this.direct = in instanceof DirectInput && bufferSize <= ((DirectInput) in).maxWindow() ? (DirectInput) in : null;
+        this.buffer = direct == null ? new byte[bufferSize] : null;
+        this.capacity = bufferSize;
         this.newLine = Objects.requireNonNull(newLineSymbol, "New line symbol can not be empty");
         if (delimiters.length == 0) {
             throw new IllegalArgumentException("No delimiters specified.");
@@ -79,27 +87,48 @@ public class WordReader implements Closeable {
      * @see InputStream#read(byte[], int, int)
      */
     public int nextByte() throws IOException {
-        if (index == buffer.length || res == 0) {
+        if (index == capacity || res == 0) {
             if (start != 0) {
-                if (buffer.length <= start) {
+                if (capacity <= start) {
                     start = 0;
                 } else {
-                    tmp = new byte[buffer.length - start];
-                    System.arraycopy(buffer, start, tmp, 0, tmp.length);
+                    tmp = new byte[capacity - start];
+                    copy(start, tmp, 0, tmp.length);
                 }
             }
-            res = in.read(buffer, 0, buffer.length);
+            res = fill();
             if (res == -1) {
                 return END;
             }
             index = 0;
         }
         if (index < res) {
-            return buffer[index++];
+            return direct == null ? buffer[index++] : window.get(index++);
         }
         return END;
     }
 
+    private int fill() throws IOException {
+        if (direct == null) {
+            return in.read(buffer, 0, capacity);
+        }
+        ByteBuffer next = direct.nextWindow(capacity);
+        if (next == null) { // keep the previous window, as the buffer keeps the last bytes
+            return -1;
+        }
+        window = next;
+        return next.limit();
+    }
+
+    private void copy(int from, byte[] dst, int offset, int length) {
+        if (direct == null) {
+            System.arraycopy(buffer, from, dst, offset, length);
+            return;
+        }
+        window.position(from);
+        window.get(dst, offset, length);
+    }
+
     /**
      * Reads next word token from the underling input stream.
      *
@@ -136,6 +165,7 @@ public class WordReader implements Closeable {
     protected void reset() {
         start = index = res = 0;
         tmp = null;
+        window = null;
     }
 
     /**
@@ -144,7 +174,7 @@ public class WordReader implements Closeable {
      * @return boolean
      */
     protected boolean isEnd() {
-        return res == -1 || res != 0 && res < buffer.length && index >= res;
+        return res == -1 || res != 0 && res < capacity && index >= res;
     }
 
     protected boolean isDelimiter(int b) {
@@ -167,15 +197,28 @@ public class WordReader implements Closeable {
                 this.start = start + len;
             } else {
                 System.arraycopy(tmp, 0, bytes, 0, tmp.length);
-                System.arraycopy(buffer, 0, bytes, tmp.length, len - tmp.length);
+                copy(0, bytes, tmp.length, len - tmp.length);
             }
             str = new String(bytes, charset);
-        } else {
+        } else if (direct == null) {
             str = new String(buffer, start, len, charset);
+        } else {
+            byte[] bytes = new byte[len];
+            copy(start, bytes, 0, len);
+            str = new String(bytes, charset);
         }
         return str;
     }
 
+    /**
+     * Returns the number of bytes which have been read from the underlying stream into the buffer but not consumed yet.
+     *
+     * @return int
+     */
+    protected int buffered() {
+        return index < res ? res - index : 0;
+    }
+
     @Override
     public void close() throws IOException {
         in.close();
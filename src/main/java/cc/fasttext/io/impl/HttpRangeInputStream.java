@@ -0,0 +1,167 @@
+package cc.fasttext.io.impl;
+
+import cc.fasttext.io.ScrollableInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Objects;
+
+/**
+ * A {@link ScrollableInputStream} over a http(s) resource which supports range requests
+ * (<a href='https://tools.ietf.org/html/rfc7233'>RFC 7233</a>).
+ * The stream keeps a single connection open while reading sequentially,
+ * a {@link #seek(long) seek} just starts a new range request from the new position on the next read,
+ * so no byte before the position is downloaded.
+ * Not thread-safe.
+ */
+public class HttpRangeInputStream extends ScrollableInputStream {
+    private static final int BUFF_SIZE = 64 * 1024;
+    // seeking forward within this distance just skips bytes of the current response:
+    private static final int SKIP_THRESHOLD = 64 * 1024;
+
+    private final URL url;
+    private final long size;
+
+    private long pos;
+    private InputStream in;
+
+    /**
+     * @param url  {@link URL}
+     * @param size long, the length of the resource, see {@link #rangeLength(URL)}
+     */
+    public HttpRangeInputStream(URL url, long size) {
+        this.url = Objects.requireNonNull(url, "Null url");
+        if (size < 0) {
+            throw new IllegalArgumentException("Negative size: " + size);
+        }
+        this.size = size;
+    }
+
+    /**
+     * Sends a {@code HEAD} request to find out if the resource can be read by ranges.
+     *
+     * @param url {@link URL}
+     * @return long, the length of the resource or {@code -1} if the server does not support byte ranges for it
+     * @throws IOException if I/O error occurs
+     */
+    public static long rangeLength(URL url) throws IOException {
+        HttpURLConnection res = (HttpURLConnection) url.openConnection();
+        try {
+            res.setRequestMethod("HEAD");
+            if (res.getResponseCode() != HttpURLConnection.HTTP_OK || !"bytes".equalsIgnoreCase(res.getHeaderField("Accept-Ranges"))) {
+                return -1;
+            }
+            return res.getContentLengthLong();
+        } finally {
+            res.disconnect();
+        }
+    }
+
+    private InputStream open() throws IOException {
+        if (in != null) {
+            return in;
+        }
+        HttpURLConnection res = (HttpURLConnection) url.openConnection();
+        res.setRequestProperty("Range", "bytes=" + pos + "-");
+        int code = res.getResponseCode();
+        if (code != HttpURLConnection.HTTP_PARTIAL && (code != HttpURLConnection.HTTP_OK || pos != 0)) {
+            res.disconnect();
+            throw new IOException("Unexpected response " + code + " for range " + pos + "- of " + url);
+        }
+        return in = new BufferedInputStream(res.getInputStream(), BUFF_SIZE);
+    }
+
+    private void drop() throws IOException {
+        if (in == null) return;
+        try {
+            in.close();
+        } finally {
+            in = null;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (pos >= size) {
+            return -1;
+        }
+        int res = open().read();
+        if (res != -1) {
+            pos++;
+        }
+        return res;
+    }
+
+    /**
+     * Reads the requested number of bytes, less only at the end of stream.
+     *
+     * @param b   byte array
+     * @param off int
+     * @param len int
+     * @return int, the number of bytes read or {@code -1}
+     * @throws IOException if I/O error occurs
+     */
+    @SuppressWarnings("NullableProblems")
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.requireNonNull(b, "Null buff");
+        if (len == 0) {
+            return 0;
+        }
+        if (pos >= size) {
+            return -1;
+        }
+        InputStream in = open();
+        int res = 0;
+        int n;
+        while (res < len && (n = in.read(b, off + res, len - res)) != -1) {
+            res += n;
+        }
+        pos += res;
+        return res == 0 ? -1 : res;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long res = Math.max(0, Math.min(n, size - pos));
+        seek(pos + res);
+        return res;
+    }
+
+    @Override
+    public void seek(long bytes) throws IOException {
+        if (bytes < 0 || bytes > size) {
+            throw new IOException("Position is out of range: " + bytes);
+        }
+        if (in != null && bytes >= pos && bytes - pos <= SKIP_THRESHOLD) {
+            while (pos < bytes) {
+                long n = in.skip(bytes - pos);
+                if (n <= 0) break;
+                pos += n;
+            }
+            if (pos == bytes) {
+                return;
+            }
+        }
+        drop();
+        pos = bytes;
+    }
+
+    @Override
+    public long getPos() {
+        return pos;
+    }
+
+    @Override
+    public long getLen() {
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        drop();
+    }
+}
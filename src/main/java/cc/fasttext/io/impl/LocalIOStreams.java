@@ -7,16 +7,43 @@ import org.apache.commons.lang.StringUtils;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementation of {@link IOStreams} to work with local file system.
+ * Scrollable streams for large files can be {@link MappedInputStream memory-mapped},
+ * the threshold is specified in the constructor or by the system property {@code local.mmap.threshold} (in bytes),
+ * by default the mapping is disabled.
  * <p>
  * Created by @szuev on 30.10.2017.
  */
 public class LocalIOStreams implements IOStreams {
+    private static final String GLOB_CHARS = "*?[{";
+    public static final long MMAP_THRESHOLD = Long.parseLong(System.getProperty("local.mmap.threshold", String.valueOf(Long.MAX_VALUE)));
+
+    private final long mmapThreshold;
+
+    public LocalIOStreams() {
+        this(MMAP_THRESHOLD);
+    }
+
+    /**
+     * @param mmapThreshold long, the min size of file to be opened as {@link MappedInputStream},
+     *                      {@code 0} to map all files, {@link Long#MAX_VALUE} to disable mapping
+     */
+    public LocalIOStreams(long mmapThreshold) {
+        if (mmapThreshold < 0) throw new IllegalArgumentException("Negative threshold: " + mmapThreshold);
+        this.mmapThreshold = mmapThreshold;
+    }
 
     @Override
     public OutputStream createOutput(String uri) throws IOException {
@@ -69,7 +96,65 @@ public class LocalIOStreams implements IOStreams {
 
     @Override
     public ScrollableInputStream openScrollable(String uri) throws IOException {
-        return new LocalInputStream(Paths.get(uri));
+        Path file = Paths.get(uri);
+        if (mmapThreshold != Long.MAX_VALUE && Files.size(file) >= mmapThreshold) {
+            return new MappedInputStream(file);
+        }
+        return new LocalInputStream(file);
+    }
+
+    @Override
+    public void rename(String from, String to) throws IOException {
+        Path source = Paths.get(from);
+        Path target = Paths.get(to);
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Lists the regular files denoted by the path, which can be a file, a directory (not recursive)
+     * or a glob (e.g. {@code data/2018-*}{@code /part-*.txt}, see {@link java.nio.file.FileSystem#getPathMatcher(String)}).
+     * Hidden files are skipped for directories.
+     *
+     * @param uri String, path
+     * @return sorted List of paths
+     * @throws IOException if I/O error occurs
+     */
+    @Override
+    public List<String> expand(String uri) throws IOException {
+        if (StringUtils.isEmpty(uri)) return Collections.emptyList();
+        if (StringUtils.containsNone(uri, GLOB_CHARS)) {
+            Path file = Paths.get(uri);
+            if (Files.isDirectory(file)) {
+                try (Stream<Path> files = Files.list(file)) {
+                    return files.filter(f -> !f.getFileName().toString().startsWith(".")).filter(this::isReadableFile)
+                            .map(Path::toString).sorted().collect(Collectors.toList());
+                }
+            }
+            return isReadableFile(file) ? Collections.singletonList(uri) : Collections.emptyList();
+        }
+        // the longest prefix without glob characters:
+        String prefix = uri.substring(0, StringUtils.indexOfAny(uri, GLOB_CHARS));
+        Path dir = Paths.get(prefix).toAbsolutePath();
+        Path base = Files.isDirectory(dir) && prefix.endsWith(dir.getFileSystem().getSeparator()) ? dir : dir.getParent();
+        if (base == null || !Files.isDirectory(base)) return Collections.emptyList();
+        Path pattern = Paths.get(uri).toAbsolutePath();
+        PathMatcher matcher = base.getFileSystem().getPathMatcher("glob:" + pattern);
+        int depth = uri.contains("**") ? Integer.MAX_VALUE : pattern.getNameCount() - base.getNameCount();
+        // keep relative paths relative:
+        Path cwd = Paths.get(uri).isAbsolute() ? null : Paths.get("").toAbsolutePath();
+        try (Stream<Path> files = Files.walk(base, depth)) {
+            return files.filter(matcher::matches).filter(this::isReadableFile)
+                    .map(f -> cwd == null ? f : cwd.relativize(f))
+                    .map(Path::toString).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private boolean isReadableFile(Path file) {
+        return Files.isRegularFile(file) && Files.isReadable(file);
     }
 
     @Override
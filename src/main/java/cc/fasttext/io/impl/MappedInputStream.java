@@ -0,0 +1,155 @@
+package cc.fasttext.io.impl;
+
+import cc.fasttext.io.DirectInput;
+import cc.fasttext.io.ScrollableInputStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * A {@link ScrollableInputStream} over a memory-mapped local file.
+ * The file is mapped lazily by segments (a single mapping can not be larger than 2GB),
+ * each segment overlaps the next one by {@code overlap} bytes,
+ * so any window not larger than the overlap lies entirely within a single segment.
+ * Reads and seeks are just pointer arithmetic, there are no system calls,
+ * and all streams opened on the same file share the operating system page cache.
+ * Note: there is no way to unmap a buffer explicitly in java 8, the segments are unmapped when garbage collected.
+ * <p>
+ *
+ * @see LocalIOStreams
+ */
+public class MappedInputStream extends ScrollableInputStream implements DirectInput {
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+    public static final int DEFAULT_OVERLAP = 1 << 20;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int segmentSize;
+    private final int overlap;
+    private final MappedByteBuffer[] segments;
+    private long pos;
+
+    public MappedInputStream(Path file) throws IOException {
+        this(file, DEFAULT_SEGMENT_SIZE, DEFAULT_OVERLAP);
+    }
+
+    /**
+     * @param file        {@link Path} to the file
+     * @param segmentSize int, the size of a segment without overlap, positive
+     * @param overlap     int, the overlap between segments, the max window size, positive
+     * @throws IOException if an I/O error occurs
+     */
+    public MappedInputStream(Path file, int segmentSize, int overlap) throws IOException {
+        if (segmentSize <= 0 || overlap <= 0 || (long) segmentSize + overlap > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Wrong segment size (" + segmentSize + ") or overlap (" + overlap + ")");
+        }
+        this.channel = FileChannel.open(Objects.requireNonNull(file, "Null file"), StandardOpenOption.READ);
+        this.size = channel.size();
+        this.segmentSize = segmentSize;
+        this.overlap = overlap;
+        this.segments = new MappedByteBuffer[(int) ((size + segmentSize - 1) / segmentSize)];
+    }
+
+    private MappedByteBuffer segment(int index) throws IOException {
+        MappedByteBuffer res = segments[index];
+        if (res == null) {
+            long start = (long) index * segmentSize;
+            segments[index] = res = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, (long) segmentSize + overlap));
+        }
+        return res;
+    }
+
+    private ByteBuffer view(int len) throws IOException {
+        int index = (int) (pos / segmentSize);
+        int offset = (int) (pos - (long) index * segmentSize);
+        ByteBuffer res = segment(index).duplicate();
+        res.position(offset).limit(offset + len);
+        pos += len;
+        return res;
+    }
+
+    @Override
+    public int maxWindow() {
+        return overlap;
+    }
+
+    @Override
+    public ByteBuffer nextWindow(int len) throws IOException, IllegalArgumentException {
+        if (len <= 0 || len > overlap) {
+            throw new IllegalArgumentException("Wrong window size: " + len);
+        }
+        if (pos >= size) {
+            return null;
+        }
+        return view((int) Math.min(len, size - pos)).slice().asReadOnlyBuffer();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (pos >= size) {
+            return -1;
+        }
+        return view(1).get() & 0xFF;
+    }
+
+    @SuppressWarnings("NullableProblems")
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.requireNonNull(b, "Null buff");
+        if (len == 0) {
+            return 0;
+        }
+        if (pos >= size) {
+            return -1;
+        }
+        // do not cross the segment boundary within a single read:
+        long end = Math.min(size, (pos / segmentSize + 1) * segmentSize);
+        int res = (int) Math.min(len, end - pos);
+        view(res).get(b, off, res);
+        return res;
+    }
+
+    @Override
+    public long skip(long n) {
+        long res = Math.max(0, Math.min(n, size - pos));
+        pos += res;
+        return res;
+    }
+
+    @Override
+    public void seek(long bytes) throws IOException {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Negative position: " + bytes);
+        }
+        if (bytes > size) {
+            throw new IOException("Can't seek past the end of file: " + bytes + " > " + size);
+        }
+        pos = bytes;
+    }
+
+    @Override
+    public long getPos() {
+        return pos;
+    }
+
+    @Override
+    public long getLen() {
+        return size;
+    }
+
+    @Override
+    public int available() {
+        long res = size - pos;
+        return res > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) res;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,163 @@
+package cc.fasttext.metrics;
+
+import cc.fasttext.Histogram;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * A single named measurement with optional labels: a gauge, a counter or a summary of a {@link Histogram}.
+ * The names and labels follow the Prometheus conventions, the same sample keys (e.g. {@code fasttext_train_loss{thread="0"}})
+ * are used both by {@link PrometheusExporter} and as JMX attribute names.
+ * Immutable.
+ */
+public class Metric {
+    private static final Pattern NAME = Pattern.compile("[a-zA-Z_:][a-zA-Z0-9_:]*");
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    public enum Type {
+        GAUGE,
+        COUNTER,
+        SUMMARY,
+    }
+
+    private final String name;
+    private final String help;
+    private final Type type;
+    private final Map<String, String> labels;
+    private final double value;
+    private final Histogram.Snapshot snapshot;
+    private final double scale;
+
+    private Metric(String name, String help, Type type, String[] labels, double value, Histogram.Snapshot snapshot, double scale) {
+        if (!NAME.matcher(Objects.requireNonNull(name, "Null name")).matches()) {
+            throw new IllegalArgumentException("Wrong metric name: " + name);
+        }
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be pairs of names and values");
+        }
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (!NAME.matcher(Objects.requireNonNull(labels[i], "Null label")).matches()) {
+                throw new IllegalArgumentException("Wrong label name: " + labels[i]);
+            }
+            map.put(labels[i], Objects.requireNonNull(labels[i + 1], "Null label value"));
+        }
+        this.name = name;
+        this.help = Objects.requireNonNull(help, "Null help");
+        this.type = type;
+        this.labels = Collections.unmodifiableMap(map);
+        this.value = value;
+        this.snapshot = snapshot;
+        this.scale = scale;
+    }
+
+    /**
+     * Creates a value which can go up and down.
+     *
+     * @param name   String, the metric name
+     * @param help   String, the description
+     * @param value  double
+     * @param labels array of label names and values: {@code name1, value1, name2, value2, ...}
+     * @return {@link Metric}
+     */
+    public static Metric gauge(String name, String help, double value, String... labels) {
+        return new Metric(name, help, Type.GAUGE, labels, value, null, 1);
+    }
+
+    /**
+     * Creates a monotonically increasing value, the name should end with {@code _total}.
+     *
+     * @param name   String, the metric name
+     * @param help   String, the description
+     * @param value  double
+     * @param labels array of label names and values
+     * @return {@link Metric}
+     */
+    public static Metric counter(String name, String help, double value, String... labels) {
+        return new Metric(name, help, Type.COUNTER, labels, value, null, 1);
+    }
+
+    /**
+     * Creates a summary (count, sum and quantiles) of a histogram.
+     *
+     * @param name     String, the metric name
+     * @param help     String, the description
+     * @param snapshot {@link Histogram.Snapshot}
+     * @param scale    double, the unit of the histogram values, e.g. {@code 1e-9} to report nanoseconds as seconds
+     * @param labels   array of label names and values
+     * @return {@link Metric}
+     */
+    public static Metric summary(String name, String help, Histogram.Snapshot snapshot, double scale, String... labels) {
+        return new Metric(name, help, Type.SUMMARY, labels, Double.NaN, Objects.requireNonNull(snapshot, "Null snapshot"), scale);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHelp() {
+        return help;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Map<String, String> getLabels() {
+        return labels;
+    }
+
+    /**
+     * @return double, the value of a gauge or a counter, {@code NaN} for a summary
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Flattens the metric into samples.
+     * A gauge or a counter has a single sample,
+     * a summary has a sample per quantile and two more: {@code <name>_sum} and {@code <name>_count}.
+     *
+     * @return Map with sample keys in the Prometheus text format as keys and numbers as values
+     */
+    public Map<String, Double> samples() {
+        Map<String, Double> res = new LinkedHashMap<>();
+        if (snapshot == null) {
+            res.put(key(name, null), value);
+            return res;
+        }
+        for (double q : QUANTILES) {
+            res.put(key(name, String.valueOf(q)), snapshot.count() == 0 ? Double.NaN : snapshot.quantile(q) * scale);
+        }
+        res.put(key(name + "_sum", null), snapshot.sum() * scale);
+        res.put(key(name + "_count", null), (double) snapshot.count());
+        return res;
+    }
+
+    private String key(String name, String quantile) {
+        if (labels.isEmpty() && quantile == null) {
+            return name;
+        }
+        StringBuilder res = new StringBuilder(name).append('{');
+        labels.forEach((k, v) -> res.append(k).append("=\"").append(escape(v)).append("\","));
+        if (quantile != null) {
+            res.append("quantile=\"").append(quantile).append("\",");
+        }
+        res.setCharAt(res.length() - 1, '}');
+        return res.toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    @Override
+    public String toString() {
+        return samples().toString();
+    }
+}
@@ -0,0 +1,155 @@
+package cc.fasttext.metrics;
+
+import cc.fasttext.Events;
+import cc.fasttext.Histogram;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * A registry of {@link MetricsSource metric sources}.
+ * Each registered source is also exposed as a read-only JMX MBean {@code cc.fasttext:type=Metrics,name=<id>},
+ * whose attributes are the {@link Metric#samples() sample keys}.
+ * The {@link #GLOBAL global} registry contains the {@link Events events} from the start
+ * (per-phase and prediction latencies, throughput and cache counters),
+ * a training registers itself as {@code training} while it is running.
+ * JMX can be turned off with the system property {@code metrics.jmx=false}.
+ *
+ * @see MetricsHttpServer
+ * @see PrometheusExporter
+ */
+public class Metrics {
+    public static final String DOMAIN = "cc.fasttext";
+    public static final String EVENTS = "events";
+    public static final String TRAINING = "training";
+
+    public static final Metrics GLOBAL = new Metrics(Boolean.parseBoolean(System.getProperty("metrics.jmx", "true")) ?
+            ManagementFactory.getPlatformMBeanServer() : null).register(EVENTS, Metrics::events);
+
+    private final MBeanServer server;
+    // guarded by itself:
+    private final Map<String, MetricsSource> sources = new LinkedHashMap<>();
+
+    /**
+     * @param server {@link MBeanServer} or null to not use JMX
+     */
+    public Metrics(MBeanServer server) {
+        this.server = server;
+    }
+
+    private static ObjectName objectName(String id) {
+        try {
+            return new ObjectName(DOMAIN + ":type=Metrics,name=" + ObjectName.quote(id));
+        } catch (JMException e) {
+            throw new IllegalArgumentException("Wrong id: " + id, e);
+        }
+    }
+
+    /**
+     * Registers the source, a source with the same id is replaced.
+     *
+     * @param id     String, not empty
+     * @param source {@link MetricsSource}
+     * @return this instance
+     * @throws IllegalStateException if the MBean can't be registered
+     */
+    public Metrics register(String id, MetricsSource source) throws IllegalStateException {
+        if (Objects.requireNonNull(id, "Null id").isEmpty()) {
+            throw new IllegalArgumentException("Empty id");
+        }
+        Objects.requireNonNull(source, "Null source");
+        synchronized (sources) {
+            sources.put(id, source);
+            if (server == null) {
+                return this;
+            }
+            ObjectName name = objectName(id);
+            try {
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+                server.registerMBean(new SourceMBean(source), name);
+            } catch (JMException e) {
+                throw new IllegalStateException("Can't register " + name, e);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Unregisters the source if it is still registered under the id.
+     *
+     * @param id     String
+     * @param source {@link MetricsSource}
+     */
+    public void unregister(String id, MetricsSource source) {
+        synchronized (sources) {
+            if (!sources.remove(id, source) || server == null) {
+                return;
+            }
+            try {
+                server.unregisterMBean(objectName(id));
+            } catch (JMException e) {
+                // the MBean has been already unregistered by someone else
+            }
+        }
+    }
+
+    /**
+     * Collects the current metrics of all sources.
+     *
+     * @return List of {@link Metric}s
+     */
+    public List<Metric> collect() {
+        List<MetricsSource> sources;
+        synchronized (this.sources) {
+            sources = new ArrayList<>(this.sources.values());
+        }
+        List<Metric> res = new ArrayList<>();
+        sources.forEach(s -> s.collect(res::add));
+        return res;
+    }
+
+    /**
+     * Passes the current metrics to the exporter.
+     *
+     * @param exporter {@link MetricsExporter}
+     * @throws IOException if an I/O error occurs
+     */
+    public void export(MetricsExporter exporter) throws IOException {
+        exporter.export(collect());
+    }
+
+    /**
+     * Collects {@link Events}: a latency summary for each event which has occurred and all the counters.
+     *
+     * @param sink {@link Consumer}
+     */
+    public static void events(Consumer<Metric> sink) {
+        if (Events.isDisabled()) {
+            return;
+        }
+        for (Events e : Events.values()) {
+            Histogram.Snapshot s = e.snapshot();
+            if (s.count() == 0) continue;
+            sink.accept(Metric.summary("fasttext_event_duration_seconds", "The duration of events", s, 1e-9,
+                    "event", e.name().toLowerCase()));
+        }
+        for (Events.Counter c : Events.Counter.values()) {
+            sink.accept(Metric.counter("fasttext_" + c.name().toLowerCase() + "_total", "The number of " + c.name().toLowerCase().replace('_', ' '), c.get()));
+        }
+        long hits = Events.Counter.CACHE_HITS.get();
+        long total = hits + Events.Counter.CACHE_MISSES.get();
+        sink.accept(Metric.gauge("fasttext_cache_hit_ratio", "The hit ratio of the precomputed word vectors cache",
+                total == 0 ? Double.NaN : (double) hits / total));
+    }
+}
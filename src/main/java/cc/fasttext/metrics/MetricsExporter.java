@@ -0,0 +1,22 @@
+package cc.fasttext.metrics;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A pluggable sink for metrics, e.g. a text dump for a scraper or a push to a monitoring system.
+ *
+ * @see Metrics#export(MetricsExporter)
+ * @see PrometheusExporter
+ */
+@FunctionalInterface
+public interface MetricsExporter {
+
+    /**
+     * Exports the metrics.
+     *
+     * @param metrics List of {@link Metric}s
+     * @throws IOException if an I/O error occurs
+     */
+    void export(List<Metric> metrics) throws IOException;
+}
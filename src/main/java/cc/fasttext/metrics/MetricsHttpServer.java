@@ -0,0 +1,72 @@
+package cc.fasttext.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * A minimal local HTTP endpoint which serves {@link Metrics} at {@code /metrics} in the Prometheus text format,
+ * it is based on the JDK built-in server and is meant for scraping, not for public exposure.
+ *
+ * @see PrometheusExporter
+ */
+public class MetricsHttpServer implements Closeable {
+    public static final String PATH = "/metrics";
+
+    private final Metrics metrics;
+    private final HttpServer server;
+
+    /**
+     * Creates and starts the server.
+     *
+     * @param metrics {@link Metrics} to serve
+     * @param address {@link InetSocketAddress}, port {@code 0} means any free port
+     * @throws IOException if the server can't be bound
+     */
+    public MetricsHttpServer(Metrics metrics, InetSocketAddress address) throws IOException {
+        this.metrics = Objects.requireNonNull(metrics, "Null metrics");
+        this.server = HttpServer.create(address, 0);
+        server.createContext(PATH, this::handle);
+        server.start();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = PrometheusExporter.format(metrics.collect()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", PrometheusExporter.CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * @return {@link InetSocketAddress} the actual address
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("http://%s:%d%s", getAddress().getHostString(), getAddress().getPort(), PATH);
+    }
+}
@@ -0,0 +1,20 @@
+package cc.fasttext.metrics;
+
+import java.util.function.Consumer;
+
+/**
+ * A provider of current {@link Metric metrics}, e.g. a running trainer or a loaded model.
+ * It is called on each read (a JMX request or an export), so it should only take already collected numbers.
+ *
+ * @see Metrics#register(String, MetricsSource)
+ */
+@FunctionalInterface
+public interface MetricsSource {
+
+    /**
+     * Passes the current metrics to the sink.
+     *
+     * @param sink {@link Consumer} to accept {@link Metric}s
+     */
+    void collect(Consumer<Metric> sink);
+}
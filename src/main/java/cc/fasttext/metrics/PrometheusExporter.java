@@ -0,0 +1,88 @@
+package cc.fasttext.metrics;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writes metrics in the Prometheus text exposition format (version 0.0.4).
+ *
+ * @see MetricsHttpServer
+ */
+public class PrometheusExporter implements MetricsExporter {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final Appendable out;
+
+    /**
+     * @param out {@link Appendable} to write to, it is flushed after each export if it is {@link Flushable}
+     */
+    public PrometheusExporter(Appendable out) {
+        this.out = Objects.requireNonNull(out, "Null output");
+    }
+
+    @Override
+    public void export(List<Metric> metrics) throws IOException {
+        write(metrics, out);
+        if (out instanceof Flushable) {
+            ((Flushable) out).flush();
+        }
+    }
+
+    /**
+     * Formats the metrics as a string.
+     *
+     * @param metrics List of {@link Metric}s
+     * @return String
+     */
+    public static String format(List<Metric> metrics) {
+        StringBuilder res = new StringBuilder();
+        try {
+            write(metrics, res);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return res.toString();
+    }
+
+    /**
+     * Writes the metrics, the metrics of the same name are grouped under a single {@code HELP} and {@code TYPE}.
+     *
+     * @param metrics List of {@link Metric}s
+     * @param out     {@link Appendable}
+     * @throws IOException if an I/O error occurs
+     */
+    public static void write(List<Metric> metrics, Appendable out) throws IOException {
+        Map<String, List<Metric>> groups = new LinkedHashMap<>();
+        metrics.forEach(m -> groups.computeIfAbsent(m.getName(), n -> new ArrayList<>()).add(m));
+        for (Map.Entry<String, List<Metric>> group : groups.entrySet()) {
+            Metric first = group.getValue().get(0);
+            out.append("# HELP ").append(group.getKey()).append(' ')
+                    .append(first.getHelp().replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+            out.append("# TYPE ").append(group.getKey()).append(' ').append(first.getType().name().toLowerCase()).append('\n');
+            for (Metric m : group.getValue()) {
+                for (Map.Entry<String, Double> sample : m.samples().entrySet()) {
+                    out.append(sample.getKey()).append(' ').append(toString(sample.getValue())).append('\n');
+                }
+            }
+        }
+    }
+
+    private static String toString(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return String.valueOf((long) value);
+        }
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,75 @@
+package cc.fasttext.metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ReflectionException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A read-only dynamic MBean over a {@link MetricsSource}: each {@link Metric#samples() sample} is an attribute of type double.
+ * The set of attributes may change between calls (e.g. a new event occurred).
+ */
+class SourceMBean implements DynamicMBean {
+    private final MetricsSource source;
+
+    SourceMBean(MetricsSource source) {
+        this.source = source;
+    }
+
+    private Map<String, Double> samples() {
+        Map<String, Double> res = new LinkedHashMap<>();
+        source.collect(m -> res.putAll(m.samples()));
+        return res;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Double res = samples().get(attribute);
+        if (res == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return res;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        Map<String, Double> samples = samples();
+        AttributeList res = new AttributeList();
+        for (String a : attributes) {
+            Double v = samples.get(a);
+            if (v != null) {
+                res.add(new Attribute(a, v));
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        MBeanAttributeInfo[] attributes = samples().keySet().stream()
+                .map(k -> new MBeanAttributeInfo(k, double.class.getName(), k, true, false, false))
+                .toArray(MBeanAttributeInfo[]::new);
+        return new MBeanInfo(getClass().getName(), "fastText metrics", attributes, null, new MBeanOperationInfo[0], null);
+    }
+}
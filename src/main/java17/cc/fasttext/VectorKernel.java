@@ -0,0 +1,128 @@
+package cc.fasttext;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The SIMD implementation of {@link Kernel} based on the Java 17 Vector API ({@code jdk.incubator.vector}).
+ * It is placed in {@code META-INF/versions/17} of the multi-release jar, and is loaded by {@link Kernel#load(String)} reflectively,
+ * so the module is needed only at runtime: {@code java --add-modules jdk.incubator.vector ...}.
+ * The elements are summed up lane by lane, so the results differ from {@link ScalarKernel} within floating-point tolerance.
+ */
+final class VectorKernel implements Kernel {
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public float dot(float[] x, float[] y, int n) {
+        int bound = SPECIES.loopBound(n);
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            acc = FloatVector.fromArray(SPECIES, x, i).fma(FloatVector.fromArray(SPECIES, y, i), acc);
+        }
+        float res = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            res += x[i] * y[i];
+        }
+        return res;
+    }
+
+    /**
+     * Processes the rows in blocks of four, as {@link ScalarKernel} does, so that each lane chunk of the vector is loaded once per block.
+     * Each row is summed up in the same order as in {@link #dot(float[], float[], int)}, so the results are the same.
+     */
+    @Override
+    public void dotRows(float[][] rows, float[] x, float[] res, int from, int to) {
+        int n = x.length;
+        int bound = SPECIES.loopBound(n);
+        int i = from;
+        for (; i + 3 < to; i += 4) {
+            float[] r0 = rows[i];
+            float[] r1 = rows[i + 1];
+            float[] r2 = rows[i + 2];
+            float[] r3 = rows[i + 3];
+            FloatVector a0 = FloatVector.zero(SPECIES);
+            FloatVector a1 = FloatVector.zero(SPECIES);
+            FloatVector a2 = FloatVector.zero(SPECIES);
+            FloatVector a3 = FloatVector.zero(SPECIES);
+            int j = 0;
+            for (; j < bound; j += SPECIES.length()) {
+                FloatVector v = FloatVector.fromArray(SPECIES, x, j);
+                a0 = FloatVector.fromArray(SPECIES, r0, j).fma(v, a0);
+                a1 = FloatVector.fromArray(SPECIES, r1, j).fma(v, a1);
+                a2 = FloatVector.fromArray(SPECIES, r2, j).fma(v, a2);
+                a3 = FloatVector.fromArray(SPECIES, r3, j).fma(v, a3);
+            }
+            float d0 = a0.reduceLanes(VectorOperators.ADD);
+            float d1 = a1.reduceLanes(VectorOperators.ADD);
+            float d2 = a2.reduceLanes(VectorOperators.ADD);
+            float d3 = a3.reduceLanes(VectorOperators.ADD);
+            for (; j < n; j++) {
+                float v = x[j];
+                d0 += r0[j] * v;
+                d1 += r1[j] * v;
+                d2 += r2[j] * v;
+                d3 += r3[j] * v;
+            }
+            res[i] = d0;
+            res[i + 1] = d1;
+            res[i + 2] = d2;
+            res[i + 3] = d3;
+        }
+        for (; i < to; i++) {
+            res[i] = dot(rows[i], x, n);
+        }
+    }
+
+    @Override
+    public void axpy(float a, float[] x, float[] y, int n) {
+        int bound = SPECIES.loopBound(n);
+        FloatVector factor = FloatVector.broadcast(SPECIES, a);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector.fromArray(SPECIES, x, i).mul(factor).add(FloatVector.fromArray(SPECIES, y, i)).intoArray(y, i);
+        }
+        for (; i < n; i++) {
+            y[i] += a * x[i];
+        }
+    }
+
+    @Override
+    public double sumSquares(float[] x, int n) {
+        int bound = SPECIES.loopBound(n);
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector v = FloatVector.fromArray(SPECIES, x, i);
+            acc = v.fma(v, acc);
+        }
+        double res = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            res += x[i] * x[i];
+        }
+        return res;
+    }
+
+    @Override
+    public float distL2(float[] x, int xOffset, float[] y, int yOffset, int n) {
+        int bound = SPECIES.loopBound(n);
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector diff = FloatVector.fromArray(SPECIES, x, xOffset + i).sub(FloatVector.fromArray(SPECIES, y, yOffset + i));
+            acc = diff.fma(diff, acc);
+        }
+        float res = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            float tmp = x[xOffset + i] - y[yOffset + i];
+            res += tmp * tmp;
+        }
+        return res;
+    }
+
+    @Override
+    public String toString() {
+        return "VectorKernel[" + SPECIES + "]";
+    }
+}
@@ -0,0 +1,113 @@
+package cc.fasttext;
+
+import cc.fasttext.io.IOStreams;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Allocation budgets of the hot paths: the number of bytes allocated on the heap per operation,
+ * measured by {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)} after a warm-up.
+ * The budgets are the current values with a margin, if an optimization lowers an allocation, lower its budget as well.
+ */
+public class AllocationTest {
+    private static final int WARM_UP = 20_000;
+    private static final int OPERATIONS = 20_000;
+
+    private static com.sun.management.ThreadMXBean threads;
+    private static FastText model;
+    private static List<String> lines;
+    // the results of the measured operations, to not let the JIT eliminate the calls:
+    private static volatile Object sink;
+
+    @BeforeClass
+    public static void before() throws Exception {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        Path data = data();
+        Args args = new Args.Builder().setModel(Args.ModelName.SUP).setThread(1).setDim(50).setEpoch(1).setWordNgrams(2).build();
+        model = FastText.DEFAULT_FACTORY.train(args, data.toString(), null);
+        lines = Files.readAllLines(data);
+    }
+
+    @AfterClass
+    public static void after() {
+        model = null;
+        lines = null;
+    }
+
+    private static Path data() throws Exception {
+        return Paths.get(AllocationTest.class.getResource("/dbpedia.cut.train").toURI());
+    }
+
+    /**
+     * Runs the operation and returns the average number of bytes allocated by the current thread per call.
+     *
+     * @param op {@link Callable}, its result is consumed to not let the JIT eliminate the call
+     * @return long
+     * @throws Exception if the operation fails
+     */
+    private static long allocated(Callable<?> op) throws Exception {
+        for (int i = 0; i < WARM_UP; i++) {
+            sink = op.call();
+        }
+        long id = Thread.currentThread().getId();
+        long start = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < OPERATIONS; i++) {
+            sink = op.call();
+        }
+        return (threads.getThreadAllocatedBytes(id) - start) / OPERATIONS;
+    }
+
+    private static void assertBudget(String name, long budget, Callable<?> op) throws Exception {
+        long bytes = allocated(op);
+        Assert.assertTrue(name + " allocates " + bytes + " bytes per call, the budget is " + budget, bytes <= budget);
+    }
+
+    @Test
+    public void testPredictLine() throws Exception {
+        int[] i = {0};
+        assertBudget("predictLine", 16_384, () -> model.predictLine(lines.get(i[0]++ % lines.size()), 1));
+    }
+
+    @Test
+    public void testGetWordVector() throws Exception {
+        Dictionary dict = model.getDictionary();
+        int[] i = {0};
+        assertBudget("getWordVector", 512, () -> model.getWordVector(dict.getWord(i[0]++ % dict.nwords())));
+    }
+
+    @Test
+    public void testGetLine() throws Exception {
+        IOStreams fs = FastText.DEFAULT_FACTORY.getFileSystem();
+        Dictionary dict = model.getDictionary();
+        IntArrayList words = new IntArrayList();
+        IntArrayList labels = new IntArrayList();
+        try (Dictionary.SeekableReader in = dict.createReader(fs.openScrollable(data().toString()))) {
+            assertBudget("getLine", 12_288, () -> dict.getLine(in, words, labels));
+        }
+    }
+
+    @Test
+    public void testModelUpdate() throws Exception {
+        Dictionary dict = model.getDictionary();
+        Model m = FastText.DEFAULT_FACTORY.createModel(model.getArgs(), dict, model.getModel().input(), model.getModel().output(), 1);
+        List<Integer> line = dict.getLine(lines.get(0));
+        assertBudget("update", 1_024, () -> {
+            m.update(line, 0, 0.01f);
+            return m;
+        });
+    }
+}
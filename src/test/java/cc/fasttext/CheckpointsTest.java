@@ -0,0 +1,144 @@
+package cc.fasttext;
+
+import cc.fasttext.io.IOStreams;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class CheckpointsTest {
+    private static Path data() throws Exception {
+        return Paths.get(CheckpointsTest.class.getResource("/dbpedia.cut.train").toURI());
+    }
+
+    @Test
+    public void testReaderPosition() throws Exception {
+        Path data = data();
+        IOStreams fs = FastText.DEFAULT_FACTORY.getFileSystem();
+        List<String> tail = new ArrayList<>();
+        long pos;
+        try (Dictionary.SeekableReader in = Dictionary.createSeekableWordReader(fs.openScrollable(data.toString()), StandardCharsets.UTF_8, 100)) {
+            for (int i = 0; i < 777; i++) {
+                in.nextWord();
+            }
+            pos = in.getPos();
+            for (int i = 0; i < 10; i++) {
+                tail.add(in.nextWord());
+            }
+        }
+        try (Dictionary.SeekableReader in = Dictionary.createSeekableWordReader(fs.openScrollable(data.toString()), StandardCharsets.UTF_8, 64)) {
+            in.seek(pos);
+            for (String w : tail) {
+                Assert.assertEquals(w, in.nextWord());
+            }
+        }
+    }
+
+    @Test
+    public void testCheckpointAndResume() throws Exception {
+        Path data = data();
+        Path dir = Files.createTempDirectory("fasttext-test");
+        try {
+            Checkpoints checkpoints = new Checkpoints(dir.resolve("ckpt").toString(), 1000);
+            FastText.Factory factory = FastText.DEFAULT_FACTORY.setCheckpoints(checkpoints);
+            IOStreams fs = factory.getFileSystem();
+            Args args = new Args.Builder().setModel(Args.ModelName.SUP).setThread(2).setEpoch(2).build();
+            Assert.assertFalse(checkpoints.exists(fs));
+
+            FastText.Factory.Trainer trainer = factory.newTrainer(args, data.toString(), null);
+            trainer.train();
+            trainer.checkpoint(1);
+            Assert.assertTrue(checkpoints.exists(fs));
+            Assert.assertFalse(Files.exists(Paths.get(checkpoints.getModelURI() + ".tmp")));
+            Checkpoints.State state = checkpoints.read(fs);
+            Assert.assertEquals(data.toString(), state.file);
+            Assert.assertEquals(Files.size(data), state.size);
+            Assert.assertEquals(Checkpoints.fingerprint(fs, data.toString(), state.size), state.fingerprint);
+            Assert.assertEquals(2, state.counts.length);
+            Assert.assertEquals(2, state.seed);
+            Assert.assertEquals(args.lr(), state.lr, 0);
+            Assert.assertTrue(state.total() >= args.epoch() * state.tokens);
+
+            // rewind the progress to the middle of training:
+            long half = args.epoch() * state.tokens / 4;
+            Checkpoints.State middle = new Checkpoints.State(state.file, state.size, state.fingerprint, state.tokens, state.lr, state.seed,
+                    new long[]{half, half}, new long[]{0, state.size / 2});
+            FastText model = FastText.DEFAULT_FACTORY.load(checkpoints.getModelURI());
+            checkpoints.write(fs, model, middle);
+
+            FastText res = factory.resume(data.toString());
+            Assert.assertEquals(model.getDictionary().size(), res.getDictionary().size());
+            Assert.assertEquals(model.getArgs().epoch(), res.getArgs().epoch());
+            FastText.TestInfo info = res.test(Paths.get(CheckpointsTest.class.getResource("/dbpedia.cut.test").toURI()).toString(), 1);
+            Assert.assertNotNull(info);
+
+            try {
+                factory.resume(Paths.get(CheckpointsTest.class.getResource("/labeled_data.txt").toURI()).toString());
+                Assert.fail("Should fail for another data");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            // the same size, but another content:
+            byte[] bytes = Files.readAllBytes(data);
+            bytes[bytes.length - 2] ^= 1;
+            Path changed = dir.resolve("changed.txt");
+            Files.write(changed, bytes);
+            try {
+                factory.resume(changed.toString());
+                Assert.fail("Should fail for changed data");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    public void testScheduledCheckpoint() throws Exception {
+        Path data = data();
+        Path dir = Files.createTempDirectory("fasttext-test");
+        try {
+            Checkpoints checkpoints = new Checkpoints(dir.resolve("ckpt").toString(), 1);
+            FastText.Factory factory = FastText.DEFAULT_FACTORY.setCheckpoints(checkpoints);
+            IOStreams fs = factory.getFileSystem();
+            // long enough to take several checkpoints in the middle of training:
+            Args args = new Args.Builder().setModel(Args.ModelName.SUP).setThread(1).setEpoch(1000).build();
+            factory.newTrainer(args, data.toString(), null).train();
+            Assert.assertTrue(checkpoints.exists(fs));
+            Checkpoints.State state = checkpoints.read(fs);
+            Assert.assertTrue("Not in the middle: " + state.total(), state.total() > 0 && state.total() < args.epoch() * state.tokens);
+
+            FastText model = FastText.DEFAULT_FACTORY.load(checkpoints.getModelURI());
+            long[] start = {-1};
+            FastText.Factory.Trainer trainer = factory.new Trainer(args, data.toString(), state.size,
+                    model.getDictionary(), model.getModel().input(), model.getModel().output()) {
+                @Override
+                protected Dictionary.SeekableReader createReader() throws IOException {
+                    metrics(m -> {
+                        if ("fasttext_train_tokens_total".equals(m.getName())) {
+                            start[0] = (long) m.getValue();
+                        }
+                    });
+                    return super.createReader();
+                }
+            };
+            trainer.resume(state).train();
+            Assert.assertEquals(state.total(), start[0]);
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+            }
+        }
+    }
+}
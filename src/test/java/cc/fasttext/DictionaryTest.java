@@ -1,20 +1,30 @@
 package cc.fasttext;
 
+import cc.fasttext.io.FTInputStream;
+import cc.fasttext.io.FTOutputStream;
+import cc.fasttext.io.PrintLogs;
 import cc.fasttext.io.WordReader;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.UnsignedLong;
 import org.junit.Assert;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -177,4 +187,135 @@ public class DictionaryTest {
             Assert.assertEquals(entry.getValue(), actualSubwords);
         }
     }
+
+    @Test
+    public void testSubwordsIndex() throws IOException {
+        Args args = new Args.Builder().setMinCount(1).build();
+        String text = "abcdef 父が息子を𠮟る abcdef x\nx y abcdef\n";
+        Dictionary dic = Dictionary.read(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), args,
+                StandardCharsets.UTF_8, PrintLogs.Level.NONE.createLogger(System.err));
+        Assert.assertEquals(5, dic.nwords());
+        for (String word : new String[]{"abcdef", "父が息子を𠮟る", "x", "y", Dictionary.EOS}) {
+            int id = dic.getId(word);
+            List<Integer> expected = Dictionary.EOS.equals(word) ? Collections.singletonList(id) :
+                    dic.getSubwordsMap(word).values().stream().sorted().collect(Collectors.toList());
+            Assert.assertEquals(word, expected, dic.getSubwords(id).stream().sorted().collect(Collectors.toList()));
+            Assert.assertEquals(word, dic.getSubwords(id), dic.copy().getSubwords(id));
+            List<Integer> table = new ArrayList<>();
+            for (int k = 0; k < dic.subwordCount(id); k++) {
+                table.add(dic.subwordId(dic.subwordOffset(id) + k));
+            }
+            Assert.assertEquals(word, dic.getSubwords(id), table);
+        }
+    }
+
+    @Test
+    public void testSaveLoadTables() throws IOException {
+        Args args = new Args.Builder().setMinCount(1).setBucket(1000).build();
+        String text = "abcdef 父が息子を𠮟る abcdef x\nx y abcdef\n";
+        Dictionary dic = Dictionary.read(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), args,
+                StandardCharsets.UTF_8, PrintLogs.Level.NONE.createLogger(System.err));
+        ByteArrayOutputStream legacy = new ByteArrayOutputStream();
+        try (FTOutputStream out = new FTOutputStream(legacy)) {
+            dic.save(out);
+        }
+        ByteArrayOutputStream full = new ByteArrayOutputStream();
+        try (FTOutputStream out = new FTOutputStream(full)) {
+            dic.save(out);
+            dic.saveTables(out);
+        }
+        Dictionary fromLegacy = Dictionary.loadEntries(args, StandardCharsets.UTF_8,
+                new FTInputStream(new ByteArrayInputStream(legacy.toByteArray())));
+        FTInputStream in = new FTInputStream(new ByteArrayInputStream(legacy.toByteArray()));
+        Dictionary.loadEntries(args, StandardCharsets.UTF_8, in);
+        Assert.assertFalse(fromLegacy.loadTables(in));
+        fromLegacy.initTables();
+        in = new FTInputStream(new ByteArrayInputStream(full.toByteArray()));
+        Dictionary fromFull = Dictionary.loadEntries(args, StandardCharsets.UTF_8, in);
+        Assert.assertTrue(fromFull.loadTables(in));
+        Assert.assertEquals(-1, in.read());
+        for (int i = 0; i < dic.nwords(); i++) {
+            Assert.assertEquals(dic.getSubwords(i), fromLegacy.getSubwords(i));
+            Assert.assertEquals(dic.getSubwords(i), fromFull.getSubwords(i));
+        }
+    }
+
+    @Test
+    public void testLoadBrokenTables() throws IOException {
+        Args args = new Args.Builder().setMinCount(1).setBucket(1000).build();
+        Dictionary dic = Dictionary.read(new ByteArrayInputStream("abcdef x\nx y abcdef\n".getBytes(StandardCharsets.UTF_8)), args,
+                StandardCharsets.UTF_8, PrintLogs.Level.NONE.createLogger(System.err));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (FTOutputStream out = new FTOutputStream(bytes)) {
+            dic.save(out);
+        }
+        int start = bytes.size();
+        try (FTOutputStream out = new FTOutputStream(bytes)) {
+            dic.saveTables(out);
+        }
+        byte[] full = bytes.toByteArray();
+        // a few trailing bytes are not a section:
+        for (int n = 1; n < Integer.BYTES; n++) {
+            FTInputStream in = new FTInputStream(new ByteArrayInputStream(Arrays.copyOf(full, start + n)));
+            Assert.assertFalse(Dictionary.loadEntries(args, StandardCharsets.UTF_8, in).loadTables(in));
+        }
+        int offsets = start + 2 * Integer.BYTES;
+        int ids = offsets + (dic.size() + 2) * Integer.BYTES;
+        // not monotonic offsets, an id out of the input matrix, a negative id:
+        for (int[] corruption : new int[][]{{offsets + Integer.BYTES, Integer.MAX_VALUE}, {ids, dic.nwords() + 1000}, {ids, -1}}) {
+            byte[] broken = full.clone();
+            ByteBuffer.wrap(broken).order(ByteOrder.LITTLE_ENDIAN).putInt(corruption[0], corruption[1]);
+            FTInputStream in = new FTInputStream(new ByteArrayInputStream(broken));
+            Dictionary res = Dictionary.loadEntries(args, StandardCharsets.UTF_8, in);
+            try {
+                res.loadTables(in);
+                Assert.fail("Broken section has been loaded: " + Arrays.toString(corruption));
+            } catch (IllegalArgumentException e) {
+                LOGGER.debug("Expected: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testRollingSubwordsHash() {
+        String[] words = {"abcdef", "a", "is", "父が息子を𠮟る", "Тестовое", "pārbaudes", "x\ud800y", "𠮟", ""};
+        for (Args args : new Args[]{new Args.Builder().build(),
+                new Args.Builder().setMinN(1).setMaxN(3).setBucket(1000).build(),
+                new Args.Builder().setMinN(2).setMaxN(10).setBucket(7).build()}) {
+            Dictionary dic = new Dictionary(args, StandardCharsets.UTF_8);
+            for (String word : words) {
+                // getSubwords works with bytes, getSubwordsMap with strings:
+                List<Integer> expected = dic.getSubwordsMap(word).values().stream()
+                        .filter(i -> i >= 0).sorted().collect(Collectors.toList());
+                List<Integer> actual = dic.getSubwords(word).stream().sorted().collect(Collectors.toList());
+                Assert.assertEquals(word, expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testWordNgrams() throws IOException {
+        Args args = new Args.Builder().setModel(Args.ModelName.SUP).setMinCount(1).setMaxN(0).setWordNgrams(3).setBucket(1_000_003).build();
+        String text = "__label__a the quick brown fox\n__label__b jumps over the lazy dog\n";
+        Dictionary dic = Dictionary.read(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), args,
+                StandardCharsets.UTF_8, PrintLogs.Level.NONE.createLogger(System.err));
+        String line = "the quick unknown fox фыва";
+        List<Integer> expected = new ArrayList<>();
+        List<Long> hashes = new ArrayList<>();
+        for (String w : line.split(" ")) {
+            int id = dic.getId(w);
+            if (id >= 0) expected.add(id);
+            hashes.add((long) (int) dic.hash(w));
+        }
+        // reference uint64_t arithmetic:
+        UnsignedLong bucket = UnsignedLong.valueOf(args.bucket());
+        for (int i = 0; i < hashes.size(); i++) {
+            UnsignedLong h = UnsignedLong.fromLongBits(hashes.get(i));
+            for (int j = i + 1; j < hashes.size() && j < i + args.wordNgrams(); j++) {
+                h = h.times(UnsignedLong.valueOf(116_049_371)).plus(UnsignedLong.fromLongBits(hashes.get(j)));
+                expected.add(dic.nwords() + h.mod(bucket).intValue());
+            }
+        }
+        Assert.assertEquals(expected, dic.getLine(line));
+    }
 }
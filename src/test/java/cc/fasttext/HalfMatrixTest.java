@@ -0,0 +1,143 @@
+package cc.fasttext;
+
+import org.apache.commons.math3.random.Well19937c;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * Tests {@link HalfMatrix}: the fp16 and bf16 conversions, the arithmetic and the model file.
+ */
+public class HalfMatrixTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testHalfConversion() {
+        for (int i = 0; i < 1 << 16; i++) {
+            short h = (short) i;
+            float f = HalfMatrix.fromHalf(h);
+            if (Float.isNaN(f)) {
+                Assert.assertTrue(Float.isNaN(HalfMatrix.fromHalf(HalfMatrix.toHalf(f))));
+                continue;
+            }
+            Assert.assertEquals("Wrong #" + Integer.toHexString(i), h, HalfMatrix.toHalf(f));
+        }
+        Assert.assertEquals(65504f, HalfMatrix.fromHalf(HalfMatrix.toHalf(65519f)), 0);
+        Assert.assertEquals(Float.POSITIVE_INFINITY, HalfMatrix.fromHalf(HalfMatrix.toHalf(65520f)), 0);
+        Assert.assertEquals(0x1p-24f, HalfMatrix.fromHalf(HalfMatrix.toHalf(0x1.8p-25f)), 0);
+        Assert.assertEquals(0f, HalfMatrix.fromHalf(HalfMatrix.toHalf(0x1p-25f)), 0);
+        // ties to even:
+        Assert.assertEquals(1f, HalfMatrix.fromHalf(HalfMatrix.toHalf(1 + 0x1p-11f)), 0);
+        Assert.assertEquals(1 + 0x1p-9f, HalfMatrix.fromHalf(HalfMatrix.toHalf(1 + 0x1.8p-10f)), 0);
+        Well19937c rnd = new Well19937c(42);
+        for (int i = 0; i < 100_000; i++) {
+            float f = (float) ((rnd.nextDouble() - 0.5) * Math.pow(2, rnd.nextInt(28) - 14));
+            // half of the step, the subnormals have the fixed step 2^-24:
+            Assert.assertEquals(f, HalfMatrix.fromHalf(HalfMatrix.toHalf(f)), Math.max(Math.abs(f) * 0x1p-11f, 0x1p-25f));
+        }
+    }
+
+    @Test
+    public void testBFloat16Conversion() {
+        for (int i = 0; i < 1 << 16; i++) {
+            short h = (short) i;
+            float f = HalfMatrix.fromBFloat16(h);
+            if (Float.isNaN(f)) {
+                Assert.assertTrue(Float.isNaN(HalfMatrix.fromBFloat16(HalfMatrix.toBFloat16(f))));
+                continue;
+            }
+            Assert.assertEquals("Wrong #" + Integer.toHexString(i), h, HalfMatrix.toBFloat16(f));
+        }
+        Assert.assertEquals(Float.POSITIVE_INFINITY, HalfMatrix.fromBFloat16(HalfMatrix.toBFloat16(Float.MAX_VALUE)), 0);
+        Assert.assertEquals(1f, HalfMatrix.fromBFloat16(HalfMatrix.toBFloat16(1 + 0x1p-8f)), 0);
+        Well19937c rnd = new Well19937c(42);
+        for (int i = 0; i < 100_000; i++) {
+            float f = (float) ((rnd.nextDouble() - 0.5) * Math.pow(2, rnd.nextInt(200) - 100));
+            Assert.assertEquals(f, HalfMatrix.fromBFloat16(HalfMatrix.toBFloat16(f)), Math.abs(f) * 0x1p-8f);
+        }
+    }
+
+    @Test
+    public void testArithmetic() {
+        int mSize = 50;
+        int nSize = 101;
+        Matrix m = new Matrix(mSize, nSize);
+        m.uniform(new Well19937c(42), 1);
+        Vector v = new Vector(nSize);
+        for (int j = 0; j < nSize; j++) {
+            v.set(j, j % 3 - 1.5f);
+        }
+        for (Matrix.Storage storage : new Matrix.Storage[]{Matrix.Storage.FP16, Matrix.Storage.BF16}) {
+            double delta = storage == Matrix.Storage.FP16 ? 1e-2 : 1e-1;
+            Matrix h = m.toStorage(storage);
+            Assert.assertEquals(storage, h.storage());
+            Assert.assertSame(h, h.toStorage(storage));
+            Vector product = new Vector(mSize);
+            product.mul(h, v);
+            Vector[] batch = {new Vector(mSize)};
+            h.dotRows(new Vector[]{v}, batch);
+            Vector norms = m.l2NormRow();
+            Vector hNorms = h.l2NormRow();
+            for (int i = 0; i < mSize; i++) {
+                float expected = m.dotRow(v, i);
+                Assert.assertEquals(expected, h.dotRow(v, i), delta);
+                Assert.assertEquals(h.dotRow(v, i), product.get(i), 0);
+                Assert.assertEquals(h.dotRow(v, i), batch[0].get(i), 0);
+                Assert.assertEquals(norms.get(i), hNorms.get(i), delta);
+            }
+            Vector sum = new Vector(nSize);
+            Vector hSum = new Vector(nSize);
+            for (int i = 0; i < mSize; i++) {
+                sum.addRow(m, i, 0.5f);
+                hSum.addRow(h, i, 0.5f);
+            }
+            for (int j = 0; j < nSize; j++) {
+                Assert.assertEquals(sum.get(j), hSum.get(j), delta);
+            }
+            Matrix back = h.toStorage(Matrix.Storage.FLOAT);
+            Assert.assertEquals(Matrix.Storage.FLOAT, back.storage());
+            for (int i = 0; i < mSize; i++) {
+                for (int j = 0; j < nSize; j++) {
+                    Assert.assertEquals(h.get(i, j), back.get(i, j), 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testConvertModel() throws Exception {
+        Path data = Paths.get(HalfMatrixTest.class.getResource("/dbpedia.cut.train").toURI());
+        Args args = new Args.Builder().setModel(Args.ModelName.SUP).setThread(1).setDim(20).setEpoch(5).setLR(0.5).setWordNgrams(2).setBucket(10_000).build();
+        FastText model = FastText.DEFAULT_FACTORY.train(args, data.toString(), null);
+        Path bin = folder.getRoot().toPath().resolve("model.bin");
+        model.saveModel(bin.toString());
+        String line = Files.readAllLines(data).get(0);
+        Map<String, Float> expected = model.predictLine(line, 1);
+        for (Matrix.Storage storage : new Matrix.Storage[]{Matrix.Storage.FP16, Matrix.Storage.BF16}) {
+            Path half = folder.getRoot().toPath().resolve("model." + storage + ".bin");
+            Main.run("convert", bin.toString(), half.toString(), storage.name().toLowerCase());
+            Assert.assertTrue("Too large file", Files.size(half) < Files.size(bin) * 0.6);
+            FastText loaded = FastText.DEFAULT_FACTORY.load(half.toString());
+            Assert.assertEquals(storage, loaded.getModel().input().storage());
+            Assert.assertEquals(storage, loaded.getModel().output().storage());
+            Map<String, Float> actual = loaded.predictLine(line, 1);
+            Assert.assertEquals(expected.keySet(), actual.keySet());
+            expected.forEach((label, p) -> Assert.assertEquals(p, actual.get(label), 0.05));
+            Vector vector = model.getWordVector("album");
+            Vector halfVector = loaded.getWordVector("album");
+            for (int j = 0; j < args.dim(); j++) {
+                Assert.assertEquals(vector.get(j), halfVector.get(j), 0.05);
+            }
+            // back to floats, the values are as stored:
+            FastText floats = loaded.convert(Matrix.Storage.FLOAT);
+            Assert.assertEquals(loaded.getModel().input().get(3, 7), floats.getModel().input().get(3, 7), 0);
+        }
+    }
+}
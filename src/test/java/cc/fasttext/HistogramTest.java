@@ -0,0 +1,69 @@
+package cc.fasttext;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public class HistogramTest {
+
+    @Test
+    public void testBuckets() {
+        int prev = -1;
+        for (long v = 0; v < 100_000; v++) {
+            int b = Histogram.bucket(v);
+            Assert.assertTrue(b == prev || b == prev + 1);
+            Assert.assertTrue(Histogram.lowerBound(b) <= v);
+            Assert.assertTrue(Histogram.lowerBound(b + 1) > v);
+            prev = b;
+        }
+        Assert.assertEquals(Histogram.BUCKETS - 1, Histogram.bucket(Long.MAX_VALUE));
+        Assert.assertEquals(0, Histogram.bucket(-5));
+    }
+
+    @Test
+    public void testConcurrentRecordAndQuantiles() {
+        Histogram h = new Histogram();
+        int threads = 4;
+        int n = 100_000;
+        IntStream.range(0, threads).parallel().forEach(t -> {
+            Random r = new Random(t);
+            for (int i = 0; i < n; i++) {
+                h.record(1 + r.nextInt(1000));
+            }
+        });
+        Histogram.Snapshot s = h.snapshot();
+        Assert.assertEquals(threads * n, s.count());
+        Assert.assertEquals(500, s.mean(), 5);
+        Assert.assertTrue(s.max() <= 1000);
+        Assert.assertEquals(500, s.quantile(0.5), 500 / Histogram.SUB_BUCKETS);
+        Assert.assertEquals(990, s.quantile(0.99), 990 / Histogram.SUB_BUCKETS);
+        Assert.assertEquals(s.max(), s.quantile(1));
+
+        h.record(7, 10);
+        Assert.assertEquals(threads * n + 10, h.snapshot().count());
+        h.reset();
+        Assert.assertEquals(0, h.snapshot().count());
+        Assert.assertEquals(0, h.snapshot().quantile(0.5));
+    }
+
+    @Test
+    public void testEvents() {
+        Assert.assertFalse(Events.isDisabled());
+        long before = Events.FILE_SEEK.size();
+        for (int i = 0; i < 10; i++) {
+            Events.FILE_SEEK.start();
+            Events.FILE_SEEK.end();
+        }
+        Assert.assertEquals(before + 10, Events.FILE_SEEK.size());
+        before = Events.MODEL_GRAD_MUL.size();
+        for (int i = 0; i < 1024; i++) {
+            Events.MODEL_GRAD_MUL.start();
+            Events.MODEL_GRAD_MUL.end();
+        }
+        // sampled, but the estimate is exact for a multiple of the sample size:
+        Assert.assertEquals(before + 1024, Events.MODEL_GRAD_MUL.size());
+        Assert.assertNotNull(Events.print());
+    }
+}
@@ -0,0 +1,410 @@
+package cc.fasttext;
+
+import cc.fasttext.extra.ExtraMain;
+import cc.fasttext.io.BgzfInputStream;
+import cc.fasttext.io.BgzfOutputStream;
+import cc.fasttext.io.ConcatIOStreams;
+import cc.fasttext.io.IOStreams;
+import cc.fasttext.io.PrintLogs;
+import cc.fasttext.io.ReadAheadInputStream;
+import cc.fasttext.io.ScrollableInputStream;
+import cc.fasttext.io.SpoolingIOStreams;
+import cc.fasttext.io.impl.HttpRangeInputStream;
+import cc.fasttext.io.impl.LocalIOStreams;
+import cc.fasttext.io.impl.LocalInputStream;
+import cc.fasttext.io.impl.MappedInputStream;
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class IOStreamsTest {
+
+    private static Path data() throws Exception {
+        return Paths.get(IOStreamsTest.class.getResource("/dbpedia.cut.test").toURI());
+    }
+
+    private static List<String> readWords(Dictionary.SeekableReader reader) throws IOException {
+        try (Dictionary.SeekableReader r = reader) {
+            return r.words().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void testMappedWords() throws Exception {
+        Path data = data();
+        List<String> expected = readWords(Dictionary.createSeekableWordReader(Files.newInputStream(data), StandardCharsets.UTF_8, 1024));
+        // tiny segments, words span both windows and segments:
+        for (int buff : new int[]{64, 100, 200}) {
+            List<String> actual = readWords(Dictionary.createSeekableWordReader(new MappedInputStream(data, 1000, 100),
+                    StandardCharsets.UTF_8, buff));
+            Assert.assertEquals("Buffer " + buff, expected, actual);
+        }
+    }
+
+    @Test
+    public void testMappedSeek() throws Exception {
+        Path data = data();
+        long size = Files.size(data);
+        try (Dictionary.SeekableReader expected = Dictionary.createSeekableWordReader(new LocalInputStream(data), StandardCharsets.UTF_8, 128);
+             Dictionary.SeekableReader actual = Dictionary.createSeekableWordReader(new MappedInputStream(data, 777, 128), StandardCharsets.UTF_8, 128)) {
+            for (long pos = 0; pos < size; pos += size / 13) {
+                expected.seek(pos);
+                actual.seek(pos);
+                for (int i = 0; i < 50; i++) {
+                    Assert.assertEquals("Pos " + pos + ", word #" + i, expected.nextWord(), actual.nextWord());
+                }
+            }
+            expected.seek(size / 2);
+            actual.seek(size / 2);
+            String w;
+            while ((w = expected.nextWord()) != null) {
+                Assert.assertEquals(w, actual.nextWord());
+            }
+            Assert.assertNull(actual.nextWord());
+            Assert.assertTrue(actual.isEnd());
+            Assert.assertTrue(actual.rewind());
+            Assert.assertFalse(actual.isEnd());
+            Assert.assertTrue(expected.rewind());
+            Assert.assertEquals(expected.nextWord(), actual.nextWord());
+        }
+    }
+
+    @Test
+    public void testLocalMappingThreshold() throws Exception {
+        String file = data().toString();
+        long size = Files.size(data());
+        Assert.assertTrue(new LocalIOStreams(size).openScrollable(file) instanceof MappedInputStream);
+        Assert.assertTrue(new LocalIOStreams(size + 1).openScrollable(file) instanceof LocalInputStream);
+        Assert.assertTrue(new LocalIOStreams().openScrollable(file) instanceof LocalInputStream);
+    }
+
+    @Test
+    public void testReadAheadWords() throws Exception {
+        Path data = data();
+        long size = Files.size(data);
+        List<String> expected = readWords(Dictionary.createSeekableWordReader(Files.newInputStream(data), StandardCharsets.UTF_8, 1024));
+        List<String> actual = readWords(Dictionary.createSeekableWordReader(new ReadAheadInputStream(new LocalInputStream(data), 2, 333),
+                StandardCharsets.UTF_8, 100));
+        Assert.assertEquals(expected, actual);
+        try (Dictionary.SeekableReader e = Dictionary.createSeekableWordReader(new LocalInputStream(data), StandardCharsets.UTF_8, 128);
+             Dictionary.SeekableReader a = Dictionary.createSeekableWordReader(new ReadAheadInputStream(new LocalInputStream(data), 3, 1000), StandardCharsets.UTF_8, 128)) {
+            for (long pos : new long[]{size / 3, size / 3 + 10, 0, size - 50, 7, size / 2}) {
+                e.seek(pos);
+                a.seek(pos);
+                for (int i = 0; i < 300; i++) {
+                    Assert.assertEquals("Pos " + pos + ", word #" + i, e.nextWord(), a.nextWord());
+                }
+            }
+            String w;
+            while ((w = e.nextWord()) != null) {
+                Assert.assertEquals(w, a.nextWord());
+            }
+            Assert.assertNull(a.nextWord());
+            Assert.assertTrue(a.isEnd());
+            Assert.assertTrue(a.rewind());
+            Assert.assertEquals(expected.get(0), a.nextWord());
+        }
+    }
+
+    @Test
+    public void testReadAheadIOStreams() throws Exception {
+        String file = data().toString();
+        Assert.assertTrue(new LocalIOStreams().readAhead(2, 1024).openScrollable(file) instanceof ReadAheadInputStream);
+        Assert.assertTrue(new LocalIOStreams(0).readAhead(2, 1024).openScrollable(file) instanceof MappedInputStream);
+    }
+
+    @Test
+    public void testThreadOffsets() {
+        long[] single = {0};
+        Assert.assertEquals(250, FastText.Factory.threadOffset(1, 4, 1000, single));
+        long[] blocks = {0, 128, 256, 384, 512, 640, 768, 896};
+        Assert.assertEquals(0, FastText.Factory.threadOffset(0, 4, 1000, blocks));
+        Assert.assertEquals(256, FastText.Factory.threadOffset(1, 4, 1000, blocks));
+        Assert.assertEquals(512, FastText.Factory.threadOffset(2, 4, 1000, blocks));
+        Assert.assertEquals(768, FastText.Factory.threadOffset(3, 4, 1000, blocks));
+        Assert.assertEquals(896, FastText.Factory.threadOffset(7, 8, 1000, blocks));
+        // not enough blocks:
+        Assert.assertEquals(125, FastText.Factory.threadOffset(1, 8, 1000, new long[]{0, 500}));
+    }
+
+    @Test
+    public void testSpooling() throws Exception {
+        Path data = data();
+        long size = Files.size(data);
+        AtomicInteger opens = new AtomicInteger();
+        IOStreams source = new IOStreams() {
+            @Override
+            public OutputStream createOutput(String uri) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public InputStream openInput(String uri) throws IOException {
+                opens.incrementAndGet();
+                return Files.newInputStream(Paths.get(uri));
+            }
+        };
+        List<String> expected = readWords(Dictionary.createSeekableWordReader(Files.newInputStream(data), StandardCharsets.UTF_8, 1024));
+        try (SpoolingIOStreams fs = source.spooled()) {
+            String uri = data.toString();
+            for (int i = 0; i < 3; i++) {
+                Assert.assertEquals(expected, readWords(Dictionary.createSeekableWordReader(fs.openScrollable(uri), StandardCharsets.UTF_8, 100)));
+            }
+            Assert.assertEquals(size, fs.size(uri));
+            try (ScrollableInputStream in = fs.openScrollable(uri)) {
+                byte[] bytes = Files.readAllBytes(data);
+                in.seek(size - 10);
+                Assert.assertEquals(bytes[(int) size - 10] & 0xFF, in.read());
+                in.seek(5);
+                Assert.assertEquals(bytes[5] & 0xFF, in.read());
+            }
+        }
+        Assert.assertEquals(1, opens.get());
+    }
+
+    @Test
+    public void testHttpRanges() throws Exception {
+        Path data = data();
+        byte[] bytes = Files.readAllBytes(data);
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/data", exchange -> {
+            exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            int from = range == null ? 0 : Integer.parseInt(range.replaceAll("^bytes=(\\d+)-$", "$1"));
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().add("Content-Length", String.valueOf(bytes.length));
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+                return;
+            }
+            exchange.sendResponseHeaders(range == null ? 200 : 206, bytes.length - from);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (int i = from; i < bytes.length; i += 1024) {
+                    int n = Math.min(1024, bytes.length - i);
+                    out.write(bytes, i, n);
+                }
+            } catch (IOException e) {
+                // the client has dropped the connection after seek
+            }
+        });
+        server.start();
+        try {
+            URL url = new URL("http", "localhost", server.getAddress().getPort(), "/data");
+            long size = HttpRangeInputStream.rangeLength(url);
+            Assert.assertEquals(bytes.length, size);
+            List<String> expected = readWords(Dictionary.createSeekableWordReader(Files.newInputStream(data), StandardCharsets.UTF_8, 1024));
+            Assert.assertEquals(expected, readWords(Dictionary.createSeekableWordReader(new HttpRangeInputStream(url, size), StandardCharsets.UTF_8, 100)));
+            try (ScrollableInputStream in = new HttpRangeInputStream(url, size)) {
+                for (long pos : new long[]{size - 7, 3, size / 2, size / 2 + 100}) {
+                    in.seek(pos);
+                    byte[] actual = new byte[7];
+                    Assert.assertEquals(7, in.read(actual, 0, 7));
+                    for (int i = 0; i < 7; i++) {
+                        Assert.assertEquals(bytes[(int) pos + i], actual[i]);
+                    }
+                }
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testWebSpoolDeleted() throws Exception {
+        Path data = data();
+        byte[] bytes = Files.readAllBytes(data);
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/data", exchange -> {
+            // no range support, the resource is downloaded into a temporary file
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+                return;
+            }
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+        Path tmp = Paths.get(System.getProperty("java.io.tmpdir"));
+        try {
+            long before = countSpools(tmp);
+            String uri = new URL("http", "localhost", server.getAddress().getPort(), "/data").toString();
+            ExtraMain.CombinedIOStreams fs = new ExtraMain.CombinedIOStreams(ExtraMain::createFS);
+            Assert.assertEquals(bytes.length, fs.size(uri));
+            Assert.assertEquals(before + 1, countSpools(tmp));
+            fs.close();
+            Assert.assertEquals(before, countSpools(tmp));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static long countSpools(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString()).filter(n -> n.startsWith("fasttext-") && n.endsWith(".spool")).count();
+        }
+    }
+
+    @Test
+    public void testTrainFromStream() throws Exception {
+        Path data = Paths.get(IOStreamsTest.class.getResource("/labeled_data.txt").toURI());
+        Args args = new Args.Builder().setModel(Args.ModelName.SUP).setThread(1).build();
+        FastText expected = FastText.DEFAULT_FACTORY.train(args, data.toString(), null);
+        FastText actual;
+        try (InputStream in = Files.newInputStream(data)) {
+            actual = FastText.DEFAULT_FACTORY.train(args, in, null);
+        }
+        Assert.assertEquals(expected.getDictionary().nwords(), actual.getDictionary().nwords());
+        Assert.assertEquals(expected.getDictionary().nlabels(), actual.getDictionary().nlabels());
+        Assert.assertEquals(expected.getDictionary().ntokens(), actual.getDictionary().ntokens());
+        Assert.assertEquals(expected.predictLine("I like soccer", 1).keySet(), actual.predictLine("I like soccer", 1).keySet());
+    }
+
+    @Test
+    public void testBgzf() throws Exception {
+        Path data = data();
+        byte[] bytes = Files.readAllBytes(data);
+        Path dir = Files.createTempDirectory("fasttext-test");
+        try {
+            IOStreams fs = new LocalIOStreams().gzip();
+            String bgzf = dir.resolve("data.txt.gz").toString();
+            try (OutputStream out = fs.createOutput(bgzf)) {
+                // write more than one block:
+                for (int i = 0; i < 3; i++) {
+                    out.write(bytes);
+                }
+            }
+            Assert.assertTrue(Files.size(Paths.get(bgzf)) < 3L * bytes.length / 2);
+            long size = 3L * bytes.length;
+            Assert.assertEquals(size, fs.size(bgzf));
+            long[] blocks = fs.blockOffsets(bgzf);
+            Assert.assertEquals((size + BgzfOutputStream.BLOCK_SIZE - 1) / BgzfOutputStream.BLOCK_SIZE, blocks.length);
+            Assert.assertEquals(BgzfOutputStream.BLOCK_SIZE, blocks[1]);
+            // the standard gzip:
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(Paths.get(bgzf)))) {
+                Assert.assertArrayEquals(bytes, Arrays.copyOf(ByteStreams.toByteArray(in), bytes.length));
+            }
+            try (ScrollableInputStream in = fs.openScrollable(bgzf)) {
+                Assert.assertTrue(in instanceof BgzfInputStream);
+                for (long pos : new long[]{size - 5, BgzfOutputStream.BLOCK_SIZE - 2, 0, bytes.length + 1, size / 2}) {
+                    in.seek(pos);
+                    byte[] actual = new byte[(int) Math.min(100_000, size - pos)];
+                    Assert.assertEquals(actual.length, in.read(actual, 0, actual.length));
+                    for (int i = 0; i < actual.length; i++) {
+                        Assert.assertEquals("Pos " + pos + ", #" + i, bytes[(int) ((pos + i) % bytes.length)], actual[i]);
+                    }
+                }
+                Assert.assertEquals(-1, in.read());
+            }
+            // ordinary gzip is spooled:
+            String gzip = dir.resolve("plain.txt.gz").toString();
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(Paths.get(gzip)))) {
+                out.write(bytes);
+            }
+            Assert.assertEquals(bytes.length, fs.size(gzip));
+            Assert.assertArrayEquals(new long[]{0}, fs.blockOffsets(gzip));
+            List<String> expected = readWords(Dictionary.createSeekableWordReader(Files.newInputStream(data), StandardCharsets.UTF_8, 1024));
+            Assert.assertEquals(expected, readWords(Dictionary.createSeekableWordReader(fs.openScrollable(gzip), StandardCharsets.UTF_8, 100)));
+            // the default factory decompresses only the training data, other files are written as is:
+            Args args = new Args.Builder().setModel(Args.ModelName.SUP).setThread(1).setBucket(1000).build();
+            FastText model = FastText.DEFAULT_FACTORY.train(args, bgzf, null);
+            Path plain = dir.resolve("data.txt");
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(Paths.get(bgzf)))) {
+                Files.copy(in, plain);
+            }
+            Assert.assertEquals(FastText.DEFAULT_FACTORY.train(args, plain.toString(), null).getDictionary().ntokens(),
+                    model.getDictionary().ntokens());
+            Path bin = dir.resolve("model.bin.gz");
+            model.saveModel(bin.toString());
+            Assert.assertEquals(FastText.FASTTEXT_FILEFORMAT_MAGIC_INT32, Integer.reverseBytes(ByteBuffer.wrap(Files.readAllBytes(bin)).getInt()));
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    public void testMultipleFiles() throws Exception {
+        Path data = data();
+        List<String> lines = Files.readAllLines(data, StandardCharsets.UTF_8);
+        Path dir = Files.createTempDirectory("fasttext-test");
+        try {
+            // the last line of each part has no line break:
+            int n = lines.size() / 3;
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            for (int i = 0; i < 3; i++) {
+                byte[] part = String.join("\n", lines.subList(i * n, i == 2 ? lines.size() : (i + 1) * n)).getBytes(StandardCharsets.UTF_8);
+                Files.write(dir.resolve("part-" + i + ".txt"), part);
+                expected.write(part);
+                expected.write('\n');
+            }
+            Files.write(dir.resolve(".hidden"), "xxx".getBytes(StandardCharsets.UTF_8));
+            byte[] bytes = expected.toByteArray();
+
+            IOStreams fs = new LocalIOStreams();
+            List<String> parts = fs.expand(dir.toString());
+            Assert.assertEquals(3, parts.size());
+            Assert.assertEquals(parts, fs.expand(dir.resolve("part-*.txt").toString()));
+            Assert.assertEquals(Collections.singletonList(parts.get(1)), fs.expand(dir.resolve("*-1.txt").toString()));
+            Assert.assertEquals(Collections.singletonList(parts.get(2)), fs.expand(parts.get(2)));
+            Assert.assertTrue(fs.expand(dir.resolve("*.bin").toString()).isEmpty());
+
+            String uri = dir.toString();
+            ConcatIOStreams concat = new ConcatIOStreams(fs, uri, parts);
+            Assert.assertEquals(bytes.length, concat.size(uri));
+            Assert.assertEquals(3, concat.blockOffsets(uri).length);
+            Assert.assertEquals(readWords(Dictionary.createSeekableWordReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8, 1024)),
+                    readWords(Dictionary.createSeekableWordReader(concat.openScrollable(uri), StandardCharsets.UTF_8, 100)));
+            try (ScrollableInputStream in = concat.openScrollable(uri)) {
+                for (long pos : new long[]{bytes.length / 2, Files.size(Paths.get(parts.get(0))), 0, bytes.length - 3}) {
+                    in.seek(pos);
+                    byte[] actual = new byte[(int) Math.min(10_000, bytes.length - pos)];
+                    Assert.assertEquals(actual.length, in.read(actual, 0, actual.length));
+                    Assert.assertArrayEquals("Pos " + pos, Arrays.copyOfRange(bytes, (int) pos, (int) pos + actual.length), actual);
+                }
+                Assert.assertEquals(-1, in.read());
+            }
+
+            Args args = new Args.Builder().setModel(Args.ModelName.SUP).build();
+            PrintLogs logs = PrintLogs.Level.NONE.createLogger(System.err);
+            Dictionary seq = Dictionary.read(new ByteArrayInputStream(bytes), args, StandardCharsets.UTF_8, logs);
+            Dictionary par = Dictionary.read(fs, parts, args, StandardCharsets.UTF_8, logs);
+            Assert.assertEquals(seq.ntokens(), par.ntokens());
+            Assert.assertEquals(seq.getWords().toString(), par.getWords().toString());
+
+            FastText model = FastText.DEFAULT_FACTORY.train(args, dir.resolve("part-*").toString(), null);
+            Assert.assertEquals(seq.ntokens(), model.getDictionary().ntokens());
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+            }
+        }
+    }
+}
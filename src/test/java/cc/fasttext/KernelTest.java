@@ -0,0 +1,79 @@
+package cc.fasttext;
+
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.Well19937c;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the selected {@link Kernel} (the SIMD one, if tests are run with the {@code jdk17} profile) to the scalar one.
+ */
+public class KernelTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(KernelTest.class);
+    private static final float EPS = 1e-4f;
+
+    private final Kernel scalar = Kernel.load("scalar");
+    private final Kernel actual = Kernel.INSTANCE;
+
+    private static float[] random(RandomGenerator random, int n) {
+        float[] res = new float[n];
+        for (int i = 0; i < n; i++) {
+            res[i] = (float) random.nextGaussian();
+        }
+        return res;
+    }
+
+    private static void assertClose(String message, double expected, double actual) {
+        Assert.assertEquals(message, expected, actual, EPS * Math.max(1, Math.abs(expected)));
+    }
+
+    @Test
+    public void testKernels() {
+        LOGGER.info("Kernel: {}", actual);
+        // set by the jdk17 profile, otherwise a failed loading would silently compare the scalar kernel with itself:
+        String expectedKernel = System.getProperty("kernel.expected");
+        if (expectedKernel != null) {
+            Assert.assertEquals(expectedKernel, actual.getClass().getSimpleName());
+        }
+        RandomGenerator random = new Well19937c(42);
+        // the sizes around the vector lengths and typical dimensions:
+        for (int n : new int[]{1, 3, 7, 8, 9, 16, 17, 31, 64, 100, 300}) {
+            float[] x = random(random, n);
+            float[] y = random(random, n);
+            assertClose("dot#" + n, scalar.dot(x, y, n), actual.dot(x, y, n));
+            assertClose("sumSquares#" + n, scalar.sumSquares(x, n), actual.sumSquares(x, n));
+            assertClose("distL2#" + n, scalar.distL2(x, 0, y, 0, n), actual.distL2(x, 0, y, 0, n));
+            if (n > 2) {
+                assertClose("distL2-offsets#" + n, scalar.distL2(x, 1, y, 2, n - 2), actual.distL2(x, 1, y, 2, n - 2));
+            }
+            float[] expected = y.clone();
+            float[] res = y.clone();
+            scalar.axpy(0.3f, x, expected, n);
+            actual.axpy(0.3f, x, res, n);
+            for (int i = 0; i < n; i++) {
+                assertClose("axpy#" + n + "[" + i + "]", expected[i], res[i]);
+            }
+            float[][] rows = new float[11][];
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = random(random, n);
+            }
+            float[] expectedRows = new float[rows.length];
+            float[] actualRows = new float[rows.length];
+            scalar.dotRows(rows, x, expectedRows, 1, rows.length);
+            actual.dotRows(rows, x, actualRows, 1, rows.length);
+            Assert.assertEquals(0, actualRows[0], 0);
+            for (int i = 1; i < rows.length; i++) {
+                assertClose("dotRows#" + n + "[" + i + "]", expectedRows[i], actualRows[i]);
+                Assert.assertEquals("dotRows-dot#" + n + "[" + i + "]", scalar.dot(rows[i], x, n), expectedRows[i], 0);
+                Assert.assertEquals("dotRows-dot#" + n + "[" + i + "]", actual.dot(rows[i], x, n), actualRows[i], 0);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongName() {
+        Kernel.load("gpu");
+    }
+}
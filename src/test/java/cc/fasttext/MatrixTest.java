@@ -53,4 +53,101 @@ public class MatrixTest {
             Assert.assertEquals("Wrong #" + i, expected.get(i), actual.get(i), 0.2);
         }
     }
+
+    @Test
+    public void testDotRows() {
+        // not a multiple of the row block, and large enough for the parallel path:
+        for (int mSize : new int[]{7, 20_003}) {
+            int nSize = 101;
+            Matrix m = new Matrix(mSize, nSize);
+            m.uniform(new Well19937c(42), 1);
+            Vector v = new Vector(nSize);
+            for (int j = 0; j < nSize; j++) {
+                v.set(j, j % 3 - 1.5f);
+            }
+            Vector res = new Vector(mSize);
+            res.mul(m, v);
+            for (int i = 0; i < mSize; i++) {
+                Assert.assertEquals("Wrong #" + i, m.dotRow(v, i), res.get(i), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testDotRowsBatch() {
+        int batch = 5;
+        for (int mSize : new int[]{7, 20_003}) {
+            int nSize = 101;
+            Matrix m = new Matrix(mSize, nSize);
+            m.uniform(new Well19937c(42), 1);
+            Vector[] vectors = new Vector[batch];
+            Vector[] res = new Vector[batch];
+            for (int b = 0; b < batch; b++) {
+                vectors[b] = new Vector(nSize);
+                for (int j = 0; j < nSize; j++) {
+                    vectors[b].set(j, (j + b) % 3 - 1.5f);
+                }
+                res[b] = new Vector(mSize);
+            }
+            m.dotRows(vectors, res);
+            for (int b = 0; b < batch; b++) {
+                for (int i = 0; i < mSize; i++) {
+                    Assert.assertEquals("Wrong #" + b + ":" + i, m.dotRow(vectors[b], i), res[b].get(i), 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testQMatrixDotRowsBatch() {
+        int batch = 3;
+        // the last subquantizer is shorter:
+        int nSize = 21;
+        // with the lookup tables and row by row:
+        for (int mSize : new int[]{600, 300}) {
+            Matrix m = new Matrix(mSize, nSize);
+            m.uniform(new Well19937c(42), 1);
+            for (boolean qnorm : new boolean[]{false, true}) {
+                QMatrix q = new QMatrix(m, Well19937c::new, 2, qnorm);
+                boolean table = q.getPQ().useDotTable(mSize);
+                Assert.assertEquals(mSize == 600, table);
+                Vector[] vectors = new Vector[batch];
+                Vector[] res = new Vector[batch];
+                for (int b = 0; b < batch; b++) {
+                    vectors[b] = new Vector(nSize);
+                    for (int j = 0; j < nSize; j++) {
+                        vectors[b].set(j, (j * (b + 1)) % 5 - 2f);
+                    }
+                    res[b] = new Vector(q.getM());
+                }
+                q.dotRows(vectors, res);
+                for (int b = 0; b < batch; b++) {
+                    for (int i = 0; i < q.getM(); i++) {
+                        float expected = q.dotRow(vectors[b], i);
+                        double delta = table ? 1e-4 * Math.max(1, Math.abs(expected)) : 0;
+                        Assert.assertEquals("Wrong #" + b + ":" + i, expected, res[b].get(i), delta);
+                    }
+                }
+                vectors[1].set(3, Float.NaN);
+                try {
+                    q.dotRows(vectors, res);
+                    Assert.fail("No NaN check");
+                } catch (IllegalStateException e) {
+                    // expected, as dotRow
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDotRowsBatchSize() {
+        new Matrix(5, 3).dotRows(new Vector[]{new Vector(3)}, new Vector[0]);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDotRowsNaN() {
+        Matrix m = new Matrix(5, 3);
+        m.set(4, 2, Float.NaN);
+        m.dotRows(new Vector(3), new Vector(5));
+    }
 }
@@ -0,0 +1,112 @@
+package cc.fasttext;
+
+import cc.fasttext.metrics.Metric;
+import cc.fasttext.metrics.Metrics;
+import cc.fasttext.metrics.MetricsHttpServer;
+import cc.fasttext.metrics.MetricsSource;
+import cc.fasttext.metrics.PrometheusExporter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class MetricsTest {
+
+    @Test
+    public void testPrometheusFormat() {
+        Histogram h = new Histogram();
+        h.record(1_000_000);
+        h.record(3_000_000);
+        List<Metric> metrics = Arrays.asList(
+                Metric.gauge("a_gauge", "A gauge", 0.5, "x", "1"),
+                Metric.gauge("a_gauge", "A gauge", 2, "x", "a\"b"),
+                Metric.counter("a_total", "A counter", 42),
+                Metric.summary("a_seconds", "A summary", h.snapshot(), 1e-9, "event", "e"));
+        String text = PrometheusExporter.format(metrics);
+        List<String> lines = Arrays.asList(text.split("\n"));
+        Assert.assertEquals(1, lines.stream().filter("# TYPE a_gauge gauge"::equals).count());
+        Assert.assertTrue(lines.contains("a_gauge{x=\"1\"} 0.5"));
+        Assert.assertTrue(lines.contains("a_gauge{x=\"a\\\"b\"} 2"));
+        Assert.assertTrue(lines.contains("# TYPE a_total counter"));
+        Assert.assertTrue(lines.contains("a_total 42"));
+        Assert.assertTrue(lines.contains("# TYPE a_seconds summary"));
+        Assert.assertTrue(lines.contains("a_seconds_count{event=\"e\"} 2"));
+        Assert.assertTrue(lines.contains("a_seconds_sum{event=\"e\"} 0.004"));
+        Assert.assertTrue(lines.stream().anyMatch(s -> s.startsWith("a_seconds{event=\"e\",quantile=\"0.99\"} 0.003")));
+        try {
+            Metric.gauge("a-b", "Wrong", 1);
+            Assert.fail("Should fail for a wrong name");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testTrainingAndModelMetrics() throws Exception {
+        Assert.assertTrue(Metrics.GLOBAL.collect().stream().map(Metric::getName).anyMatch("fasttext_tokens_total"::equals));
+        String data = Paths.get(MetricsTest.class.getResource("/dbpedia.cut.train").toURI()).toString();
+        Args args = new Args.Builder().setModel(Args.ModelName.SUP).setThread(2).build();
+        long bytes = Events.Counter.BYTES.get();
+        FastText.Factory.Trainer trainer = FastText.DEFAULT_FACTORY.newTrainer(args, data, null);
+        trainer.train();
+        // the read bytes are counted without checkpoints too:
+        Assert.assertTrue(Events.Counter.BYTES.get() > bytes);
+        List<Metric> metrics = new ArrayList<>();
+        trainer.metrics(metrics::add);
+        Map<String, Double> samples = metrics.stream().flatMap(m -> m.samples().entrySet().stream())
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        Assert.assertEquals(1, samples.get("fasttext_train_progress"), 0);
+        Assert.assertEquals(0, samples.get("fasttext_train_eta_seconds"), 0);
+        Assert.assertTrue(samples.get("fasttext_train_words_per_second{thread=\"1\"}") > 0);
+        Assert.assertTrue(samples.get("fasttext_train_loss{thread=\"0\"}") > 0);
+        // the training is unregistered when finished:
+        Assert.assertFalse(Metrics.GLOBAL.collect().stream().map(Metric::getName).anyMatch("fasttext_train_progress"::equals));
+
+        FastText ft = FastText.DEFAULT_FACTORY.train(args, data, null);
+        ft.predictLine("Soccer is a game", 1);
+        MetricsSource source = ft.metrics();
+        Metrics.GLOBAL.register("model", source);
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            Object memory = server.getAttribute(new ObjectName(Metrics.DOMAIN + ":type=Metrics,name=\"model\""),
+                    "fasttext_memory_bytes{component=\"input\"}");
+            Assert.assertEquals((double) ft.getModel().input().memory(), (Double) memory, 0);
+            Object predictions = server.getAttribute(new ObjectName(Metrics.DOMAIN + ":type=Metrics,name=\"events\""),
+                    "fasttext_event_duration_seconds_count{event=\"predict\"}");
+            Assert.assertTrue((Double) predictions >= 1);
+
+            try (MetricsHttpServer http = new MetricsHttpServer(Metrics.GLOBAL, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+                HttpURLConnection connection = (HttpURLConnection) new URL(http.toString()).openConnection();
+                Assert.assertEquals(200, connection.getResponseCode());
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                try (InputStream in = connection.getInputStream()) {
+                    byte[] buffer = new byte[8192];
+                    int n;
+                    while ((n = in.read(buffer)) != -1) {
+                        body.write(buffer, 0, n);
+                    }
+                }
+                String text = new String(body.toByteArray(), StandardCharsets.UTF_8);
+                Assert.assertTrue(text.contains("fasttext_memory_bytes{component=\"dictionary\"}"));
+                Assert.assertTrue(text.contains("# TYPE fasttext_event_duration_seconds summary"));
+            }
+        } finally {
+            Metrics.GLOBAL.unregister("model", source);
+        }
+    }
+}
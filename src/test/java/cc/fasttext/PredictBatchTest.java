@@ -0,0 +1,77 @@
+package cc.fasttext;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks that the batch prediction ({@link FastText#predictLines(List, int)}) gives the same labels
+ * as {@link FastText#predictLine(String, int)} line by line, and that the stream prediction does not wait for a batch.
+ */
+public class PredictBatchTest {
+
+    private static void testPredict(Args.LossName loss) throws Exception {
+        Path data = Paths.get(PredictBatchTest.class.getResource("/dbpedia.cut.train").toURI());
+        Args args = new Args.Builder().setModel(Args.ModelName.SUP).setLossName(loss).setThread(1).setDim(20).setEpoch(2).build();
+        FastText model = FastText.DEFAULT_FACTORY.train(args, data.toString(), null);
+        List<String> lines = new ArrayList<>(Files.readAllLines(data));
+        // an empty line and more lines than a single batch:
+        lines.add(3, "");
+        while (lines.size() <= FastText.PREDICT_BATCH_SIZE) {
+            lines.addAll(new ArrayList<>(lines));
+        }
+        List<Map<String, Float>> actual = model.predictLines(lines, 3);
+        Assert.assertEquals(lines.size(), actual.size());
+        Assert.assertTrue(actual.get(3).isEmpty());
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).isEmpty()) {
+                continue;
+            }
+            Map<String, Float> expected = model.predictLine(lines.get(i), 3);
+            Map<String, Float> res = actual.get(i);
+            Assert.assertEquals("Wrong labels #" + i, expected.keySet(), res.keySet());
+            expected.forEach((label, p) -> Assert.assertEquals(label, p, res.get(label), 1e-5));
+        }
+        // the stream predicts line by line, a line is predicted before the next one is available (e.g. an interactive input):
+        byte[] first = (lines.get(0) + "\n").getBytes(StandardCharsets.UTF_8);
+        InputStream pipe = new InputStream() {
+            private int pos;
+
+            @Override
+            public int read() throws IOException {
+                if (pos == first.length) throw new IOException("Waits for input");
+                return first[pos++];
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (pos == first.length) throw new IOException("Waits for input");
+                int res = Math.min(len, first.length - pos);
+                System.arraycopy(first, pos, b, off, res);
+                pos += res;
+                return res;
+            }
+        };
+        Map<String, Float> res = model.predict(pipe, 3).findFirst().orElseThrow(AssertionError::new);
+        Assert.assertEquals(actual.get(0).keySet(), res.keySet());
+    }
+
+    @Test
+    public void testSoftmax() throws Exception {
+        testPredict(Args.LossName.SOFTMAX);
+    }
+
+    @Test
+    public void testHierarchicalSoftmax() throws Exception {
+        testPredict(Args.LossName.HS);
+    }
+}
@@ -0,0 +1,56 @@
+package cc.fasttext;
+
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.stream.Stream;
+
+public class RandomGeneratorsTest {
+
+    @Test
+    public void testMinStdMatchesStdMinstdRand() {
+        // [rand.predef]: the 10000th consecutive invocation of a default-constructed object
+        // of type minstd_rand shall produce the value 399268537
+        RandomGenerators.MinStd rng = new RandomGenerators.MinStd(1);
+        int res = 0;
+        for (int i = 0; i < 10_000; i++) {
+            res = rng.nextRaw();
+        }
+        Assert.assertEquals(399_268_537, res);
+        // zero seed is replaced with 1, as in libstdc++:
+        Assert.assertEquals(48_271, new RandomGenerators.MinStd(0).nextRaw());
+    }
+
+    @Test
+    public void testBounds() {
+        Stream.of("well", "splitmix", "minstd").map(RandomGenerators::forName).forEach(provider -> {
+            RandomGenerator rng = provider.apply(42);
+            int[] counts = new int[7];
+            for (int i = 0; i < 70_000; i++) {
+                counts[rng.nextInt(counts.length)]++;
+                double d = rng.nextDouble();
+                Assert.assertTrue(d >= 0 && d < 1);
+                float f = rng.nextFloat();
+                Assert.assertTrue(f >= 0 && f < 1);
+            }
+            for (int c : counts) {
+                Assert.assertEquals(10_000, c, 500);
+            }
+            Assert.assertEquals(provider.apply(7).nextLong(), provider.apply(7).nextLong());
+        });
+    }
+
+    @Test
+    public void testUnknownName() {
+        try {
+            RandomGenerators.forName("mt19937");
+            Assert.fail("Unknown name is accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        // the default factory must not fail on a wrong system property:
+        Assert.assertEquals(RandomGenerators.forName("well").apply(7).nextLong(), FastText.randomGenerator("mt19937").apply(7).nextLong());
+        Assert.assertEquals(RandomGenerators.forName("minstd").apply(7).nextLong(), FastText.randomGenerator("MinStd").apply(7).nextLong());
+    }
+}
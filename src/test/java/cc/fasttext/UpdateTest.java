@@ -0,0 +1,93 @@
+package cc.fasttext;
+
+import cc.fasttext.io.PrintLogs;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class UpdateTest {
+    private static final PrintLogs LOGS = PrintLogs.Level.NONE.createLogger(System.err);
+
+    private static Dictionary read(String text, Args args) throws Exception {
+        return Dictionary.read(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), args, StandardCharsets.UTF_8, LOGS);
+    }
+
+    @Test
+    public void testExtend() throws Exception {
+        Args args = new Args.Builder().setModel(Args.ModelName.SUP).setMinCount(1).build();
+        Dictionary base = read("__label__a x y z\n__label__b x y\n", args);
+        Dictionary delta = read("__label__c x w\n__label__a v w\n", args);
+        Dictionary res = base.extend(delta, true, true);
+        Assert.assertEquals(base.nwords() + 2, res.nwords());
+        Assert.assertEquals(base.nlabels() + 1, res.nlabels());
+        Assert.assertEquals(base.ntokens() + delta.ntokens(), res.ntokens());
+        for (int i = 0; i < base.nwords(); i++) {
+            Assert.assertEquals(base.getWord(i), res.getWord(i));
+            Assert.assertEquals(i, res.getId(base.getWord(i)));
+        }
+        for (int i = 0; i < base.nlabels(); i++) {
+            Assert.assertEquals(base.getLabel(i), res.getLabel(i));
+        }
+        Assert.assertEquals("__label__c", res.getLabel(base.nlabels()));
+        Assert.assertEquals(base.getWords().get(0).count(), res.getWords().get(0).count());
+        Assert.assertTrue(res.getId("w") >= base.nwords() && res.getId("w") < res.nwords());
+
+        Dictionary words = base.extend(delta, true, false);
+        Assert.assertEquals(res.nwords(), words.nwords());
+        Assert.assertEquals(base.nlabels(), words.nlabels());
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        Path data = Paths.get(UpdateTest.class.getResource("/labeled_data.txt").toURI());
+        Path dir = Files.createTempDirectory("fasttext-test");
+        try {
+            Path delta = dir.resolve("delta.txt");
+            List<String> lines = Files.readAllLines(data);
+            lines.add("__label__tennis Tennis is played with a racket and a ball .");
+            lines.add("__label__tennis Wimbledon is the oldest tennis tournament .");
+            Files.write(delta, lines);
+
+            Args args = new Args.Builder().setModel(Args.ModelName.SUP).setThread(1).setMinCount(1).build();
+            FastText model = FastText.DEFAULT_FACTORY.train(args, data.toString(), null);
+            Args settings = new Args.Builder().copy(args).setEpoch(50).setLR(0.5).build();
+
+            FastText same = model.update(settings, delta.toString(), false);
+            Assert.assertEquals(model.getDictionary().size(), same.getDictionary().size());
+            Assert.assertFalse(same.predictLine("Wimbledon tennis", 3).containsKey("__label__tennis"));
+
+            FastText grown = model.update(settings, delta.toString(), true);
+            Dictionary dict = grown.getDictionary();
+            Assert.assertEquals(model.getDictionary().nlabels() + 1, dict.nlabels());
+            Assert.assertTrue(dict.nwords() > model.getDictionary().nwords());
+            Assert.assertEquals(dict.nwords() + args.bucket(), grown.getModel().input().getM());
+            Assert.assertEquals(dict.nlabels(), grown.getModel().output().getM());
+            Assert.assertEquals("__label__tennis", grown.predictLine("Wimbledon tennis racket", 1).keySet().iterator().next());
+            // the original model is not changed:
+            Assert.assertEquals(model.getDictionary().nlabels(), model.getModel().output().getM());
+
+            Path bin = dir.resolve("model.bin");
+            grown.saveModel(bin.toString());
+            FastText loaded = FastText.DEFAULT_FACTORY.load(bin.toString());
+            Assert.assertEquals(dict.size(), loaded.getDictionary().size());
+            Assert.assertEquals(grown.predictLine("Soccer is a game", 1).keySet(), loaded.predictLine("Soccer is a game", 1).keySet());
+
+            // the command line accepts the same inputs as the training, e.g. a glob:
+            Main.update(new String[]{"update", "-input", dir.resolve("delta*.txt").toString(), "-output", dir.resolve("model").toString(),
+                    "-epoch", "1", "-thread", "1", "-verbose", "0"});
+            Assert.assertEquals(dict.size(), FastText.DEFAULT_FACTORY.load(bin.toString()).getDictionary().size());
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+            }
+        }
+    }
+}
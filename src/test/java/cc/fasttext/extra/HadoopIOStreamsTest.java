@@ -0,0 +1,71 @@
+package cc.fasttext.extra;
+
+import cc.fasttext.Dictionary;
+import cc.fasttext.extra.io.HadoopIOStreams;
+import cc.fasttext.io.ScrollableInputStream;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.RawLocalFileSystem;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+public class HadoopIOStreamsTest {
+    private static final long BLOCK_SIZE = 1000;
+
+    private static HadoopIOStreams createFS() throws IOException {
+        // the local fs reports a whole file as a single block, emulate hdfs instead:
+        RawLocalFileSystem fs = new RawLocalFileSystem() {
+            @Override
+            public BlockLocation[] getFileBlockLocations(FileStatus file, long start, long len) {
+                return LongStream.iterate(0, x -> x + BLOCK_SIZE).limit((file.getLen() + BLOCK_SIZE - 1) / BLOCK_SIZE)
+                        .mapToObj(x -> new BlockLocation(null, new String[]{"localhost"}, x, Math.min(BLOCK_SIZE, file.getLen() - x)))
+                        .toArray(BlockLocation[]::new);
+            }
+        };
+        fs.initialize(java.net.URI.create("file:///"), new Configuration());
+        return new HadoopIOStreams(fs);
+    }
+
+    @Test
+    public void testPositionalReads() throws Exception {
+        Path data = Paths.get(HadoopIOStreamsTest.class.getResource("/dbpedia.cut.test").toURI());
+        long size = Files.size(data);
+        HadoopIOStreams fs = createFS();
+        String uri = data.toUri().toString();
+        long[] blocks = fs.blockOffsets(uri);
+        Assert.assertEquals((size + BLOCK_SIZE - 1) / BLOCK_SIZE, blocks.length);
+        Assert.assertEquals(BLOCK_SIZE, blocks[1]);
+
+        List<String> expected;
+        try (Dictionary.SeekableReader r = Dictionary.createSeekableWordReader(Files.newInputStream(data), StandardCharsets.UTF_8, 1024)) {
+            expected = r.words().collect(Collectors.toList());
+        }
+        try (Dictionary.SeekableReader r = Dictionary.createSeekableWordReader(fs.openScrollable(uri), StandardCharsets.UTF_8, 100)) {
+            Assert.assertEquals(expected, r.words().collect(Collectors.toList()));
+        }
+        byte[] bytes = Files.readAllBytes(data);
+        try (ScrollableInputStream in = fs.openScrollable(uri)) {
+            for (long pos : new long[]{size - 1, 0, BLOCK_SIZE - 3, size / 2, 1}) {
+                in.seek(pos);
+                byte[] actual = new byte[(int) Math.min(300_000, size - pos)];
+                Assert.assertEquals(actual.length, in.read(actual, 0, actual.length));
+                Assert.assertEquals(pos + actual.length, in.getPos());
+                for (int i = 0; i < actual.length; i++) {
+                    Assert.assertEquals("Pos " + pos + ", #" + i, bytes[(int) pos + i], actual[i]);
+                }
+            }
+            Assert.assertTrue(in.isEnd());
+            Assert.assertEquals(-1, in.read());
+        }
+    }
+}
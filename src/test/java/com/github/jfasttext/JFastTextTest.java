@@ -112,10 +112,12 @@ public class JFastTextTest {
         Map<String, Float> expected = new HashMap<>();
         expected.put("soccer", 0.500046f);
         expected.put("football", 0.499974f);
+        // the model is trained by several (hogwild) threads, and the order of summation depends on the kernel,
+        // so the near-tie probabilities vary from run to run by a few 1e-4:
         expected.forEach((k, v) -> {
             String lab = jft.getArgs().label() + k;
             Assert.assertTrue("Can't find label '" + k + "'", res.containsKey(lab));
-            Assert.assertEquals("Wrong probability for label '" + k + "'", v, res.get(lab), 0.0001);
+            Assert.assertEquals("Wrong probability for label '" + k + "'", v, res.get(lab), 0.001);
         });
     }
 